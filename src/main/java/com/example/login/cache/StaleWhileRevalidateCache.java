@@ -0,0 +1,159 @@
+package com.example.login.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe cache that serves stale values while refreshing in the background.
+ *
+ * Entries younger than the TTL are returned as-is. Entries past the TTL but
+ * inside the stale window are returned immediately and trigger one background
+ * refresh. Anything older (or missing) is loaded on the caller's thread.
+ * At most one load runs per key; concurrent callers share its result.
+ */
+public class StaleWhileRevalidateCache<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleWhileRevalidateCache.class);
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final ExecutorService refreshExecutor;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public StaleWhileRevalidateCache(String name, Duration ttl, Duration staleWindow, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleWindow.toNanos();
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.refreshExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "cache-" + name + "-refresh-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                .register(meterRegistry);
+        this.staleHits = Counter.builder("cache.gets").tag("cache", name).tag("result", "stale")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                .register(meterRegistry);
+        this.refreshSuccess = Timer.builder("cache.refresh").tag("cache", name).tag("outcome", "success")
+                .register(meterRegistry);
+        this.refreshFailure = Timer.builder("cache.refresh").tag("cache", name).tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the value for a key, loading it with {@code loader} when absent or expired
+     */
+    public V get(K key, Supplier<V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                refresh(key, loader, true);
+                return entry.value;
+            }
+        }
+
+        misses.increment();
+        try {
+            return refresh(key, loader, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start (or join) the single in-flight load for a key
+     */
+    private CompletableFuture<V> refresh(K key, Supplier<V> loader, boolean background) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            try {
+                V value = loader.get();
+                long loadedAt = System.nanoTime();
+                entries.put(key, new Entry<>(value, loadedAt));
+                refreshSuccess.record(Duration.ofNanos(loadedAt - start));
+                inFlight.remove(key, load);
+                load.complete(value);
+            } catch (Throwable e) {
+                // Errors too must release the single-flight entry, or every later miss waits on it forever
+                refreshFailure.record(Duration.ofNanos(System.nanoTime() - start));
+                logger.warn("Cache '{}' refresh failed for {}: {}", name, key, e.toString());
+                inFlight.remove(key, load);
+                load.completeExceptionally(e);
+                if (e instanceof Error error) {
+                    throw error;
+                }
+            }
+        };
+
+        if (background) {
+            refreshExecutor.execute(task);
+        } else {
+            task.run();
+        }
+        return load;
+    }
+
+    /**
+     * Drop a key so the next read loads it again
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -1,14 +1,36 @@
 package com.example.login.controller;
 
-import com.example.login.entity.BuildHistory;
-import com.example.login.entity.SystemMetrics;
+import com.example.login.config.WebConfig;
+import com.example.login.dto.ApiResponse;
+import com.example.login.dto.BuildHistoryPage;
+import com.example.login.dto.BuildSummary;
+import com.example.login.dto.MetricsPoint;
+import com.example.login.metrics.MetricsColumns;
+import com.example.login.metrics.MetricsSeries;
+import com.example.login.repository.BuildTrendRepository;
+import com.example.login.service.BuildDurationSketchService;
+import com.example.login.service.BuildExportService;
 import com.example.login.service.BuildHistoryService;
+import com.example.login.service.DashboardSnapshotService;
+import com.example.login.service.DashboardStreamService;
 import com.example.login.service.JenkinsApiService;
+import com.example.login.service.RecentMetricsService;
 import com.example.login.service.SystemMetricsService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
@@ -20,13 +42,37 @@ public class AnalyticsController {
     private final BuildHistoryService buildHistoryService;
     private final SystemMetricsService systemMetricsService;
     private final JenkinsApiService jenkinsApiService;
+    private final DashboardStreamService dashboardStreamService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final RecentMetricsService recentMetricsService;
+    private final BuildDurationSketchService durationSketchService;
+    private final BuildExportService buildExportService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final long exportTimeoutMs;
 
     public AnalyticsController(BuildHistoryService buildHistoryService,
             SystemMetricsService systemMetricsService,
-            JenkinsApiService jenkinsApiService) {
+            JenkinsApiService jenkinsApiService,
+            DashboardStreamService dashboardStreamService,
+            DashboardSnapshotService dashboardSnapshotService,
+            RecentMetricsService recentMetricsService,
+            BuildDurationSketchService durationSketchService,
+            BuildExportService buildExportService,
+            @Value("${analytics.builds.page-size:100}") int defaultPageSize,
+            @Value("${analytics.builds.max-page-size:500}") int maxPageSize,
+            @Value("${analytics.builds.export-timeout-ms:1800000}") long exportTimeoutMs) {
         this.buildHistoryService = buildHistoryService;
         this.systemMetricsService = systemMetricsService;
         this.jenkinsApiService = jenkinsApiService;
+        this.dashboardStreamService = dashboardStreamService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.recentMetricsService = recentMetricsService;
+        this.durationSketchService = durationSketchService;
+        this.buildExportService = buildExportService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     /**
@@ -94,15 +140,15 @@ public class AnalyticsController {
             }
 
             // Fallback to database
-            List<BuildHistory> dbBuilds = buildHistoryService.getRecentBuilds(limit);
+            List<BuildSummary> dbBuilds = buildHistoryService.getRecentBuilds(limit);
             List<Map<String, Object>> fallback = new ArrayList<>();
-            for (BuildHistory bh : dbBuilds) {
+            for (BuildSummary bh : dbBuilds) {
                 Map<String, Object> m = new HashMap<>();
-                m.put("jobName", bh.getJobName());
-                m.put("buildNumber", bh.getBuildNumber());
-                m.put("status", bh.getStatus());
-                m.put("durationMs", bh.getDurationMs());
-                m.put("timestamp", bh.getTimestamp() != null ? bh.getTimestamp().toString() : null);
+                m.put("jobName", bh.jobName());
+                m.put("buildNumber", bh.buildNumber());
+                m.put("status", bh.status());
+                m.put("durationMs", bh.durationMs());
+                m.put("timestamp", bh.timestamp() != null ? bh.timestamp().toString() : null);
                 fallback.add(m);
             }
 
@@ -114,28 +160,87 @@ public class AnalyticsController {
     }
 
     /**
-     * Get builds from last N days
+     * Get builds from last N days, one page at a time - pass nextCursor back as cursor
      */
     @GetMapping("/builds/history")
-    public ResponseEntity<List<BuildHistory>> getBuildHistory(@RequestParam(defaultValue = "7") int days) {
+    public ResponseEntity<?> getBuildHistory(@RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
         try {
-            List<BuildHistory> builds = buildHistoryService.getBuildsFromLastDays(days);
-            return ResponseEntity.ok(builds);
+            BuildHistoryPage page = buildHistoryService.getBuildPage(days, cursor, pageSize);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
-            return ResponseEntity.ok(new ArrayList<>());
+            return ResponseEntity.ok(new BuildHistoryPage(new ArrayList<>(), null));
         }
     }
 
     /**
-     * Get system metrics from last N hours
+     * Export build history (all of it, or the last N days) as CSV or NDJSON,
+     * streamed from a database cursor; gzip-compressed when the client accepts it.
+     * Only this response gets the long export timeout; other async endpoints
+     * keep the global default.
+     */
+    @GetMapping("/builds/export")
+    public ResponseEntity<StreamingResponseBody> exportBuilds(@RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Integer days,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        // Invalid arguments surface as 400 through GlobalExceptionHandler
+        BuildExportService.Format exportFormat = BuildExportService.Format.parse(format);
+        if (days != null && days < 1) {
+            throw new IllegalArgumentException("'days' must be at least 1");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        String filename = "builds_" + LocalDate.now() + "." + exportFormat.getExtension();
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        request.setAttribute(WebConfig.ASYNC_TIMEOUT_ATTRIBUTE, exportTimeoutMs);
+        return builder.body(out -> buildExportService.export(exportFormat, days, gzip, out));
+    }
+
+    /**
+     * Get system metrics from last N hours, as points or (by Accept header) as columns
      */
     @GetMapping("/metrics/history")
-    public ResponseEntity<List<SystemMetrics>> getMetricsHistory(@RequestParam(defaultValue = "24") int hours) {
+    public ResponseEntity<?> getMetricsHistory(@RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(defaultValue = "false") boolean delta,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (maxPoints != null && maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3");
+        }
+        MediaType columnar = MetricsColumns.requestedType(accept);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
         try {
-            List<SystemMetrics> metrics = systemMetricsService.getMetricsFromLastHours(hours);
-            return ResponseEntity.ok(metrics);
+            MetricsSeries recent = recentMetricsService.getHistory(hours);
+            if (recent != null) {
+                if (maxPoints != null) {
+                    recent = recent.downsample(maxPoints);
+                }
+                return columnar != null
+                        ? response.contentType(columnar).body(MetricsColumns.of(recent, delta))
+                        : response.body(recent);
+            }
+            List<MetricsPoint> metrics = maxPoints != null
+                    ? systemMetricsService.getMetricsFromLastHours(hours, maxPoints)
+                    : systemMetricsService.getMetricsFromLastHours(hours);
+            return columnar != null
+                    ? response.contentType(columnar).body(MetricsColumns.of(metrics, delta))
+                    : response.body(metrics);
         } catch (Exception e) {
-            return ResponseEntity.ok(new ArrayList<>());
+            return columnar != null
+                    ? response.contentType(columnar).body(MetricsColumns.of(List.<MetricsPoint>of(), delta))
+                    : response.body(new ArrayList<>());
         }
     }
 
@@ -155,30 +260,25 @@ public class AnalyticsController {
     }
 
     /**
-     * Get dashboard summary with all key metrics - USING JENKINS API
+     * Get dashboard summary with all key metrics - served from the materialized
+     * snapshot, 304 when the client already has the current version
      */
     @GetMapping("/dashboard/summary")
-    public ResponseEntity<Map<String, Object>> getDashboardSummary() {
+    public ResponseEntity<?> getDashboardSummary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Map<String, Object> summary = new HashMap<>();
-
-            // Build statistics from Jenkins
-            Map<String, Object> buildStats = jenkinsApiService.getBuildStatistics();
-            summary.put("buildStatistics", buildStats);
-
-            // Recent builds from Jenkins
-            List<Map<String, Object>> recentBuilds = jenkinsApiService.getRecentBuilds(10);
-            summary.put("recentBuilds", recentBuilds);
-
-            // Metrics statistics from database
-            Map<String, Object> metricsStats = systemMetricsService.getMetricsStatistics(24);
-            summary.put("metricsStatistics", metricsStats);
-
-            // Recent metrics for charts
-            List<SystemMetrics> recentMetrics = systemMetricsService.getMetricsFromLastHours(1);
-            summary.put("recentMetrics", recentMetrics);
-
-            return ResponseEntity.ok(summary);
+            DashboardSnapshotService.Snapshot snapshot = dashboardSnapshotService.getSnapshot();
+            if (DashboardSnapshotService.matches(ifNoneMatch, snapshot.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(snapshot.etag())
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.body());
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Failed to fetch dashboard summary");
@@ -188,28 +288,53 @@ public class AnalyticsController {
     }
 
     /**
-     * Get build trends for visualization
+     * Live dashboard updates over Server-Sent Events: a full snapshot first, then deltas
+     */
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDashboard() {
+        SseEmitter emitter = dashboardStreamService.subscribe();
+        if (emitter == null) {
+            // Clients fall back to polling when the stream is full
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    /**
+     * Get build trends for visualization - bucketed counts per job and status, computed in SQL
      */
     @GetMapping("/builds/trends")
-    public ResponseEntity<Map<String, Object>> getBuildTrends(@RequestParam(defaultValue = "30") int days) {
+    public ResponseEntity<?> getBuildTrends(@RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) String job,
+            @RequestParam(required = false) String status) {
         try {
-            List<BuildHistory> builds = buildHistoryService.getBuildsFromLastDays(days);
-
-            Map<String, Object> trends = new HashMap<>();
-            trends.put("totalBuilds", builds.size());
-            trends.put("builds", builds);
-
-            // Calculate daily build counts
-            Map<String, Long> dailyCounts = new HashMap<>();
-            for (BuildHistory build : builds) {
-                if (build.getTimestamp() != null) {
-                    String date = build.getTimestamp().toLocalDate().toString();
-                    dailyCounts.put(date, dailyCounts.getOrDefault(date, 0L) + 1);
-                }
-            }
-            trends.put("dailyCounts", dailyCounts);
+            BuildTrendRepository.Bucket size = BuildTrendRepository.Bucket.parse(bucket);
+            return ResponseEntity.ok(buildHistoryService.getBuildTrends(days, size, job, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.ok(new HashMap<>());
+        }
+    }
 
-            return ResponseEntity.ok(trends);
+    /**
+     * Get build duration percentiles per job over a date range (default: last 30 days)
+     */
+    @GetMapping("/builds/durations")
+    public ResponseEntity<?> getBuildDurationPercentiles(
+            @RequestParam(required = false) String job,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        try {
+            return ResponseEntity.ok(durationSketchService.getPercentiles(job, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.ok(new HashMap<>());
         }
@@ -223,13 +348,12 @@ public class AnalyticsController {
         try {
             Map<String, Object> performance = new HashMap<>();
 
-            // Get recent metrics
-            List<SystemMetrics> recent = systemMetricsService.getMetricsFromLastHours(1);
-            if (!recent.isEmpty()) {
-                SystemMetrics latest = recent.get(0);
-                performance.put("currentCpu", latest.getCpuUsage() * 100);
-                performance.put("currentMemory", latest.getMemoryUsage() * 100);
-                performance.put("currentThreads", latest.getThreadCount());
+            // Latest sample from memory
+            MetricsSeries latest = recentMetricsService.getLatest();
+            if (!latest.isEmpty()) {
+                performance.put("currentCpu", percent(latest.cpuUsage(0)));
+                performance.put("currentMemory", percent(latest.memoryUsage(0)));
+                performance.put("currentThreads", latest.threadCount(0));
             }
 
             // Get statistics
@@ -242,4 +366,9 @@ public class AnalyticsController {
             return ResponseEntity.ok(new HashMap<>());
         }
     }
+
+    // A missing reading (NaN) is reported as null
+    private static Double percent(double ratio) {
+        return Double.isNaN(ratio) ? null : ratio * 100;
+    }
 }
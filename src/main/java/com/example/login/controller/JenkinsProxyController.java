@@ -1,230 +1,282 @@
 package com.example.login.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.example.login.service.BuildHistoryService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.login.exception.JenkinsApiException;
+import com.example.login.service.JenkinsClient;
+import com.example.login.service.JenkinsJobsService;
 
 @RestController
 @RequestMapping("/api/jenkins")
 public class JenkinsProxyController {
 
-    @Value("${jenkins.url}")
-    private String jenkinsUrl;
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsProxyController.class);
 
-    @Value("${jenkins.user}")
-    private String jenkinsUser;
+    private static final String JSON = "application/json";
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
 
-    @Value("${jenkins.token}")
-    private String jenkinsToken;
+    private final JenkinsClient jenkinsClient;
+    private final JenkinsJobsService jenkinsJobsService;
 
-    private final BuildHistoryService buildHistoryService;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public JenkinsProxyController(BuildHistoryService buildHistoryService) {
-        this.buildHistoryService = buildHistoryService;
-    }
-
-    private HttpHeaders createAuthHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        String auth = jenkinsUser + ":" + jenkinsToken;
-        byte[] encodedAuth = Base64.getEncoder().encode(auth.getBytes(StandardCharsets.UTF_8));
-        String authHeader = "Basic " + new String(encodedAuth);
-        headers.set("Authorization", authHeader);
-        headers.set("Accept", "application/json");
-        // Add CSRF protection header
-        headers.set("Jenkins-Crumb", "no-csrf");
-        return headers;
+    public JenkinsProxyController(JenkinsClient jenkinsClient, JenkinsJobsService jenkinsJobsService) {
+        this.jenkinsClient = jenkinsClient;
+        this.jenkinsJobsService = jenkinsJobsService;
     }
 
     @GetMapping("/job/{jobName}/lastBuild")
-    public ResponseEntity<String> getLastBuild(@PathVariable String jobName) {
-        String url = jenkinsUrl + "/job/" + jobName + "/lastBuild/api/json";
-        System.out.println("DEBUG: Attempting to access URL: " + url);
+    public CompletableFuture<ResponseEntity<String>> getLastBuild(@PathVariable String jobName) {
+        String path = "/job/" + jobName + "/lastBuild/api/json";
+        logger.debug("Fetching last build: {}", path);
+
+        return jenkinsClient.get(path, JSON)
+                .thenApply(body -> {
+                    // Only queues the save, so the database never holds up a jenkins-http thread
+                    jenkinsJobsService.saveLastBuild(jobName, body);
+                    return ResponseEntity.ok(body);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof JenkinsApiException apiError && apiError.isClientError()) {
+                        logger.warn("Jenkins HTTP error {} for {}", apiError.getStatusCode(), path);
+                        String errorMsg = String.format(
+                                "{\"error\": \"Jenkins API Error\", \"status\": %d, \"message\": \"%s\", "
+                                        + "\"response\": \"%s\"}",
+                                apiError.getStatusCode(), apiError.getMessage(),
+                                apiError.getResponseBody().replace("\"", "\\\""));
+                        return ResponseEntity.status(apiError.getStatusCode()).body(errorMsg);
+                    }
+                    logger.error("Error fetching last build for {}: {}", jobName, cause.getMessage());
+                    String errorMsg = String.format("{\"error\": \"Connection Error\", \"message\": \"%s\"}",
+                            cause.getMessage());
+                    return ResponseEntity.status(500).body(errorMsg);
+                });
+    }
 
-        try {
-            HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Response status: " + response.getStatusCode());
-
-            // Save build data to database if service is available
-            if (buildHistoryService != null && response.getBody() != null) {
-                try {
-                    JsonNode buildData = objectMapper.readTree(response.getBody());
-
-                    Integer buildNumber = buildData.has("number") ? buildData.get("number").asInt() : null;
-                    String status = buildData.has("result") && !buildData.get("result").isNull()
-                            ? buildData.get("result").asText()
-                            : "BUILDING";
-                    Long duration = buildData.has("duration") ? buildData.get("duration").asLong() : null;
-                    Long timestamp = buildData.has("timestamp") ? buildData.get("timestamp").asLong() : null;
-
-                    if (buildNumber != null && timestamp != null) {
-                        LocalDateTime buildTime = LocalDateTime.ofInstant(
-                                Instant.ofEpochMilli(timestamp),
-                                ZoneId.systemDefault());
-
-                        buildHistoryService.saveBuild(jobName, buildNumber, status, duration, buildTime);
-                        System.out.println("DEBUG: Saved build #" + buildNumber + " to database");
+    /**
+     * Stream console output straight from Jenkins without buffering the log.
+     *
+     * Without an offset the full consoleText is relayed. With {@code ?start=N}
+     * or {@code Range: bytes=N-} only the log from byte N onwards is fetched via
+     * Jenkins' progressiveText API; {@code X-Text-Size} is the offset to request
+     * next and {@code X-More-Data} is true while the build is still writing.
+     * A range starting exactly at the end of the log gets an empty 200, so a
+     * client tailing a running build can keep polling; one beyond it gets 416.
+     */
+    @GetMapping("/job/{jobName}/lastBuild/consoleText")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getConsoleOutput(@PathVariable String jobName,
+            @RequestParam(required = false) Long start,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        Long rangeStart = parseRangeStart(range);
+        Long offset = rangeStart != null ? rangeStart : start;
+        String path = offset == null
+                ? "/job/" + jobName + "/lastBuild/consoleText"
+                : "/job/" + jobName + "/lastBuild/logText/progressiveText?start=" + offset;
+        logger.debug("Streaming console output: {}", path);
+
+        return jenkinsClient.stream(path, "text/plain")
+                .thenApply(response -> {
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                    if (offset != null) {
+                        long textSize = response.headers().firstValueAsLong("X-Text-Size").orElse(offset);
+                        boolean moreData = response.headers().firstValue("X-More-Data")
+                                .map(Boolean::parseBoolean).orElse(false);
+                        if (rangeStart != null) {
+                            if (rangeStart == textSize) {
+                                // Caught up with the log: nothing new yet, ask again from the same offset
+                                closeQuietly(response.body());
+                                return ResponseEntity.ok()
+                                        .header("X-Text-Size", String.valueOf(textSize))
+                                        .header("X-More-Data", String.valueOf(moreData))
+                                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                                        .contentType(TEXT_PLAIN_UTF8)
+                                        .contentLength(0)
+                                        .<StreamingResponseBody>body(out -> {
+                                        });
+                            }
+                            if (rangeStart > textSize) {
+                                closeQuietly(response.body());
+                                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + textSize)
+                                        .header("X-Text-Size", String.valueOf(textSize))
+                                        .header("X-More-Data", String.valueOf(moreData))
+                                        .<StreamingResponseBody>body(out -> {
+                                        });
+                            }
+                            builder = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + rangeStart + "-" + (textSize - 1)
+                                            + "/" + (moreData ? "*" : String.valueOf(textSize)));
+                        }
+                        builder.header("X-Text-Size", String.valueOf(textSize))
+                                .header("X-More-Data", String.valueOf(moreData));
                     }
-                } catch (Exception e) {
-                    // Log error but don't fail the request
-                    System.err.println("DEBUG: Failed to save build to database: " + e.getMessage());
+                    response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH)
+                            .ifPresent(builder::contentLength);
+                    return builder.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                            .contentType(TEXT_PLAIN_UTF8)
+                            .body(relay(response.body()));
+                })
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof JenkinsApiException apiError && apiError.isClientError()) {
+                        String errorMsg = String.format("Jenkins API Error: %s (Status: %d)\nResponse: %s",
+                                apiError.getMessage(), apiError.getStatusCode(), apiError.getResponseBody());
+                        return ResponseEntity.status(apiError.getStatusCode()).contentType(TEXT_PLAIN_UTF8)
+                                .body(text(errorMsg));
+                    }
+                    logger.error("Error fetching console output for {}: {}", jobName, cause.getMessage());
+                    return ResponseEntity.status(500).contentType(TEXT_PLAIN_UTF8)
+                            .body(text(String.format("Connection Error: %s", cause.getMessage())));
+                });
+    }
+
+    /**
+     * Copy the upstream body to the servlet output through a fixed-size buffer
+     */
+    private static StreamingResponseBody relay(InputStream upstream) {
+        return out -> {
+            try (InputStream in = upstream) {
+                byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
                 }
             }
-
-            return ResponseEntity.ok(response.getBody());
-        } catch (HttpClientErrorException e) {
-            System.err.println(
-                    "DEBUG: HTTP Error - Status: " + e.getStatusCode() + ", Body: " + e.getResponseBodyAsString());
-            String errorMsg = String.format(
-                    "{\"error\": \"Jenkins API Error\", \"status\": %d, \"message\": \"%s\", \"response\": \"%s\"}",
-                    e.getStatusCode().value(), e.getMessage(),
-                    e.getResponseBodyAsString().replace("\"", "\\\""));
-            return ResponseEntity.status(e.getStatusCode()).body(errorMsg);
-        } catch (Exception e) {
-            System.err.println("DEBUG: General Error: " + e.getMessage());
-            e.printStackTrace();
-            String errorMsg = String.format("{\"error\": \"Connection Error\", \"message\": \"%s\"}", e.getMessage());
-            return ResponseEntity.status(500).body(errorMsg);
-        }
+        };
     }
 
-    @GetMapping("/job/{jobName}/lastBuild/consoleText")
-    public ResponseEntity<String> getConsoleOutput(@PathVariable String jobName) {
-        String url = jenkinsUrl + "/job/" + jobName + "/lastBuild/consoleText";
-        System.out.println("DEBUG: Attempting to access URL: " + url);
+    private static StreamingResponseBody text(String message) {
+        return out -> out.write(message.getBytes(StandardCharsets.UTF_8));
+    }
 
+    /**
+     * Accepts the open-ended form {@code bytes=N-}; anything else means "whole log"
+     */
+    static Long parseRangeStart(String range) {
+        if (range == null || !range.startsWith("bytes=") || !range.endsWith("-")) {
+            return null;
+        }
         try {
-            HttpHeaders headers = createAuthHeaders();
-            headers.set("Accept", "text/plain");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Response status: " + response.getStatusCode());
-
-            return ResponseEntity.ok(response.getBody());
-        } catch (HttpClientErrorException e) {
-            System.err.println(
-                    "DEBUG: HTTP Error - Status: " + e.getStatusCode() + ", Body: " + e.getResponseBodyAsString());
-            String errorMsg = String.format("Jenkins API Error: %s (Status: %d)\nResponse: %s",
-                    e.getMessage(), e.getStatusCode().value(), e.getResponseBodyAsString());
-            return ResponseEntity.status(e.getStatusCode()).body(errorMsg);
-        } catch (Exception e) {
-            System.err.println("DEBUG: General Error: " + e.getMessage());
-            e.printStackTrace();
-            String errorMsg = String.format("Connection Error: %s", e.getMessage());
-            return ResponseEntity.status(500).body(errorMsg);
+            long start = Long.parseLong(range.substring("bytes=".length(), range.length() - 1).trim());
+            return start >= 0 ? start : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
-    @GetMapping("/status")
-    public ResponseEntity<String> getJenkinsStatus() {
-        String url = jenkinsUrl + "/api/json";
-        System.out.println("DEBUG: Testing Jenkins connectivity at: " + url);
-
+    private static void closeQuietly(InputStream in) {
         try {
-            HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Jenkins connection successful, status: " + response.getStatusCode());
-
-            return ResponseEntity.ok("{\"status\": \"connected\", \"jenkins_url\": \"" + jenkinsUrl + "\"}");
-        } catch (HttpClientErrorException e) {
-            System.err.println("DEBUG: Jenkins HTTP Error - Status: " + e.getStatusCode() + ", Body: "
-                    + e.getResponseBodyAsString());
-            String errorMsg = String.format("{\"status\": \"http_error\", \"error_code\": %d, \"error\": \"%s\"}",
-                    e.getStatusCode().value(), e.getMessage().replace("\"", "\\\""));
-            return ResponseEntity.status(e.getStatusCode()).body(errorMsg);
-        } catch (Exception e) {
-            System.err.println("DEBUG: Jenkins connection failed: " + e.getMessage());
-            e.printStackTrace();
-            String errorMsg = String.format("{\"status\": \"disconnected\", \"error\": \"%s\"}",
-                    e.getMessage().replace("\"", "\\\""));
-            return ResponseEntity.status(500).body(errorMsg);
+            in.close();
+        } catch (IOException ignored) {
+            // nothing left to release
         }
     }
 
+    @GetMapping("/status")
+    public CompletableFuture<ResponseEntity<String>> getJenkinsStatus() {
+        String jenkinsUrl = jenkinsClient.getEffectiveBaseUrl();
+        logger.debug("Testing Jenkins connectivity at: {}/api/json", jenkinsUrl);
+
+        return jenkinsClient.get("/api/json", JSON)
+                .thenApply(body -> ResponseEntity
+                        .ok("{\"status\": \"connected\", \"jenkins_url\": \"" + jenkinsUrl + "\"}"))
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof JenkinsApiException apiError && apiError.isClientError()) {
+                        String errorMsg = String.format(
+                                "{\"status\": \"http_error\", \"error_code\": %d, \"error\": \"%s\"}",
+                                apiError.getStatusCode(), apiError.getMessage().replace("\"", "\\\""));
+                        return ResponseEntity.status(apiError.getStatusCode()).body(errorMsg);
+                    }
+                    logger.warn("Jenkins connection failed: {}", cause.getMessage());
+                    String errorMsg = String.format("{\"status\": \"disconnected\", \"error\": \"%s\"}",
+                            String.valueOf(cause.getMessage()).replace("\"", "\\\""));
+                    return ResponseEntity.status(500).body(errorMsg);
+                });
+    }
+
     @GetMapping("/jobs")
-    public ResponseEntity<String> getAllJobs() {
-        String url = jenkinsUrl + "/api/json?tree=jobs[name,url,lastBuild[number,result]]";
-        System.out.println("DEBUG: Fetching all Jenkins jobs from: " + url);
+    public CompletableFuture<ResponseEntity<String>> getAllJobs() {
+        return jenkinsClient.get("/api/json?tree=jobs[name,url,lastBuild[number,result]]", JSON)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    logger.error("Error fetching jobs: {}", cause.getMessage());
+                    String errorMsg = String.format("{\"error\": \"Failed to fetch jobs\", \"message\": \"%s\"}",
+                            String.valueOf(cause.getMessage()).replace("\"", "\\\""));
+                    return ResponseEntity.status(500).body(errorMsg);
+                });
+    }
 
-        try {
-            HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Jobs fetched successfully");
-
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            System.err.println("DEBUG: Error fetching jobs: " + e.getMessage());
-            String errorMsg = String.format("{\"error\": \"Failed to fetch jobs\", \"message\": \"%s\"}",
-                    e.getMessage().replace("\"", "\\\""));
-            return ResponseEntity.status(500).body(errorMsg);
-        }
+    /**
+     * All jobs with their last build in one response, replacing one
+     * lastBuild request per job from the dashboard
+     */
+    @GetMapping("/jobs/lastBuilds")
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getJobsWithLastBuild() {
+        return jenkinsJobsService.getJobsWithLastBuild()
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    logger.error("Error fetching jobs with last builds: {}", cause.getMessage());
+                    return ResponseEntity.status(500).body(List.of());
+                });
     }
 
     @GetMapping("/job/{jobName}")
-    public ResponseEntity<String> getJobDetails(@PathVariable String jobName) {
-        String url = jenkinsUrl + "/job/" + jobName
+    public CompletableFuture<ResponseEntity<String>> getJobDetails(@PathVariable String jobName) {
+        String path = "/job/" + jobName
                 + "/api/json?tree=builds[number,url],lastBuild[number,result,timestamp,duration]";
-        System.out.println("DEBUG: Fetching job details from: " + url);
-
-        try {
-            HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Job details fetched successfully");
-
-            return ResponseEntity.ok(response.getBody());
-        } catch (HttpClientErrorException e) {
-            System.err.println("DEBUG: HTTP Error - Status: " + e.getStatusCode());
-            String errorMsg = String.format("{\"error\": \"Jenkins API Error\", \"status\": %d, \"message\": \"%s\"}",
-                    e.getStatusCode().value(), e.getMessage());
-            return ResponseEntity.status(e.getStatusCode()).body(errorMsg);
-        } catch (Exception e) {
-            System.err.println("DEBUG: Error fetching job details: " + e.getMessage());
-            String errorMsg = String.format("{\"error\": \"Connection Error\", \"message\": \"%s\"}", e.getMessage());
-            return ResponseEntity.status(500).body(errorMsg);
-        }
+        return proxyJson(path, "job details");
     }
 
     @GetMapping("/job/{jobName}/build/{buildNumber}")
-    public ResponseEntity<String> getBuildInfo(@PathVariable String jobName, @PathVariable int buildNumber) {
-        String url = jenkinsUrl + "/job/" + jobName + "/" + buildNumber + "/api/json";
-        System.out.println("DEBUG: Fetching build info from: " + url);
+    public CompletableFuture<ResponseEntity<String>> getBuildInfo(@PathVariable String jobName,
+            @PathVariable int buildNumber) {
+        return proxyJson("/job/" + jobName + "/" + buildNumber + "/api/json", "build info");
+    }
 
-        try {
-            HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            System.out.println("DEBUG: Build info fetched successfully");
-
-            return ResponseEntity.ok(response.getBody());
-        } catch (HttpClientErrorException e) {
-            System.err.println("DEBUG: HTTP Error - Status: " + e.getStatusCode());
-            String errorMsg = String.format("{\"error\": \"Jenkins API Error\", \"status\": %d, \"message\": \"%s\"}",
-                    e.getStatusCode().value(), e.getMessage());
-            return ResponseEntity.status(e.getStatusCode()).body(errorMsg);
-        } catch (Exception e) {
-            System.err.println("DEBUG: Error fetching build info: " + e.getMessage());
-            String errorMsg = String.format("{\"error\": \"Connection Error\", \"message\": \"%s\"}", e.getMessage());
-            return ResponseEntity.status(500).body(errorMsg);
-        }
+    private CompletableFuture<ResponseEntity<String>> proxyJson(String path, String what) {
+        logger.debug("Fetching {} from: {}", what, path);
+
+        return jenkinsClient.get(path, JSON)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof JenkinsApiException apiError && apiError.isClientError()) {
+                        String errorMsg = String.format(
+                                "{\"error\": \"Jenkins API Error\", \"status\": %d, \"message\": \"%s\"}",
+                                apiError.getStatusCode(), apiError.getMessage());
+                        return ResponseEntity.status(apiError.getStatusCode()).body(errorMsg);
+                    }
+                    logger.error("Error fetching {}: {}", what, cause.getMessage());
+                    String errorMsg = String.format("{\"error\": \"Connection Error\", \"message\": \"%s\"}",
+                            cause.getMessage());
+                    return ResponseEntity.status(500).body(errorMsg);
+                });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
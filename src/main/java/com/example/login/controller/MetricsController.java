@@ -1,14 +1,27 @@
 package com.example.login.controller;
 
+import com.example.login.dto.MetricsPoint;
+import com.example.login.metrics.EndpointLatencies;
+import com.example.login.metrics.HttpRequestCounters;
+import com.example.login.metrics.JfrEventAggregator;
+import com.example.login.metrics.JvmEventSummary;
+import com.example.login.metrics.MetricsColumns;
+import com.example.login.metrics.MetricsSeries;
 import com.example.login.service.PrometheusMetricsCollector;
+import com.example.login.service.RecentMetricsService;
 import com.example.login.service.SystemMetricsService;
 import com.example.login.entity.SystemMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/metrics")
@@ -16,11 +29,23 @@ public class MetricsController {
 
     private final PrometheusMetricsCollector metricsCollector;
     private final SystemMetricsService systemMetricsService;
+    private final RecentMetricsService recentMetricsService;
+    private final HttpRequestCounters httpRequestCounters;
+    private final EndpointLatencies endpointLatencies;
+    private final JfrEventAggregator jfrEventAggregator;
 
     public MetricsController(PrometheusMetricsCollector metricsCollector,
-            SystemMetricsService systemMetricsService) {
+            SystemMetricsService systemMetricsService,
+            RecentMetricsService recentMetricsService,
+            HttpRequestCounters httpRequestCounters,
+            EndpointLatencies endpointLatencies,
+            JfrEventAggregator jfrEventAggregator) {
         this.metricsCollector = metricsCollector;
         this.systemMetricsService = systemMetricsService;
+        this.recentMetricsService = recentMetricsService;
+        this.httpRequestCounters = httpRequestCounters;
+        this.endpointLatencies = endpointLatencies;
+        this.jfrEventAggregator = jfrEventAggregator;
     }
 
     /**
@@ -48,28 +73,122 @@ public class MetricsController {
         return ResponseEntity.ok(jvmMetrics);
     }
 
+    /**
+     * Get all JFR event summaries (GC, allocation, safepoints, contention) per interval
+     */
+    @GetMapping("/jvm/events")
+    public ResponseEntity<Map<String, Object>> getJvmEvents(@RequestParam(defaultValue = "60") int minutes) {
+        return jvmEvents(minutes, summary -> {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("gcCount", summary.gcCount());
+            fields.put("gcPauseMs", summary.gcPauseMs());
+            fields.put("gcPauseMaxMs", summary.gcPauseMaxMs());
+            fields.put("allocatedBytes", summary.allocatedBytes());
+            fields.put("allocationRate", summary.allocationRate());
+            fields.put("safepointCount", summary.safepointCount());
+            fields.put("safepointMs", summary.safepointMs());
+            fields.put("safepointMaxMs", summary.safepointMaxMs());
+            fields.put("monitorBlockedCount", summary.monitorBlockedCount());
+            fields.put("monitorBlockedMs", summary.monitorBlockedMs());
+            fields.put("monitorBlockedMaxMs", summary.monitorBlockedMaxMs());
+            return fields;
+        });
+    }
+
+    /**
+     * Get garbage collection counts and pause times per interval
+     */
+    @GetMapping("/jvm/gc")
+    public ResponseEntity<Map<String, Object>> getJvmGc(@RequestParam(defaultValue = "60") int minutes) {
+        return jvmEvents(minutes, summary -> Map.of(
+                "gcCount", summary.gcCount(),
+                "gcPauseMs", summary.gcPauseMs(),
+                "gcPauseMaxMs", summary.gcPauseMaxMs()));
+    }
+
+    /**
+     * Get sampled allocation volume and rate per interval
+     */
+    @GetMapping("/jvm/allocation")
+    public ResponseEntity<Map<String, Object>> getJvmAllocation(@RequestParam(defaultValue = "60") int minutes) {
+        return jvmEvents(minutes, summary -> Map.of(
+                "allocatedBytes", summary.allocatedBytes(),
+                "allocationRate", summary.allocationRate()));
+    }
+
+    /**
+     * Get time spent reaching safepoints per interval
+     */
+    @GetMapping("/jvm/safepoints")
+    public ResponseEntity<Map<String, Object>> getJvmSafepoints(@RequestParam(defaultValue = "60") int minutes) {
+        return jvmEvents(minutes, summary -> Map.of(
+                "safepointCount", summary.safepointCount(),
+                "safepointMs", summary.safepointMs(),
+                "safepointMaxMs", summary.safepointMaxMs()));
+    }
+
+    /**
+     * Get contended monitor enters above the recording threshold per interval
+     */
+    @GetMapping("/jvm/contention")
+    public ResponseEntity<Map<String, Object>> getJvmContention(@RequestParam(defaultValue = "60") int minutes) {
+        return jvmEvents(minutes, summary -> Map.of(
+                "monitorBlockedCount", summary.monitorBlockedCount(),
+                "monitorBlockedMs", summary.monitorBlockedMs(),
+                "monitorBlockedMaxMs", summary.monitorBlockedMaxMs()));
+    }
+
     /**
      * Get HTTP metrics
      */
     @GetMapping("/http")
     public ResponseEntity<Map<String, Object>> getHttpMetrics() {
-        SystemMetrics current = metricsCollector.getCurrentMetrics();
-
         Map<String, Object> httpMetrics = new HashMap<>();
-        httpMetrics.put("totalRequests", current.getHttpRequestsTotal());
+        httpMetrics.put("totalRequests", httpRequestCounters.total());
         httpMetrics.put("requestRate", calculateRequestRate());
+        httpMetrics.put("byRoute", httpRequestCounters.snapshot());
 
         return ResponseEntity.ok(httpMetrics);
     }
 
     /**
-     * Get metrics history for charts
+     * Get latency percentiles per endpoint over sliding windows
+     */
+    @GetMapping("/http/latency")
+    public ResponseEntity<Map<String, Object>> getHttpLatency() {
+        return ResponseEntity.ok(endpointLatencies.snapshot());
+    }
+
+    /**
+     * Get metrics history for charts - short windows come from memory.
+     * Accept: application/vnd.capstone.metrics-columns+json or application/cbor returns columns.
      */
     @GetMapping("/history")
-    public ResponseEntity<List<SystemMetrics>> getMetricsHistory(
-            @RequestParam(defaultValue = "24") int hours) {
-        List<SystemMetrics> history = systemMetricsService.getMetricsHistory(hours);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<?> getMetricsHistory(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(defaultValue = "false") boolean delta,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (maxPoints != null && maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3");
+        }
+        MediaType columnar = MetricsColumns.requestedType(accept);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        MetricsSeries recent = recentMetricsService.getHistory(hours);
+        if (recent != null) {
+            if (maxPoints != null) {
+                recent = recent.downsample(maxPoints);
+            }
+            return columnar != null
+                    ? response.contentType(columnar).body(MetricsColumns.of(recent, delta))
+                    : response.body(recent);
+        }
+        List<MetricsPoint> history = maxPoints != null
+                ? systemMetricsService.getMetricsHistory(hours, maxPoints)
+                : systemMetricsService.getMetricsHistory(hours);
+        return columnar != null
+                ? response.contentType(columnar).body(MetricsColumns.of(history, delta))
+                : response.body(history);
     }
 
     /**
@@ -101,19 +220,31 @@ public class MetricsController {
 
     // Helper methods
 
-    private double calculateRequestRate() {
-        // Calculate requests per second based on recent data
-        List<SystemMetrics> recent = systemMetricsService.getMetricsHistory(1);
-        if (recent.size() < 2)
-            return 0.0;
+    private ResponseEntity<Map<String, Object>> jvmEvents(int minutes,
+            Function<JvmEventSummary, Map<String, Object>> fields) {
+        List<JvmEventSummary> history = jfrEventAggregator.getHistory(minutes);
 
-        SystemMetrics latest = recent.get(0);
-        SystemMetrics previous = recent.get(1);
+        List<Map<String, Object>> intervals = new ArrayList<>(history.size());
+        for (JvmEventSummary summary : history) {
+            Map<String, Object> interval = new LinkedHashMap<>();
+            interval.put("startMs", summary.startMs());
+            interval.put("endMs", summary.endMs());
+            interval.putAll(fields.apply(summary));
+            intervals.add(interval);
+        }
 
-        long requestDiff = latest.getHttpRequestsTotal() - previous.getHttpRequestsTotal();
-        long timeDiff = 30; // 30 seconds between collections
+        JvmEventSummary total = JvmEventSummary.merge(history);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", jfrEventAggregator.isRunning());
+        result.put("minutes", minutes);
+        result.put("total", total != null ? fields.apply(total) : null);
+        result.put("intervals", intervals);
+        return ResponseEntity.ok(result);
+    }
 
-        return (double) requestDiff / timeDiff;
+    private double calculateRequestRate() {
+        // Requests per second between the two newest in-memory samples
+        return recentMetricsService.getRequestRate();
     }
 
     private String determineHealthStatus(SystemMetrics metrics) {
@@ -0,0 +1,66 @@
+package com.example.login.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of build history, newest first, with an opaque cursor for the
+ * next page (null on the last page).
+ *
+ * The cursor encodes the (timestamp, id) of the last build on the page, so the
+ * next page starts strictly after it regardless of rows inserted meanwhile.
+ */
+public class BuildHistoryPage {
+
+    private final List<BuildSummary> builds;
+    private final String nextCursor;
+
+    public BuildHistoryPage(List<BuildSummary> builds, String nextCursor) {
+        this.builds = builds;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BuildSummary> getBuilds() {
+        return builds;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getSize() {
+        return builds.size();
+    }
+
+    /**
+     * Position of a build in (timestamp DESC, id DESC) order
+     */
+    public record Cursor(LocalDateTime timestamp, long id) {
+
+        public static Cursor after(BuildSummary build) {
+            return new Cursor(build.timestamp(), build.id());
+        }
+
+        public String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.login.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a stored build, as serialized by the history endpoints.
+ *
+ * Loaded with a JPQL constructor expression, so reads never create managed
+ * {@link com.example.login.entity.BuildHistory} entities (no persistence
+ * context entries, no dirty-checking snapshots).
+ */
+public record BuildSummary(Long id, String jobName, Integer buildNumber, String status, Long durationMs,
+        LocalDateTime timestamp) {
+}
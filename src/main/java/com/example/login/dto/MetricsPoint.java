@@ -0,0 +1,20 @@
+package com.example.login.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only metrics sample for charts: a raw sample, or a rollup bucket
+ * presented as one (averages and last values, no JVM event columns).
+ *
+ * Loaded with JPQL constructor expressions instead of managed entities.
+ */
+public record MetricsPoint(Double cpuUsage, Double memoryUsage, Integer threadCount, Long httpRequestsTotal,
+        Long jvmMemoryUsed, Long jvmMemoryMax, Integer gcCount, Double gcPauseMs, Double allocationRate,
+        Double safepointMs, Double monitorBlockedMs, LocalDateTime recordedAt) {
+
+    public MetricsPoint(Double cpuUsage, Double memoryUsage, Integer threadCount, Long httpRequestsTotal,
+            Long jvmMemoryUsed, Long jvmMemoryMax, LocalDateTime recordedAt) {
+        this(cpuUsage, memoryUsage, threadCount, httpRequestsTotal, jvmMemoryUsed, jvmMemoryMax,
+                null, null, null, null, null, recordedAt);
+    }
+}
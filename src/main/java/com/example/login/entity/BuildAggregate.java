@@ -0,0 +1,64 @@
+package com.example.login.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of one job's builds with one status.
+ *
+ * Maintained by delta upserts in the same transaction as every build_history
+ * write and periodically reconciled against build_history, so statistics read
+ * one row per job and status instead of scanning all builds. Minimum and
+ * maximum only widen on incremental updates; the reconciler tightens them
+ * when builds move to another status.
+ */
+@Entity
+@Table(name = "build_aggregate", uniqueConstraints = @UniqueConstraint(
+        name = "uk_build_aggregate_job_status", columnNames = { "job_name", "status" }))
+@Getter
+@Setter
+@NoArgsConstructor
+public class BuildAggregate {
+
+    // Stands in for a null status so (job_name, status) stays unique
+    public static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "status", length = 50, nullable = false)
+    private String status;
+
+    @Column(name = "build_count", nullable = false)
+    private Long buildCount;
+
+    @Column(name = "duration_sum", nullable = false)
+    private Long durationSum;
+
+    // Builds that have a duration; the average is durationSum / durationCount
+    @Column(name = "duration_count", nullable = false)
+    private Long durationCount;
+
+    @Column(name = "duration_min")
+    private Long durationMin;
+
+    @Column(name = "duration_max")
+    private Long durationMax;
+
+    @Column(name = "last_build_number")
+    private Integer lastBuildNumber;
+
+    @Column(name = "last_build_at")
+    private LocalDateTime lastBuildAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
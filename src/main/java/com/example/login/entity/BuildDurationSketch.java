@@ -0,0 +1,41 @@
+package com.example.login.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Serialized duration sketch of one job's finished builds on one day.
+ */
+@Entity
+@Table(name = "build_duration_sketch", uniqueConstraints = @UniqueConstraint(
+        name = "uk_build_duration_sketch_job_day", columnNames = { "job_name", "day" }),
+        indexes = @Index(name = "idx_build_duration_sketch_day", columnList = "day"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class BuildDurationSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "build_count", nullable = false)
+    private Long buildCount;
+
+    @Column(name = "sketch", nullable = false, columnDefinition = "bytea")
+    private byte[] sketch;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
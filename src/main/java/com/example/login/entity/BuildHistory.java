@@ -8,7 +8,13 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "build_history")
+@Table(name = "build_history", uniqueConstraints = @UniqueConstraint(
+        name = "uk_build_history_job_build", columnNames = { "job_name", "build_number" }),
+        indexes = {
+                @Index(name = "idx_build_history_timestamp_id", columnList = "timestamp, id"),
+                @Index(name = "idx_build_history_job_timestamp", columnList = "job_name, timestamp"),
+                @Index(name = "idx_build_history_job_status", columnList = "job_name, status")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
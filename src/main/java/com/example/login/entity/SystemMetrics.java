@@ -8,7 +8,8 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "system_metrics")
+@Table(name = "system_metrics",
+        indexes = @Index(name = "idx_system_metrics_recorded_at", columnList = "recorded_at"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,6 +37,22 @@ public class SystemMetrics {
     @Column(name = "jvm_memory_max")
     private Long jvmMemoryMax;
 
+    // JFR event totals for the interval ending at this sample (null when JFR is unavailable)
+    @Column(name = "gc_count")
+    private Integer gcCount;
+
+    @Column(name = "gc_pause_ms")
+    private Double gcPauseMs;
+
+    @Column(name = "allocation_rate")
+    private Double allocationRate;
+
+    @Column(name = "safepoint_ms")
+    private Double safepointMs;
+
+    @Column(name = "monitor_blocked_ms")
+    private Double monitorBlockedMs;
+
     @Column(name = "recorded_at")
     private LocalDateTime recordedAt;
 
@@ -0,0 +1,114 @@
+package com.example.login.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated system metrics for one time bucket at one resolution.
+ *
+ * Rows are maintained incrementally by an upsert per collected sample, so
+ * sums and counts are stored rather than averages. CPU and memory have their
+ * own counts because a sample may lack either reading.
+ */
+@Entity
+@Table(name = "system_metrics_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_system_metrics_rollup_bucket", columnNames = { "resolution", "bucket_start" }))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SystemMetricsRollup {
+
+    public enum Resolution {
+        ONE_MINUTE(60),
+        FIVE_MINUTES(300),
+        ONE_HOUR(3600);
+
+        private final int seconds;
+
+        Resolution(int seconds) {
+            this.seconds = seconds;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * Start of the bucket containing the given time
+         */
+        public LocalDateTime bucketStart(LocalDateTime time) {
+            int secondOfDay = time.toLocalTime().toSecondOfDay();
+            return time.toLocalDate().atStartOfDay().plusSeconds((long) (secondOfDay / seconds) * seconds);
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", length = 16, nullable = false)
+    private Resolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private Integer sampleCount;
+
+    @Column(name = "cpu_count", nullable = false)
+    private Integer cpuCount;
+
+    @Column(name = "cpu_min")
+    private Double cpuMin;
+
+    @Column(name = "cpu_max")
+    private Double cpuMax;
+
+    @Column(name = "cpu_sum")
+    private Double cpuSum;
+
+    @Column(name = "cpu_last")
+    private Double cpuLast;
+
+    @Column(name = "memory_count", nullable = false)
+    private Integer memoryCount;
+
+    @Column(name = "memory_min")
+    private Double memoryMin;
+
+    @Column(name = "memory_max")
+    private Double memoryMax;
+
+    @Column(name = "memory_sum")
+    private Double memorySum;
+
+    @Column(name = "memory_last")
+    private Double memoryLast;
+
+    @Column(name = "thread_count_max")
+    private Integer threadCountMax;
+
+    @Column(name = "thread_count_last")
+    private Integer threadCountLast;
+
+    @Column(name = "http_requests_last")
+    private Long httpRequestsLast;
+
+    @Column(name = "jvm_memory_used_last")
+    private Long jvmMemoryUsedLast;
+
+    @Column(name = "jvm_memory_max_last")
+    private Long jvmMemoryMaxLast;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Newest sample merged into the bucket; guards the *_last columns
+    @Column(name = "last_recorded_at")
+    private LocalDateTime lastRecordedAt;
+}
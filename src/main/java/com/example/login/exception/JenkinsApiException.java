@@ -0,0 +1,29 @@
+package com.example.login.exception;
+
+/**
+ * Raised by the Jenkins client when Jenkins answers with a non-2xx status.
+ * Carries the upstream status code and body so callers can relay them.
+ */
+public class JenkinsApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final String responseBody;
+
+    public JenkinsApiException(int statusCode, String responseBody, String url) {
+        super(String.format("Jenkins returned %d for %s", statusCode, url));
+        this.statusCode = statusCode;
+        this.responseBody = responseBody != null ? responseBody : "";
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public boolean isClientError() {
+        return statusCode >= 400 && statusCode < 500;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.login.metrics;
+
+/**
+ * Sequential reader over bits written by {@link BitWriter}.
+ */
+final class BitReader {
+
+    private final long[] words;
+    private int position;
+
+    BitReader(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Read the next {@code bits} bits (1..64) as an unsigned value
+     */
+    long read(int bits) {
+        int index = position >>> 6;
+        int offset = position & 63;
+        int free = 64 - offset;
+        position += bits;
+        if (bits <= free) {
+            return (words[index] << offset) >>> (64 - bits);
+        }
+        int spill = bits - free;
+        long high = words[index] & ((1L << free) - 1);
+        return (high << spill) | (words[index + 1] >>> (64 - spill));
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+}
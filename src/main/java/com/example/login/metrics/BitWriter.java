@@ -0,0 +1,51 @@
+package com.example.login.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Append-only bit buffer backed by a long array, most significant bit first.
+ */
+final class BitWriter {
+
+    private long[] words;
+    private int bitCount;
+
+    BitWriter(int initialWords) {
+        this.words = new long[Math.max(1, initialWords)];
+    }
+
+    /**
+     * Append the low {@code bits} bits of {@code value} (1..64)
+     */
+    void write(long value, int bits) {
+        int index = bitCount >>> 6;
+        if (index + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+        int free = 64 - (bitCount & 63);
+        if (bits <= free) {
+            words[index] |= masked << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= masked >>> spill;
+            words[index + 1] |= masked << (64 - spill);
+        }
+        bitCount += bits;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    int bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * The written bits, trimmed to whole words
+     */
+    long[] toArray() {
+        return Arrays.copyOf(words, (bitCount + 63) >>> 6);
+    }
+}
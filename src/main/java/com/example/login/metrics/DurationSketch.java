@@ -0,0 +1,167 @@
+package com.example.login.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DDSketch-style quantile sketch for durations in milliseconds.
+ *
+ * Values are counted in logarithmic bins of ratio {@code gamma}, which bounds
+ * the relative error of every quantile by {@link #RELATIVE_ACCURACY} (1%).
+ * Two sketches merge by adding bin counts, so per-day sketches combine into
+ * any range exactly as if the builds had been added to one sketch. Only
+ * occupied bins are stored; a day of builds typically fits in a few hundred
+ * bytes.
+ */
+public final class DurationSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int FORMAT_VERSION = 1;
+
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void add(long durationMs) {
+        long value = Math.max(durationMs, 0);
+        if (value < 1) {
+            zeroCount++;
+        } else {
+            bins.merge(index(value), 1L, Long::sum);
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(DurationSketch other) {
+        other.bins.forEach((index, binCount) -> bins.merge(index, binCount, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return count > 0 ? max : 0;
+    }
+
+    /**
+     * Duration at quantile {@code q} (0..1), within 1% of the exact value
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return Math.max(min, Math.min(max, value(bin.getKey())));
+            }
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /**
+     * Representative value of a bin: equidistant in relative terms from both bin edges
+     */
+    static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * Compact binary form: varints, bin indexes delta-encoded
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + bins.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, count > 0 ? min : 0);
+        writeVarLong(out, count > 0 ? max : 0);
+        writeVarLong(out, bins.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            writeVarLong(out, zigZag(bin.getKey() - previous));
+            writeVarLong(out, bin.getValue());
+            previous = bin.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationSketch fromBytes(byte[] bytes) {
+        DurationSketch sketch = new DurationSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format " + bytes[0]);
+        }
+        int[] position = { 1 };
+        sketch.zeroCount = readVarLong(bytes, position);
+        long min = readVarLong(bytes, position);
+        long max = readVarLong(bytes, position);
+        long binCount = readVarLong(bytes, position);
+        int index = 0;
+        long total = sketch.zeroCount;
+        for (long i = 0; i < binCount; i++) {
+            index += (int) unZigZag(readVarLong(bytes, position));
+            long binTotal = readVarLong(bytes, position);
+            sketch.bins.put(index, binTotal);
+            total += binTotal;
+        }
+        sketch.count = total;
+        if (total > 0) {
+            sketch.min = min;
+            sketch.max = max;
+        }
+        return sketch;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
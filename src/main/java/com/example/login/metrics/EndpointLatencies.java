@@ -0,0 +1,132 @@
+package com.example.login.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles per route over sliding windows.
+ *
+ * Each route has a {@link LatencyRecorder}. Every interval the recorder is
+ * drained into a compact {@link LatencyInterval} and the intervals are kept
+ * for the longest configured window; a window's percentiles are the merge of
+ * the intervals it covers. Routes are matched handler patterns, so the map
+ * stays bounded like {@link HttpRequestCounters}.
+ */
+@Component
+public class EndpointLatencies {
+
+    private record Key(String method, String route) {
+    }
+
+    private static final class Endpoint {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final ArrayDeque<LatencyInterval> intervals = new ArrayDeque<>();
+    }
+
+    private final ConcurrentHashMap<Key, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final long intervalMs;
+    private final int[] windowsMinutes;
+    private final long retentionMs;
+
+    public EndpointLatencies(@Value("${metrics.latency.interval-ms:10000}") long intervalMs,
+            @Value("${metrics.latency.windows-minutes:1,5,15}") int[] windowsMinutes) {
+        this.intervalMs = intervalMs;
+        this.windowsMinutes = windowsMinutes.clone();
+        Arrays.sort(this.windowsMinutes);
+        this.retentionMs = TimeUnit.MINUTES.toMillis(this.windowsMinutes[this.windowsMinutes.length - 1]);
+    }
+
+    public void record(String method, String route, long nanos) {
+        endpoints.computeIfAbsent(new Key(method, route), k -> new Endpoint())
+                .recorder.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Close the current interval of every route and drop intervals older than the longest window
+     */
+    @Scheduled(fixedRateString = "${metrics.latency.interval-ms:10000}")
+    public void rotate() {
+        long now = System.currentTimeMillis();
+        endpoints.values().forEach(endpoint -> {
+            LatencyInterval interval = endpoint.recorder.interval(now);
+            synchronized (endpoint) {
+                if (interval.total() > 0) {
+                    endpoint.intervals.addLast(interval);
+                }
+                while (!endpoint.intervals.isEmpty() && endpoint.intervals.peekFirst().endMs() <= now - retentionMs) {
+                    endpoint.intervals.removeFirst();
+                }
+            }
+        });
+    }
+
+    /**
+     * Percentiles in milliseconds for every route with traffic in the longest window, slowest p99 first
+     */
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        endpoints.forEach((key, endpoint) -> {
+            List<LatencyInterval> intervals;
+            synchronized (endpoint) {
+                intervals = new ArrayList<>(endpoint.intervals);
+            }
+            if (intervals.isEmpty()) {
+                return;
+            }
+
+            Map<String, Object> windows = new LinkedHashMap<>();
+            for (int minutes : windowsMinutes) {
+                long cutoff = now - TimeUnit.MINUTES.toMillis(minutes);
+                windows.put(minutes + "m", toMillis(LatencyInterval.summarize(
+                        intervals.stream().filter(interval -> interval.endMs() > cutoff).toList())));
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", key.method());
+            row.put("route", key.route());
+            row.put("windows", windows);
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparingDouble(EndpointLatencies::shortestWindowP99).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("intervalMs", intervalMs);
+        result.put("windows", Arrays.stream(windowsMinutes).mapToObj(minutes -> minutes + "m").toList());
+        result.put("endpoints", rows);
+        return result;
+    }
+
+    private static Map<String, Object> toMillis(LatencyInterval.Summary summary) {
+        Map<String, Object> window = new LinkedHashMap<>();
+        window.put("count", summary.count());
+        window.put("p50", millis(summary.p50()));
+        window.put("p90", millis(summary.p90()));
+        window.put("p99", millis(summary.p99()));
+        window.put("p999", millis(summary.p999()));
+        window.put("max", millis(summary.max()));
+        return window;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double shortestWindowP99(Map<String, Object> row) {
+        Map<String, Object> windows = (Map<String, Object>) row.get("windows");
+        Map<String, Object> shortest = (Map<String, Object>) windows.values().iterator().next();
+        return (Double) shortest.get("p99");
+    }
+}
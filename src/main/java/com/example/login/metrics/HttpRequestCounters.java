@@ -0,0 +1,69 @@
+package com.example.login.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts served HTTP requests by route, method and status class.
+ *
+ * Counters are {@link LongAdder}s, which stripe increments across cells so
+ * concurrent requests do not contend on one value. Routes are the matched
+ * handler patterns (e.g. {@code /api/jenkins/job/{jobName}}), which keeps
+ * the number of keys bounded.
+ */
+@Component
+public class HttpRequestCounters {
+
+    private record Key(String method, String route, String statusClass) {
+    }
+
+    private final ConcurrentHashMap<Key, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public void record(String method, String route, int status) {
+        counters.computeIfAbsent(new Key(method, route, statusClass(status)), k -> new LongAdder()).increment();
+        total.increment();
+    }
+
+    /**
+     * Requests served since startup
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * Current counts, highest first
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> rows = new ArrayList<>(counters.size());
+        counters.forEach((key, count) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", key.method());
+            row.put("route", key.route());
+            row.put("status", key.statusClass());
+            row.put("count", count.sum());
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+        return rows;
+    }
+
+    static String statusClass(int status) {
+        return switch (status / 100) {
+            case 1 -> "1xx";
+            case 2 -> "2xx";
+            case 3 -> "3xx";
+            case 4 -> "4xx";
+            case 5 -> "5xx";
+            default -> "other";
+        };
+    }
+}
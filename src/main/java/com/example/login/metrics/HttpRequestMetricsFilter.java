@@ -0,0 +1,89 @@
+package com.example.login.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts and times every request once it has completed, including async
+ * responses (CompletableFuture, streaming and SSE endpoints) which finish
+ * after the filter chain returns. A request whose handler throws is counted
+ * as 500 on its original route; the container's ERROR dispatch that renders
+ * the error page is not counted again.
+ */
+@Component
+public class HttpRequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String UNMATCHED = "UNMATCHED";
+
+    private final HttpRequestCounters counters;
+    private final EndpointLatencies latencies;
+
+    public HttpRequestMetricsFilter(HttpRequestCounters counters, EndpointLatencies latencies) {
+        this.counters = counters;
+        this.latencies = latencies;
+    }
+
+    /**
+     * The ERROR dispatch belongs to a request already recorded by its REQUEST dispatch
+     */
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            // The container answers 500 only after this filter returns, so the response still reads 200 here
+            failed = true;
+            throw e;
+        } finally {
+            if (failed) {
+                record(request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start);
+            } else if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response.getStatus(), start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response.getStatus(), start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Unmatched paths (static files, 404s) share one key so arbitrary URLs cannot grow the map
+        String route = pattern != null ? pattern.toString() : UNMATCHED;
+        counters.record(request.getMethod(), route, status);
+        latencies.record(request.getMethod(), route, System.nanoTime() - start);
+    }
+}
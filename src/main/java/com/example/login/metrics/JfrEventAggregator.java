@@ -0,0 +1,191 @@
+package com.example.login.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes JDK Flight Recorder events in-process and folds them into
+ * per-interval {@link JvmEventSummary}s.
+ *
+ * Only a handful of event types are enabled and the noisy ones are bounded
+ * at the source: allocation samples are throttled and monitor enters are
+ * only recorded above a duration threshold. Events arrive on the stream's
+ * own thread and are only added to running totals; the metrics collector
+ * drains those totals once per sample. The last summaries are kept for the
+ * /api/metrics/jvm/* endpoints.
+ */
+@Component
+public class JfrEventAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrEventAggregator.class);
+
+    static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+    static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    static final String SAFEPOINT_BEGIN = "jdk.SafepointBegin";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+
+    // Bounds the on-disk JFR repository the stream reads from
+    private static final Duration STREAM_MAX_AGE = Duration.ofMinutes(1);
+    private static final long STREAM_MAX_SIZE = 16L * 1024 * 1024;
+
+    private final boolean enabled;
+    private final String allocationThrottle;
+    private final long monitorThresholdMs;
+    private final int historySize;
+
+    private final ArrayDeque<JvmEventSummary> history = new ArrayDeque<>();
+    private volatile RecordingStream stream;
+
+    // Running totals for the current interval, guarded by this
+    private long intervalStartMs = System.currentTimeMillis();
+    private int gcCount;
+    private long gcPauseNanos;
+    private long gcPauseMaxNanos;
+    private long allocatedBytes;
+    private int safepointCount;
+    private long safepointNanos;
+    private long safepointMaxNanos;
+    private int monitorBlockedCount;
+    private long monitorBlockedNanos;
+    private long monitorBlockedMaxNanos;
+
+    public JfrEventAggregator(@Value("${metrics.jfr.enabled:true}") boolean enabled,
+            @Value("${metrics.jfr.allocation-throttle:100/s}") String allocationThrottle,
+            @Value("${metrics.jfr.monitor-threshold-ms:10}") long monitorThresholdMs,
+            @Value("${metrics.jfr.history-size:120}") int historySize) {
+        this.enabled = enabled;
+        this.allocationThrottle = allocationThrottle;
+        this.monitorThresholdMs = monitorThresholdMs;
+        this.historySize = historySize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(GARBAGE_COLLECTION);
+            recording.enable(ALLOCATION_SAMPLE).with("throttle", allocationThrottle);
+            recording.enable(SAFEPOINT_BEGIN);
+            recording.enable(MONITOR_ENTER).withThreshold(Duration.ofMillis(monitorThresholdMs));
+            recording.setMaxAge(STREAM_MAX_AGE);
+            recording.setMaxSize(STREAM_MAX_SIZE);
+
+            recording.onEvent(GARBAGE_COLLECTION, event -> recordGarbageCollection(
+                    event.getDuration("sumOfPauses").toNanos(), event.getDuration("longestPause").toNanos()));
+            recording.onEvent(ALLOCATION_SAMPLE, event -> recordAllocation(event.getLong("weight")));
+            recording.onEvent(SAFEPOINT_BEGIN, event -> recordSafepoint(event.getDuration().toNanos()));
+            recording.onEvent(MONITOR_ENTER, event -> recordMonitorEnter(event.getDuration().toNanos()));
+            recording.onError(e -> logger.warn("JFR event stream error: {}", e.getMessage()));
+
+            recording.startAsync();
+            stream = recording;
+            logger.info("JFR event streaming started");
+        } catch (RuntimeException e) {
+            // Not every runtime ships JFR; the rest of the metrics keep working without it
+            logger.warn("JFR event streaming unavailable: {}", e.getMessage());
+        }
+    }
+
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    synchronized void recordGarbageCollection(long pauseNanos, long longestPauseNanos) {
+        gcCount++;
+        gcPauseNanos += pauseNanos;
+        gcPauseMaxNanos = Math.max(gcPauseMaxNanos, longestPauseNanos);
+    }
+
+    synchronized void recordAllocation(long weightBytes) {
+        // Each sample's weight is the allocation it stands for since the previous sample
+        allocatedBytes += weightBytes;
+    }
+
+    synchronized void recordSafepoint(long nanos) {
+        safepointCount++;
+        safepointNanos += nanos;
+        safepointMaxNanos = Math.max(safepointMaxNanos, nanos);
+    }
+
+    synchronized void recordMonitorEnter(long nanos) {
+        monitorBlockedCount++;
+        monitorBlockedNanos += nanos;
+        monitorBlockedMaxNanos = Math.max(monitorBlockedMaxNanos, nanos);
+    }
+
+    /**
+     * Close the current interval and return its summary, or null if JFR is not running
+     */
+    public synchronized JvmEventSummary drain() {
+        if (stream == null) {
+            return null;
+        }
+        return close(System.currentTimeMillis());
+    }
+
+    synchronized JvmEventSummary close(long endMs) {
+        JvmEventSummary summary = new JvmEventSummary(intervalStartMs, endMs,
+                gcCount, millis(gcPauseNanos), millis(gcPauseMaxNanos),
+                allocatedBytes, JvmEventSummary.rate(allocatedBytes, intervalStartMs, endMs),
+                safepointCount, millis(safepointNanos), millis(safepointMaxNanos),
+                monitorBlockedCount, millis(monitorBlockedNanos), millis(monitorBlockedMaxNanos));
+
+        intervalStartMs = endMs;
+        gcCount = 0;
+        gcPauseNanos = 0;
+        gcPauseMaxNanos = 0;
+        allocatedBytes = 0;
+        safepointCount = 0;
+        safepointNanos = 0;
+        safepointMaxNanos = 0;
+        monitorBlockedCount = 0;
+        monitorBlockedNanos = 0;
+        monitorBlockedMaxNanos = 0;
+
+        history.addLast(summary);
+        while (history.size() > historySize) {
+            history.removeFirst();
+        }
+        return summary;
+    }
+
+    /**
+     * Interval summaries that ended within the last {@code minutes}, oldest first
+     */
+    public synchronized List<JvmEventSummary> getHistory(int minutes) {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes);
+        List<JvmEventSummary> result = new ArrayList<>(history.size());
+        for (JvmEventSummary summary : history) {
+            if (summary.endMs() > cutoff) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.login.metrics;
+
+import java.util.Collection;
+
+/**
+ * JVM runtime events aggregated over one collection interval: GC pauses,
+ * sampled allocation, time spent reaching safepoints and contended monitor
+ * enters. Durations are milliseconds, the allocation rate is bytes/second.
+ */
+public record JvmEventSummary(long startMs, long endMs,
+        int gcCount, double gcPauseMs, double gcPauseMaxMs,
+        long allocatedBytes, double allocationRate,
+        int safepointCount, double safepointMs, double safepointMaxMs,
+        int monitorBlockedCount, double monitorBlockedMs, double monitorBlockedMaxMs) {
+
+    /**
+     * One summary covering all given intervals, or null if there are none
+     */
+    public static JvmEventSummary merge(Collection<JvmEventSummary> intervals) {
+        if (intervals.isEmpty()) {
+            return null;
+        }
+        long startMs = Long.MAX_VALUE;
+        long endMs = Long.MIN_VALUE;
+        int gcCount = 0;
+        double gcPauseMs = 0;
+        double gcPauseMaxMs = 0;
+        long allocatedBytes = 0;
+        int safepointCount = 0;
+        double safepointMs = 0;
+        double safepointMaxMs = 0;
+        int monitorBlockedCount = 0;
+        double monitorBlockedMs = 0;
+        double monitorBlockedMaxMs = 0;
+        for (JvmEventSummary interval : intervals) {
+            startMs = Math.min(startMs, interval.startMs);
+            endMs = Math.max(endMs, interval.endMs);
+            gcCount += interval.gcCount;
+            gcPauseMs += interval.gcPauseMs;
+            gcPauseMaxMs = Math.max(gcPauseMaxMs, interval.gcPauseMaxMs);
+            allocatedBytes += interval.allocatedBytes;
+            safepointCount += interval.safepointCount;
+            safepointMs += interval.safepointMs;
+            safepointMaxMs = Math.max(safepointMaxMs, interval.safepointMaxMs);
+            monitorBlockedCount += interval.monitorBlockedCount;
+            monitorBlockedMs += interval.monitorBlockedMs;
+            monitorBlockedMaxMs = Math.max(monitorBlockedMaxMs, interval.monitorBlockedMaxMs);
+        }
+        return new JvmEventSummary(startMs, endMs, gcCount, gcPauseMs, gcPauseMaxMs,
+                allocatedBytes, rate(allocatedBytes, startMs, endMs),
+                safepointCount, safepointMs, safepointMaxMs,
+                monitorBlockedCount, monitorBlockedMs, monitorBlockedMaxMs);
+    }
+
+    static double rate(long bytes, long startMs, long endMs) {
+        return endMs > startMs ? bytes * 1000.0 / (endMs - startMs) : 0.0;
+    }
+}
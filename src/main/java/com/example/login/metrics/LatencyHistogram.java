@@ -0,0 +1,84 @@
+package com.example.login.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in microseconds, laid out like HdrHistogram.
+ *
+ * Values below 2^SUB_BUCKET_BITS get one bucket each; every power of two
+ * above that is split into 2^(SUB_BUCKET_BITS - 1) equal sub-buckets, so a
+ * recorded value is never more than ~3% away from the bucket it lands in.
+ * Recording is a bucket lookup and an atomic increment, with no locks and no
+ * allocation. Values above {@link #MAX_VALUE} (about 71 minutes) are clamped.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    static final long MAX_VALUE = (1L << 32) - 1;
+    static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(value));
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Copy the non-empty buckets into an interval and clear this histogram.
+     * Callers must make sure no thread is recording into it.
+     */
+    LatencyInterval drain(long endMs) {
+        int nonEmpty = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) != 0) {
+                nonEmpty++;
+            }
+        }
+
+        int[] indexes = new int[nonEmpty];
+        long[] bucketCounts = new long[nonEmpty];
+        long total = 0;
+        int n = 0;
+        for (int i = 0; i < BUCKET_COUNT && n < nonEmpty; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                indexes[n] = i;
+                bucketCounts[n++] = count;
+                total += count;
+                counts.set(i, 0);
+            }
+        }
+        return new LatencyInterval(endMs, indexes, bucketCounts, total, max.getAndSet(0));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * Largest value that falls into the given bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.login.metrics;
+
+import java.util.Collection;
+
+/**
+ * Latencies recorded during one reporting interval, kept sparse: only the
+ * buckets that were hit are stored.
+ */
+public record LatencyInterval(long endMs, int[] indexes, long[] counts, long total, long max) {
+
+    /**
+     * Percentiles of several intervals merged together
+     */
+    public static Summary summarize(Collection<LatencyInterval> intervals) {
+        long[] merged = new long[LatencyHistogram.BUCKET_COUNT];
+        long total = 0;
+        long max = 0;
+        for (LatencyInterval interval : intervals) {
+            for (int i = 0; i < interval.indexes.length; i++) {
+                merged[interval.indexes[i]] += interval.counts[i];
+            }
+            total += interval.total;
+            max = Math.max(max, interval.max);
+        }
+        return new Summary(total,
+                percentile(merged, total, max, 50.0),
+                percentile(merged, total, max, 90.0),
+                percentile(merged, total, max, 99.0),
+                percentile(merged, total, max, 99.9),
+                max);
+    }
+
+    /**
+     * Upper bound of the bucket holding the given rank, never above the recorded max
+     */
+    private static long percentile(long[] counts, long total, long max, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Request count and latency percentiles in microseconds
+     */
+    public record Summary(long count, long p50, long p90, long p99, long p999, long max) {
+    }
+}
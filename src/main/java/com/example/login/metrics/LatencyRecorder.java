@@ -0,0 +1,51 @@
+package com.example.login.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Double-buffered latency recorder.
+ *
+ * Request threads record into the active histogram without locking. The
+ * reader swaps in the spare histogram, waits until writers that were already
+ * inside the old one have left, and then drains it. Each value lands in
+ * exactly one interval and recording never waits on the reader.
+ */
+public final class LatencyRecorder {
+
+    private static final class Phase {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicInteger writers = new AtomicInteger();
+    }
+
+    private volatile Phase active = new Phase();
+    private Phase spare = new Phase();
+
+    public void record(long micros) {
+        while (true) {
+            Phase phase = active;
+            phase.writers.incrementAndGet();
+            try {
+                // Re-check after announcing ourselves: if the reader swapped in between, use the new phase
+                if (phase == active) {
+                    phase.histogram.record(micros);
+                    return;
+                }
+            } finally {
+                phase.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Everything recorded since the previous call
+     */
+    public synchronized LatencyInterval interval(long endMs) {
+        Phase previous = active;
+        active = spare;
+        while (previous.writers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        spare = previous;
+        return previous.histogram.drain(endMs);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.login.metrics;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, "Downsampling
+ * Time Series for Visual Representation").
+ *
+ * Keeps the first and last sample and, from each of {@code threshold - 2}
+ * equal buckets in between, the sample forming the largest triangle with the
+ * previously kept sample and the average of the next bucket. Peaks and dips
+ * survive, unlike with averaging. Several series sharing the timestamps are
+ * downsampled together by summing their triangle areas, so they should be
+ * on a comparable scale. Missing samples (NaN) are skipped both as
+ * candidates and in the next-bucket averages, so a gap never looks like a
+ * drop to zero. One pass over primitive arrays; besides the result it only
+ * allocates three scratch arrays with one slot per series.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Indexes of the samples to keep, ascending; all of them when {@code size <= threshold}
+     */
+    public static int[] select(long[] timestamps, int size, int threshold, double[]... series) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+        if (size <= threshold) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        double[] averageX = new double[series.length];
+        double[] averageY = new double[series.length];
+        int[] counts = new int[series.length];
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        long origin = timestamps[0];
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket's present samples per series (the last sample for the final one)
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            for (int s = 0; s < series.length; s++) {
+                averageX[s] = 0;
+                averageY[s] = 0;
+                counts[s] = 0;
+            }
+            for (int i = nextStart; i < nextEnd; i++) {
+                for (int s = 0; s < series.length; s++) {
+                    double y = series[s][i];
+                    if (!Double.isNaN(y)) {
+                        averageX[s] += timestamps[i] - origin;
+                        averageY[s] += y;
+                        counts[s]++;
+                    }
+                }
+            }
+            for (int s = 0; s < series.length; s++) {
+                averageX[s] /= counts[s];
+                averageY[s] /= counts[s];
+            }
+
+            double previousX = timestamps[previous] - origin;
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                double x = timestamps[i] - origin;
+                double area = 0;
+                boolean present = false;
+                for (int s = 0; s < series.length; s++) {
+                    double y = series[s][i];
+                    if (Double.isNaN(y)) {
+                        continue;
+                    }
+                    present = true;
+                    double previousY = series[s][previous];
+                    // No reference point on either side: the sample still counts, with no area
+                    if (!Double.isNaN(previousY) && counts[s] > 0) {
+                        area += Math.abs((previousX - averageX[s]) * (y - previousY)
+                                - (previousX - x) * (averageY[s] - previousY));
+                    }
+                }
+                if (present && area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            selected[bucket + 1] = largest;
+            previous = largest;
+        }
+        selected[threshold - 1] = size - 1;
+        return selected;
+    }
+}
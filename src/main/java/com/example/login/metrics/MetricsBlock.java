@@ -0,0 +1,371 @@
+package com.example.login.metrics;
+
+/**
+ * An immutable, Gorilla-compressed block of consecutive system metric samples.
+ *
+ * Samples are encoded one after another into a single bit stream, each field
+ * against the same field of the previous sample: timestamps and integer
+ * fields as a delta-of-delta in a variable-length bucket, doubles as the XOR
+ * with the previous value, storing only the meaningful bits (Pelkonen et al.,
+ * "Gorilla: A Fast, Scalable, In-Memory Time Series Database"). A field that
+ * did not change costs one bit, a regularly spaced timestamp one bit, so
+ * counters, gauges that move slowly and idle JVM event columns take a few
+ * bits per sample. A missing value is stored as {@link #MISSING_LONG} or NaN.
+ *
+ * Blocks are filled by a {@link Builder} and read back sequentially with a
+ * {@link Cursor} that decodes into primitive fields.
+ */
+public final class MetricsBlock {
+
+    public static final long MISSING_LONG = Long.MIN_VALUE;
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int size;
+    private final long firstMs;
+    private final long lastMs;
+
+    private MetricsBlock(long[] bits, int bitCount, int size, long firstMs, long lastMs) {
+        this.bits = bits;
+        this.bitCount = bitCount;
+        this.size = size;
+        this.firstMs = firstMs;
+        this.lastMs = lastMs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long firstMs() {
+        return firstMs;
+    }
+
+    public long lastMs() {
+        return lastMs;
+    }
+
+    /**
+     * Heap used by the encoded samples, excluding the fixed object overhead
+     */
+    public long sizeBytes() {
+        return bits.length * 8L;
+    }
+
+    public int bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Cursor over the samples with a timestamp in [{@code fromMs}, {@code toMs}), oldest first
+     */
+    public Cursor cursor(long fromMs, long toMs) {
+        return new Cursor(this, fromMs, toMs);
+    }
+
+    /**
+     * Encodes samples into a growing bit stream. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final BitWriter out;
+        private final Columns columns = new Columns();
+        private int size;
+        private long firstMs;
+        private long lastMs;
+
+        public Builder(int expectedSamples) {
+            // Roughly 16 bytes per sample for noisy gauges; the stream grows if that is not enough
+            this.out = new BitWriter(Math.max(1, expectedSamples * 2));
+        }
+
+        public void append(long timestampMs, double cpuUsage, double memoryUsage, long threadCount,
+                long httpRequestsTotal, long jvmMemoryUsed, long jvmMemoryMax, long gcCount, double gcPauseMs,
+                double allocationRate, double safepointMs, double monitorBlockedMs) {
+            if (size == 0) {
+                firstMs = timestampMs;
+            }
+            columns.timestamp.write(out, timestampMs);
+            columns.threadCount.write(out, threadCount);
+            columns.httpRequestsTotal.write(out, httpRequestsTotal);
+            columns.jvmMemoryUsed.write(out, jvmMemoryUsed);
+            columns.jvmMemoryMax.write(out, jvmMemoryMax);
+            columns.gcCount.write(out, gcCount);
+            columns.cpuUsage.write(out, cpuUsage);
+            columns.memoryUsage.write(out, memoryUsage);
+            columns.gcPauseMs.write(out, gcPauseMs);
+            columns.allocationRate.write(out, allocationRate);
+            columns.safepointMs.write(out, safepointMs);
+            columns.monitorBlockedMs.write(out, monitorBlockedMs);
+            lastMs = size == 0 ? timestampMs : Math.max(lastMs, timestampMs);
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * An immutable copy of the samples appended so far; the builder stays usable
+         */
+        public MetricsBlock seal() {
+            return new MetricsBlock(out.toArray(), out.bitCount(), size, firstMs, lastMs);
+        }
+    }
+
+    /**
+     * Forward-only decoder over one block. Not thread-safe; create one per read.
+     */
+    public static final class Cursor {
+
+        private final MetricsBlock block;
+        private final BitReader in;
+        private final Columns columns = new Columns();
+        private final long fromMs;
+        private final long toMs;
+        private int decoded;
+
+        private long timestamp;
+        private double cpuUsage;
+        private double memoryUsage;
+        private long threadCount;
+        private long httpRequestsTotal;
+        private long jvmMemoryUsed;
+        private long jvmMemoryMax;
+        private long gcCount;
+        private double gcPauseMs;
+        private double allocationRate;
+        private double safepointMs;
+        private double monitorBlockedMs;
+
+        private Cursor(MetricsBlock block, long fromMs, long toMs) {
+            this.block = block;
+            this.in = new BitReader(block.bits);
+            this.fromMs = fromMs;
+            this.toMs = toMs;
+        }
+
+        /**
+         * Advance to the next sample in range, returning false when there is none
+         */
+        public boolean next() {
+            while (decoded < block.size) {
+                decoded++;
+                timestamp = columns.timestamp.read(in);
+                threadCount = columns.threadCount.read(in);
+                httpRequestsTotal = columns.httpRequestsTotal.read(in);
+                jvmMemoryUsed = columns.jvmMemoryUsed.read(in);
+                jvmMemoryMax = columns.jvmMemoryMax.read(in);
+                gcCount = columns.gcCount.read(in);
+                cpuUsage = columns.cpuUsage.read(in);
+                memoryUsage = columns.memoryUsage.read(in);
+                gcPauseMs = columns.gcPauseMs.read(in);
+                allocationRate = columns.allocationRate.read(in);
+                safepointMs = columns.safepointMs.read(in);
+                monitorBlockedMs = columns.monitorBlockedMs.read(in);
+                if (timestamp >= fromMs && timestamp < toMs) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public double cpuUsage() {
+            return cpuUsage;
+        }
+
+        public double memoryUsage() {
+            return memoryUsage;
+        }
+
+        public long threadCount() {
+            return threadCount;
+        }
+
+        public long httpRequestsTotal() {
+            return httpRequestsTotal;
+        }
+
+        public long jvmMemoryUsed() {
+            return jvmMemoryUsed;
+        }
+
+        public long jvmMemoryMax() {
+            return jvmMemoryMax;
+        }
+
+        public long gcCount() {
+            return gcCount;
+        }
+
+        public double gcPauseMs() {
+            return gcPauseMs;
+        }
+
+        public double allocationRate() {
+            return allocationRate;
+        }
+
+        public double safepointMs() {
+            return safepointMs;
+        }
+
+        public double monitorBlockedMs() {
+            return monitorBlockedMs;
+        }
+    }
+
+    /**
+     * Per-field codec state; the same state drives encoding and decoding
+     */
+    private static final class Columns {
+        final LongColumn timestamp = new LongColumn();
+        final LongColumn threadCount = new LongColumn();
+        final LongColumn httpRequestsTotal = new LongColumn();
+        final LongColumn jvmMemoryUsed = new LongColumn();
+        final LongColumn jvmMemoryMax = new LongColumn();
+        final LongColumn gcCount = new LongColumn();
+        final DoubleColumn cpuUsage = new DoubleColumn();
+        final DoubleColumn memoryUsage = new DoubleColumn();
+        final DoubleColumn gcPauseMs = new DoubleColumn();
+        final DoubleColumn allocationRate = new DoubleColumn();
+        final DoubleColumn safepointMs = new DoubleColumn();
+        final DoubleColumn monitorBlockedMs = new DoubleColumn();
+    }
+
+    /**
+     * Delta-of-delta: '0' when the delta repeats, otherwise a prefix selecting
+     * a 7, 9, 12, 32 or 64-bit zigzag-encoded difference
+     */
+    private static final class LongColumn {
+
+        private boolean started;
+        private long previous;
+        private long previousDelta;
+
+        void write(BitWriter out, long value) {
+            if (!started) {
+                out.write(value, 64);
+                started = true;
+                previous = value;
+                return;
+            }
+            long delta = value - previous;
+            long dod = zigZag(delta - previousDelta);
+            if (dod == 0) {
+                out.writeBit(false);
+            } else if (dod >>> 7 == 0) {
+                out.write(0b10, 2);
+                out.write(dod, 7);
+            } else if (dod >>> 9 == 0) {
+                out.write(0b110, 3);
+                out.write(dod, 9);
+            } else if (dod >>> 12 == 0) {
+                out.write(0b1110, 4);
+                out.write(dod, 12);
+            } else if (dod >>> 32 == 0) {
+                out.write(0b11110, 5);
+                out.write(dod, 32);
+            } else {
+                out.write(0b11111, 5);
+                out.write(dod, 64);
+            }
+            previous = value;
+            previousDelta = delta;
+        }
+
+        long read(BitReader in) {
+            if (!started) {
+                started = true;
+                previous = in.read(64);
+                return previous;
+            }
+            long dod;
+            if (!in.readBit()) {
+                dod = 0;
+            } else if (!in.readBit()) {
+                dod = in.read(7);
+            } else if (!in.readBit()) {
+                dod = in.read(9);
+            } else if (!in.readBit()) {
+                dod = in.read(12);
+            } else if (!in.readBit()) {
+                dod = in.read(32);
+            } else {
+                dod = in.read(64);
+            }
+            previousDelta += unZigZag(dod);
+            previous += previousDelta;
+            return previous;
+        }
+    }
+
+    /**
+     * XOR with the previous value: '0' when equal, '10' plus the meaningful
+     * bits when they fit the previous leading/trailing-zero window, otherwise
+     * '11', 5 bits of leading zeros, 6 bits of length and the meaningful bits
+     */
+    private static final class DoubleColumn {
+
+        private boolean started;
+        private long previousBits;
+        private int leading = -1;
+        private int trailing;
+
+        void write(BitWriter out, double value) {
+            long bits = Double.doubleToLongBits(value);
+            if (!started) {
+                out.write(bits, 64);
+                started = true;
+                previousBits = bits;
+                return;
+            }
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailingZeros = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && leadingZeros >= leading && trailingZeros >= trailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = leadingZeros;
+                trailing = trailingZeros;
+                int length = 64 - leadingZeros - trailingZeros;
+                out.write(0b11, 2);
+                out.write(leadingZeros, 5);
+                out.write(length - 1, 6);
+                out.write(xor >>> trailingZeros, length);
+            }
+        }
+
+        double read(BitReader in) {
+            if (!started) {
+                started = true;
+                previousBits = in.read(64);
+            } else if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(5);
+                    trailing = 64 - leading - ((int) in.read(6) + 1);
+                }
+                previousBits ^= in.read(64 - leading - trailing) << trailing;
+            }
+            return Double.longBitsToDouble(previousBits);
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.login.metrics;
+
+import com.example.login.dto.MetricsPoint;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Metrics history in columnar form: one array per field instead of one
+ * object per sample, with epoch-millisecond timestamps.
+ *
+ * Requested through content negotiation on the history endpoints, as JSON
+ * ({@link #MEDIA_TYPE}) or CBOR ({@code application/cbor}). With delta
+ * encoding the timestamp and integer columns hold the difference from the
+ * previous non-null value (the first value is absolute), which keeps regular
+ * timestamps and counters to a few digits or bytes each. Missing values are
+ * null; a column that is null for every sample is left out.
+ */
+@JsonSerialize(using = MetricsColumns.Serializer.class)
+public final class MetricsColumns {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.capstone.metrics-columns+json";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final long MISSING = MetricsBlock.MISSING_LONG;
+
+    private final int size;
+    private final boolean delta;
+    private final long[] timestamps;
+    private final double[] cpuUsage;
+    private final double[] memoryUsage;
+    private final long[] threadCount;
+    private final long[] httpRequestsTotal;
+    private final long[] jvmMemoryUsed;
+    private final long[] jvmMemoryMax;
+    private final long[] gcCount;
+    private final double[] gcPauseMs;
+    private final double[] allocationRate;
+    private final double[] safepointMs;
+    private final double[] monitorBlockedMs;
+
+    private MetricsColumns(int size, boolean delta) {
+        this.size = size;
+        this.delta = delta;
+        timestamps = new long[size];
+        cpuUsage = new double[size];
+        memoryUsage = new double[size];
+        threadCount = new long[size];
+        httpRequestsTotal = new long[size];
+        jvmMemoryUsed = new long[size];
+        jvmMemoryMax = new long[size];
+        gcCount = new long[size];
+        gcPauseMs = new double[size];
+        allocationRate = new double[size];
+        safepointMs = new double[size];
+        monitorBlockedMs = new double[size];
+    }
+
+    /**
+     * Columns of an in-memory series (no JVM event columns)
+     */
+    public static MetricsColumns of(MetricsSeries series, boolean delta) {
+        MetricsColumns columns = new MetricsColumns(series.size(), delta);
+        for (int i = 0; i < series.size(); i++) {
+            columns.timestamps[i] = series.timestamp(i);
+            columns.cpuUsage[i] = series.cpuUsage(i);
+            columns.memoryUsage[i] = series.memoryUsage(i);
+            columns.threadCount[i] = series.threadCount(i);
+            columns.httpRequestsTotal[i] = series.httpRequestsTotal(i);
+            columns.jvmMemoryUsed[i] = series.jvmMemoryUsed(i);
+            columns.jvmMemoryMax[i] = series.jvmMemoryMax(i);
+        }
+        Arrays.fill(columns.gcCount, MISSING);
+        Arrays.fill(columns.gcPauseMs, Double.NaN);
+        Arrays.fill(columns.allocationRate, Double.NaN);
+        Arrays.fill(columns.safepointMs, Double.NaN);
+        Arrays.fill(columns.monitorBlockedMs, Double.NaN);
+        return columns;
+    }
+
+    /**
+     * Columns of stored samples or rollup points
+     */
+    public static MetricsColumns of(List<MetricsPoint> points, boolean delta) {
+        ZoneId zone = ZoneId.systemDefault();
+        MetricsColumns columns = new MetricsColumns(points.size(), delta);
+        for (int i = 0; i < points.size(); i++) {
+            MetricsPoint point = points.get(i);
+            LocalDateTime recordedAt = point.recordedAt();
+            columns.timestamps[i] = recordedAt != null ? recordedAt.atZone(zone).toInstant().toEpochMilli() : MISSING;
+            columns.cpuUsage[i] = doubleOf(point.cpuUsage());
+            columns.memoryUsage[i] = doubleOf(point.memoryUsage());
+            columns.threadCount[i] = longOf(point.threadCount());
+            columns.httpRequestsTotal[i] = longOf(point.httpRequestsTotal());
+            columns.jvmMemoryUsed[i] = longOf(point.jvmMemoryUsed());
+            columns.jvmMemoryMax[i] = longOf(point.jvmMemoryMax());
+            columns.gcCount[i] = longOf(point.gcCount());
+            columns.gcPauseMs[i] = doubleOf(point.gcPauseMs());
+            columns.allocationRate[i] = doubleOf(point.allocationRate());
+            columns.safepointMs[i] = doubleOf(point.safepointMs());
+            columns.monitorBlockedMs[i] = doubleOf(point.monitorBlockedMs());
+        }
+        return columns;
+    }
+
+    /**
+     * The columnar type an Accept header asks for, or null when it wants the default array of points
+     */
+    public static MediaType requestedType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.equalsTypeAndSubtype(MEDIA_TYPE)) {
+                return MEDIA_TYPE;
+            }
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static double doubleOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static long longOf(Number value) {
+        return value != null ? value.longValue() : MISSING;
+    }
+
+    public static final class Serializer extends StdSerializer<MetricsColumns> {
+
+        public Serializer() {
+            super(MetricsColumns.class);
+        }
+
+        @Override
+        public void serialize(MetricsColumns columns, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("size", columns.size);
+            gen.writeStringField("encoding", columns.delta ? "delta" : "raw");
+            if (columns.delta) {
+                gen.writeArrayFieldStart("deltaFields");
+                writeNameIfPresent(gen, "timestamps", columns.timestamps);
+                writeNameIfPresent(gen, "threadCount", columns.threadCount);
+                writeNameIfPresent(gen, "httpRequestsTotal", columns.httpRequestsTotal);
+                writeNameIfPresent(gen, "jvmMemoryUsed", columns.jvmMemoryUsed);
+                writeNameIfPresent(gen, "jvmMemoryMax", columns.jvmMemoryMax);
+                writeNameIfPresent(gen, "gcCount", columns.gcCount);
+                gen.writeEndArray();
+            }
+            writeLongs(gen, "timestamps", columns.timestamps, columns.delta);
+            writeDoubles(gen, "cpuUsage", columns.cpuUsage);
+            writeDoubles(gen, "memoryUsage", columns.memoryUsage);
+            writeLongs(gen, "threadCount", columns.threadCount, columns.delta);
+            writeLongs(gen, "httpRequestsTotal", columns.httpRequestsTotal, columns.delta);
+            writeLongs(gen, "jvmMemoryUsed", columns.jvmMemoryUsed, columns.delta);
+            writeLongs(gen, "jvmMemoryMax", columns.jvmMemoryMax, columns.delta);
+            writeLongs(gen, "gcCount", columns.gcCount, columns.delta);
+            writeDoubles(gen, "gcPauseMs", columns.gcPauseMs);
+            writeDoubles(gen, "allocationRate", columns.allocationRate);
+            writeDoubles(gen, "safepointMs", columns.safepointMs);
+            writeDoubles(gen, "monitorBlockedMs", columns.monitorBlockedMs);
+            gen.writeEndObject();
+        }
+
+        private static void writeNameIfPresent(JsonGenerator gen, String name, long[] values) throws IOException {
+            if (hasValues(values)) {
+                gen.writeString(name);
+            }
+        }
+
+        private static void writeLongs(JsonGenerator gen, String name, long[] values, boolean delta)
+                throws IOException {
+            if (!hasValues(values)) {
+                return;
+            }
+            gen.writeArrayFieldStart(name);
+            long previous = 0;
+            for (long value : values) {
+                if (value == MISSING) {
+                    gen.writeNull();
+                } else if (delta) {
+                    gen.writeNumber(value - previous);
+                    previous = value;
+                } else {
+                    gen.writeNumber(value);
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        private static void writeDoubles(JsonGenerator gen, String name, double[] values) throws IOException {
+            if (!hasValues(values)) {
+                return;
+            }
+            gen.writeArrayFieldStart(name);
+            for (double value : values) {
+                if (Double.isNaN(value)) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(value);
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        // An empty history still lists every column, so clients can rely on the arrays being there
+        private static boolean hasValues(long[] values) {
+            if (values.length == 0) {
+                return true;
+            }
+            for (long value : values) {
+                if (value != MISSING) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasValues(double[] values) {
+            if (values.length == 0) {
+                return true;
+            }
+            for (double value : values) {
+                if (!Double.isNaN(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.login.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory history of every collected system metric sample, kept as
+ * Gorilla-compressed {@link MetricsBlock}s.
+ *
+ * Samples are appended to an open block; once it holds {@code block-size}
+ * samples it is sealed and a new one is started. Whole blocks are dropped
+ * once their newest sample is past the retention. After every append the
+ * blocks, including an immutable copy of the open one, are published as a
+ * new array, so readers never lock and never see a half-written sample.
+ * Appends happen once per collection interval, which makes the copy cheap.
+ */
+@Component
+public class MetricsHistoryStore {
+
+    private static final MetricsBlock[] EMPTY = new MetricsBlock[0];
+
+    private final int blockSize;
+    private final long retentionMs;
+
+    // Writer state, guarded by this
+    private final List<MetricsBlock> sealed = new ArrayList<>();
+    private MetricsBlock.Builder open;
+
+    private volatile MetricsBlock[] blocks = EMPTY;
+
+    public MetricsHistoryStore(@Value("${metrics.store.block-size:720}") int blockSize,
+            @Value("${metrics.store.retention-hours:720}") int retentionHours,
+            MeterRegistry meterRegistry) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("block size must be at least 1");
+        }
+        this.blockSize = blockSize;
+        this.retentionMs = TimeUnit.HOURS.toMillis(retentionHours);
+
+        Gauge.builder("metrics.store.samples", this, MetricsHistoryStore::size).register(meterRegistry);
+        Gauge.builder("metrics.store.size", this, MetricsHistoryStore::sizeBytes)
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Append a sample; missing values are {@link MetricsBlock#MISSING_LONG} or NaN
+     */
+    public synchronized void record(long timestampMs, double cpuUsage, double memoryUsage, long threadCount,
+            long httpRequestsTotal, long jvmMemoryUsed, long jvmMemoryMax, long gcCount, double gcPauseMs,
+            double allocationRate, double safepointMs, double monitorBlockedMs) {
+        if (open == null) {
+            open = new MetricsBlock.Builder(blockSize);
+        }
+        open.append(timestampMs, cpuUsage, memoryUsage, threadCount, httpRequestsTotal, jvmMemoryUsed,
+                jvmMemoryMax, gcCount, gcPauseMs, allocationRate, safepointMs, monitorBlockedMs);
+        MetricsBlock current = open.seal();
+        if (open.size() >= blockSize) {
+            sealed.add(current);
+            open = null;
+        }
+
+        long cutoff = timestampMs - retentionMs;
+        while (!sealed.isEmpty() && sealed.get(0).lastMs() < cutoff) {
+            sealed.remove(0);
+        }
+
+        List<MetricsBlock> published = new ArrayList<>(sealed.size() + 1);
+        published.addAll(sealed);
+        if (open != null) {
+            published.add(current);
+        }
+        blocks = published.toArray(EMPTY);
+    }
+
+    /**
+     * Timestamp of the oldest stored sample, or {@link Long#MAX_VALUE} if nothing is stored
+     */
+    public long oldestMs() {
+        MetricsBlock[] snapshot = blocks;
+        return snapshot.length > 0 ? snapshot[0].firstMs() : Long.MAX_VALUE;
+    }
+
+    public int size() {
+        int size = 0;
+        for (MetricsBlock block : blocks) {
+            size += block.size();
+        }
+        return size;
+    }
+
+    /**
+     * Heap used by the encoded samples
+     */
+    public long sizeBytes() {
+        long bytes = 0;
+        for (MetricsBlock block : blocks) {
+            bytes += block.sizeBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Cursor over all samples at or after {@code fromMs}, oldest first
+     */
+    public Cursor since(long fromMs) {
+        return range(fromMs, Long.MAX_VALUE);
+    }
+
+    /**
+     * Cursor over the samples with a timestamp in [{@code fromMs}, {@code toMs}), oldest first
+     */
+    public Cursor range(long fromMs, long toMs) {
+        return new Cursor(blocks, fromMs, toMs);
+    }
+
+    /**
+     * Forward-only view over the blocks published when it was created.
+     * Blocks entirely outside the range are skipped without decoding.
+     * Not thread-safe; create one per read.
+     */
+    public static final class Cursor {
+
+        private final MetricsBlock[] blocks;
+        private final long fromMs;
+        private final long toMs;
+        private int nextBlock;
+        private MetricsBlock.Cursor current;
+
+        private Cursor(MetricsBlock[] blocks, long fromMs, long toMs) {
+            this.blocks = blocks;
+            this.fromMs = fromMs;
+            this.toMs = toMs;
+        }
+
+        /**
+         * Advance to the next sample, returning false when the range is exhausted
+         */
+        public boolean next() {
+            while (current == null || !current.next()) {
+                while (nextBlock < blocks.length && blocks[nextBlock].lastMs() < fromMs) {
+                    nextBlock++;
+                }
+                if (nextBlock >= blocks.length || blocks[nextBlock].firstMs() >= toMs) {
+                    return false;
+                }
+                current = blocks[nextBlock++].cursor(fromMs, toMs);
+            }
+            return true;
+        }
+
+        /**
+         * Start again from the first sample in range, over the same blocks
+         */
+        public void rewind() {
+            nextBlock = 0;
+            current = null;
+        }
+
+        public long timestamp() {
+            return current.timestamp();
+        }
+
+        public double cpuUsage() {
+            return current.cpuUsage();
+        }
+
+        public double memoryUsage() {
+            return current.memoryUsage();
+        }
+
+        public long threadCount() {
+            return current.threadCount();
+        }
+
+        public long httpRequestsTotal() {
+            return current.httpRequestsTotal();
+        }
+
+        public long jvmMemoryUsed() {
+            return current.jvmMemoryUsed();
+        }
+
+        public long jvmMemoryMax() {
+            return current.jvmMemoryMax();
+        }
+
+        public long gcCount() {
+            return current.gcCount();
+        }
+
+        public double gcPauseMs() {
+            return current.gcPauseMs();
+        }
+
+        public double allocationRate() {
+            return current.allocationRate();
+        }
+
+        public double safepointMs() {
+            return current.safepointMs();
+        }
+
+        public double monitorBlockedMs() {
+            return current.monitorBlockedMs();
+        }
+    }
+}
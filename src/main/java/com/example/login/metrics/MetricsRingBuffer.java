@@ -0,0 +1,180 @@
+package com.example.login.metrics;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-capacity ring of recent system metric samples stored column-wise in
+ * primitive arrays.
+ *
+ * There is exactly one writer (the metrics collector). It fills a slot and then
+ * publishes it with a volatile write of the sample count, so it never takes a
+ * lock. Readers iterate with a {@link Cursor} that reads fields straight from
+ * the arrays and, like a seqlock, re-checks the published count afterwards. A
+ * sample the writer overwrote mid-read is skipped rather than returned torn.
+ * Iterating allocates nothing per sample.
+ */
+public final class MetricsRingBuffer {
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final double[] cpuUsage;
+    private final double[] memoryUsage;
+    private final int[] threadCount;
+    private final long[] httpRequestsTotal;
+    private final long[] jvmMemoryUsed;
+    private final long[] jvmMemoryMax;
+
+    // Number of samples ever written; sample n lives in slot n % capacity
+    private volatile long published;
+
+    public MetricsRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.cpuUsage = new double[capacity];
+        this.memoryUsage = new double[capacity];
+        this.threadCount = new int[capacity];
+        this.httpRequestsTotal = new long[capacity];
+        this.jvmMemoryUsed = new long[capacity];
+        this.jvmMemoryMax = new long[capacity];
+    }
+
+    /**
+     * Append a sample. Must only be called from the single writer thread.
+     */
+    public void record(long timestampMs, double cpu, double memory, int threads,
+            long httpRequests, long memoryUsed, long memoryMax) {
+        long seq = published;
+        int slot = slot(seq);
+        timestamps[slot] = timestampMs;
+        cpuUsage[slot] = cpu;
+        memoryUsage[slot] = memory;
+        threadCount[slot] = threads;
+        httpRequestsTotal[slot] = httpRequests;
+        jvmMemoryUsed[slot] = memoryUsed;
+        jvmMemoryMax[slot] = memoryMax;
+        // Volatile write: everything above becomes visible to readers that see the new count
+        published = seq + 1;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of samples currently readable
+     */
+    public int size() {
+        return (int) Math.min(published, capacity - 1);
+    }
+
+    /**
+     * Cursor over all readable samples with a timestamp at or after {@code fromMs}, oldest first
+     */
+    public Cursor since(long fromMs) {
+        Cursor cursor = new Cursor(oldestReadable(published), published);
+        cursor.fromMs = fromMs;
+        return cursor;
+    }
+
+    /**
+     * Cursor over the newest {@code count} samples, oldest first
+     */
+    public Cursor last(int count) {
+        long end = published;
+        return new Cursor(Math.max(oldestReadable(end), end - count), end);
+    }
+
+    private long oldestReadable(long end) {
+        // The slot of sample end - capacity may be mid-overwrite by the writer
+        return Math.max(0, end - capacity + 1);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    /**
+     * Forward-only view over a range of published samples. Not thread-safe;
+     * create one per read.
+     */
+    public final class Cursor {
+
+        private long next;
+        private final long end;
+        private long fromMs = Long.MIN_VALUE;
+
+        private long timestamp;
+        private double cpu;
+        private double memory;
+        private int threads;
+        private long httpRequests;
+        private long memoryUsed;
+        private long memoryMax;
+
+        private Cursor(long start, long end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        /**
+         * Advance to the next sample, returning false when the range is exhausted
+         */
+        public boolean next() {
+            while (next < end) {
+                long seq = next++;
+                int slot = slot(seq);
+                timestamp = timestamps[slot];
+                cpu = cpuUsage[slot];
+                memory = memoryUsage[slot];
+                threads = threadCount[slot];
+                httpRequests = httpRequestsTotal[slot];
+                memoryUsed = jvmMemoryUsed[slot];
+                memoryMax = jvmMemoryMax[slot];
+
+                // Order the reads above before re-checking how far the writer has got
+                VarHandle.acquireFence();
+                long oldest = oldestReadable(published);
+                if (seq < oldest) {
+                    // Overwritten while we were reading; resume at the oldest intact sample
+                    next = Math.max(next, oldest);
+                    continue;
+                }
+                if (timestamp >= fromMs) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public double cpuUsage() {
+            return cpu;
+        }
+
+        public double memoryUsage() {
+            return memory;
+        }
+
+        public int threadCount() {
+            return threads;
+        }
+
+        public long httpRequestsTotal() {
+            return httpRequests;
+        }
+
+        public long jvmMemoryUsed() {
+            return memoryUsed;
+        }
+
+        public long jvmMemoryMax() {
+            return memoryMax;
+        }
+    }
+}
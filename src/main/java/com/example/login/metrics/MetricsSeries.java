@@ -0,0 +1,196 @@
+package com.example.login.metrics;
+
+import com.example.login.dto.MetricsPoint;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A copied window of metric samples held as primitive columns.
+ *
+ * Serializes to the same JSON shape as a list of
+ * {@link com.example.login.entity.SystemMetrics} so endpoints can return it
+ * directly without creating one object per sample. Missing CPU and memory
+ * readings are held as NaN and written as null.
+ */
+@JsonSerialize(using = MetricsSeries.Serializer.class)
+public final class MetricsSeries {
+
+    private int size;
+    private long[] timestamps;
+    private double[] cpuUsage;
+    private double[] memoryUsage;
+    private int[] threadCount;
+    private long[] httpRequestsTotal;
+    private long[] jvmMemoryUsed;
+    private long[] jvmMemoryMax;
+
+    private MetricsSeries(int initialCapacity) {
+        timestamps = new long[initialCapacity];
+        cpuUsage = new double[initialCapacity];
+        memoryUsage = new double[initialCapacity];
+        threadCount = new int[initialCapacity];
+        httpRequestsTotal = new long[initialCapacity];
+        jvmMemoryUsed = new long[initialCapacity];
+        jvmMemoryMax = new long[initialCapacity];
+    }
+
+    /**
+     * Drain a cursor into a new series
+     */
+    public static MetricsSeries copyOf(MetricsRingBuffer.Cursor cursor, int expectedSize) {
+        MetricsSeries series = new MetricsSeries(Math.max(1, expectedSize));
+        while (cursor.next()) {
+            series.add(cursor);
+        }
+        return series;
+    }
+
+    private void add(MetricsRingBuffer.Cursor cursor) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        timestamps[size] = cursor.timestamp();
+        cpuUsage[size] = cursor.cpuUsage();
+        memoryUsage[size] = cursor.memoryUsage();
+        threadCount[size] = cursor.threadCount();
+        httpRequestsTotal[size] = cursor.httpRequestsTotal();
+        jvmMemoryUsed[size] = cursor.jvmMemoryUsed();
+        jvmMemoryMax[size] = cursor.jvmMemoryMax();
+        size++;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        cpuUsage = Arrays.copyOf(cpuUsage, capacity);
+        memoryUsage = Arrays.copyOf(memoryUsage, capacity);
+        threadCount = Arrays.copyOf(threadCount, capacity);
+        httpRequestsTotal = Arrays.copyOf(httpRequestsTotal, capacity);
+        jvmMemoryUsed = Arrays.copyOf(jvmMemoryUsed, capacity);
+        jvmMemoryMax = Arrays.copyOf(jvmMemoryMax, capacity);
+    }
+
+    /**
+     * At most {@code maxPoints} samples picked by {@link Lttb} on CPU and memory
+     * usage, or this series if it already fits
+     */
+    public MetricsSeries downsample(int maxPoints) {
+        if (size <= maxPoints) {
+            return this;
+        }
+        int[] keep = Lttb.select(timestamps, size, maxPoints, cpuUsage, memoryUsage);
+        MetricsSeries result = new MetricsSeries(keep.length);
+        for (int i : keep) {
+            int target = result.size++;
+            result.timestamps[target] = timestamps[i];
+            result.cpuUsage[target] = cpuUsage[i];
+            result.memoryUsage[target] = memoryUsage[i];
+            result.threadCount[target] = threadCount[i];
+            result.httpRequestsTotal[target] = httpRequestsTotal[i];
+            result.jvmMemoryUsed[target] = jvmMemoryUsed[i];
+            result.jvmMemoryMax[target] = jvmMemoryMax[i];
+        }
+        return result;
+    }
+
+    /**
+     * The samples as points, for payloads that must look the same whether
+     * they were served from memory or from stored history
+     */
+    public List<MetricsPoint> toPoints() {
+        ZoneId zone = ZoneId.systemDefault();
+        List<MetricsPoint> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new MetricsPoint(boxed(cpuUsage[i]), boxed(memoryUsage[i]), threadCount[i],
+                    httpRequestsTotal[i], jvmMemoryUsed[i], jvmMemoryMax[i],
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamps[i]), zone)));
+        }
+        return points;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public double cpuUsage(int i) {
+        return cpuUsage[i];
+    }
+
+    public double memoryUsage(int i) {
+        return memoryUsage[i];
+    }
+
+    public int threadCount(int i) {
+        return threadCount[i];
+    }
+
+    public long httpRequestsTotal(int i) {
+        return httpRequestsTotal[i];
+    }
+
+    public long jvmMemoryUsed(int i) {
+        return jvmMemoryUsed[i];
+    }
+
+    public long jvmMemoryMax(int i) {
+        return jvmMemoryMax[i];
+    }
+
+    public static final class Serializer extends StdSerializer<MetricsSeries> {
+
+        public Serializer() {
+            super(MetricsSeries.class);
+        }
+
+        @Override
+        public void serialize(MetricsSeries series, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            ZoneId zone = ZoneId.systemDefault();
+            gen.writeStartArray();
+            for (int i = 0; i < series.size; i++) {
+                gen.writeStartObject();
+                writeDouble(gen, "cpuUsage", series.cpuUsage[i]);
+                writeDouble(gen, "memoryUsage", series.memoryUsage[i]);
+                gen.writeNumberField("threadCount", series.threadCount[i]);
+                gen.writeNumberField("httpRequestsTotal", series.httpRequestsTotal[i]);
+                gen.writeNumberField("jvmMemoryUsed", series.jvmMemoryUsed[i]);
+                gen.writeNumberField("jvmMemoryMax", series.jvmMemoryMax[i]);
+                gen.writeStringField("recordedAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(series.timestamps[i]), zone)));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        private static void writeDouble(JsonGenerator gen, String name, double value) throws IOException {
+            if (Double.isNaN(value)) {
+                gen.writeNullField(name);
+            } else {
+                gen.writeNumberField(name, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildHistory;
+
+import java.util.Collection;
+
+/**
+ * Incremental maintenance of build_aggregate.
+ */
+public interface BuildAggregateBatchRepository {
+
+    /**
+     * Move builds between aggregates: subtract the previously stored versions
+     * and add the new ones, in one batch
+     */
+    void applyChanges(Collection<BuildHistory> removed, Collection<BuildHistory> added);
+
+    /**
+     * Recompute every aggregate from build_history and fix rows that drifted.
+     * Must run in a transaction; blocks aggregate writers until it commits.
+     *
+     * @return number of aggregate rows corrected, inserted or removed
+     */
+    int reconcile();
+}
@@ -0,0 +1,180 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildAggregate;
+import com.example.login.entity.BuildHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Native PostgreSQL delta upserts for build_aggregate.
+ *
+ * Changes are first combined per (job, status) in memory, so a batch of
+ * builds costs one row per aggregate it touches. Counts and sums add up
+ * (removed builds contribute negative deltas); minimum, maximum and last
+ * build only move outwards via LEAST/GREATEST, which ignore the NULLs a
+ * pure removal sends. The reconcile statement recomputes the same columns
+ * from build_history and only rewrites rows that differ.
+ */
+public class BuildAggregateBatchRepositoryImpl implements BuildAggregateBatchRepository {
+
+    static final String UPSERT_SQL = "INSERT INTO build_aggregate AS a "
+            + "(job_name, status, build_count, duration_sum, duration_count, duration_min, duration_max, "
+            + "last_build_number, last_build_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (job_name, status) DO UPDATE SET "
+            + "build_count = a.build_count + EXCLUDED.build_count, "
+            + "duration_sum = a.duration_sum + EXCLUDED.duration_sum, "
+            + "duration_count = a.duration_count + EXCLUDED.duration_count, "
+            + "duration_min = LEAST(a.duration_min, EXCLUDED.duration_min), "
+            + "duration_max = GREATEST(a.duration_max, EXCLUDED.duration_max), "
+            + "last_build_number = GREATEST(a.last_build_number, EXCLUDED.last_build_number), "
+            + "last_build_at = GREATEST(a.last_build_at, EXCLUDED.last_build_at), "
+            + "updated_at = EXCLUDED.updated_at";
+
+    // Writers take ROW EXCLUSIVE; this mode waits for them and holds them off until the reconcile commits
+    static final String LOCK_SQL = "LOCK TABLE build_aggregate IN SHARE ROW EXCLUSIVE MODE";
+
+    static final String RECONCILE_SQL = "INSERT INTO build_aggregate AS a "
+            + "(job_name, status, build_count, duration_sum, duration_count, duration_min, duration_max, "
+            + "last_build_number, last_build_at, updated_at) "
+            + "SELECT job_name, COALESCE(status, '" + BuildAggregate.UNKNOWN_STATUS + "'), COUNT(*), "
+            + "COALESCE(SUM(duration_ms), 0), COUNT(duration_ms), MIN(duration_ms), MAX(duration_ms), "
+            + "MAX(build_number), MAX(timestamp), now() AT TIME ZONE 'UTC' "
+            + "FROM build_history GROUP BY 1, 2 "
+            + "ON CONFLICT (job_name, status) DO UPDATE SET "
+            + "build_count = EXCLUDED.build_count, duration_sum = EXCLUDED.duration_sum, "
+            + "duration_count = EXCLUDED.duration_count, duration_min = EXCLUDED.duration_min, "
+            + "duration_max = EXCLUDED.duration_max, last_build_number = EXCLUDED.last_build_number, "
+            + "last_build_at = EXCLUDED.last_build_at, updated_at = EXCLUDED.updated_at "
+            + "WHERE (a.build_count, a.duration_sum, a.duration_count, a.duration_min, a.duration_max, "
+            + "a.last_build_number, a.last_build_at) IS DISTINCT FROM (EXCLUDED.build_count, "
+            + "EXCLUDED.duration_sum, EXCLUDED.duration_count, EXCLUDED.duration_min, EXCLUDED.duration_max, "
+            + "EXCLUDED.last_build_number, EXCLUDED.last_build_at)";
+
+    static final String DELETE_ORPHANS_SQL = "DELETE FROM build_aggregate a WHERE NOT EXISTS ("
+            + "SELECT 1 FROM build_history b WHERE b.job_name = a.job_name "
+            + "AND COALESCE(b.status, '" + BuildAggregate.UNKNOWN_STATUS + "') = a.status)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BuildAggregateBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Net change to one (job, status) aggregate within a single call
+     */
+    static final class Delta {
+        final String jobName;
+        final String status;
+        long count;
+        long durationSum;
+        long durationCount;
+        Long durationMin;
+        Long durationMax;
+        Integer lastBuildNumber;
+        LocalDateTime lastBuildAt;
+
+        Delta(String jobName, String status) {
+            this.jobName = jobName;
+            this.status = status;
+        }
+
+        void add(BuildHistory build) {
+            count++;
+            Long duration = build.getDurationMs();
+            if (duration != null) {
+                durationSum += duration;
+                durationCount++;
+                durationMin = durationMin == null ? duration : Math.min(durationMin, duration);
+                durationMax = durationMax == null ? duration : Math.max(durationMax, duration);
+            }
+            if (build.getBuildNumber() != null
+                    && (lastBuildNumber == null || build.getBuildNumber() > lastBuildNumber)) {
+                lastBuildNumber = build.getBuildNumber();
+            }
+            if (build.getTimestamp() != null
+                    && (lastBuildAt == null || build.getTimestamp().isAfter(lastBuildAt))) {
+                lastBuildAt = build.getTimestamp();
+            }
+        }
+
+        void remove(BuildHistory build) {
+            count--;
+            if (build.getDurationMs() != null) {
+                durationSum -= build.getDurationMs();
+                durationCount--;
+            }
+        }
+    }
+
+    static Collection<Delta> deltas(Collection<BuildHistory> removed, Collection<BuildHistory> added) {
+        // Sorted so concurrent writers lock aggregate rows in the same order
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (BuildHistory build : removed) {
+            delta(deltas, build).remove(build);
+        }
+        for (BuildHistory build : added) {
+            delta(deltas, build).add(build);
+        }
+        return deltas.values();
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, BuildHistory build) {
+        String status = status(build);
+        return deltas.computeIfAbsent(build.getJobName() + '\u0000' + status,
+                k -> new Delta(build.getJobName(), status));
+    }
+
+    static String status(BuildHistory build) {
+        return build.getStatus() != null ? build.getStatus() : BuildAggregate.UNKNOWN_STATUS;
+    }
+
+    @Override
+    public void applyChanges(Collection<BuildHistory> removed, Collection<BuildHistory> added) {
+        List<Delta> rows = new ArrayList<>(deltas(removed, added));
+        if (rows.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, delta) -> {
+            ps.setString(1, delta.jobName);
+            ps.setString(2, delta.status);
+            ps.setLong(3, delta.count);
+            ps.setLong(4, delta.durationSum);
+            ps.setLong(5, delta.durationCount);
+            setLong(ps, 6, delta.durationMin);
+            setLong(ps, 7, delta.durationMax);
+            if (delta.lastBuildNumber != null) {
+                ps.setInt(8, delta.lastBuildNumber);
+            } else {
+                ps.setNull(8, Types.INTEGER);
+            }
+            JdbcTimestamps.setTimestamp(ps, 9, delta.lastBuildAt);
+            JdbcTimestamps.setTimestamp(ps, 10, now);
+        });
+    }
+
+    @Override
+    public int reconcile() {
+        jdbcTemplate.execute(LOCK_SQL);
+        return jdbcTemplate.update(RECONCILE_SQL) + jdbcTemplate.update(DELETE_ORPHANS_SQL);
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
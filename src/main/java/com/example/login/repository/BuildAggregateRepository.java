@@ -0,0 +1,20 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildAggregate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BuildAggregateRepository extends JpaRepository<BuildAggregate, Long>, BuildAggregateBatchRepository {
+
+    // Aggregates that still count at least one build
+    @Query("SELECT a FROM BuildAggregate a WHERE a.buildCount > 0")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<BuildAggregate> findNonEmpty();
+}
@@ -0,0 +1,42 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildDurationSketch;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BuildDurationSketchRepository extends JpaRepository<BuildDurationSketch, Long> {
+
+    // Create an empty sketch row unless one exists, so concurrent writers can lock it
+    @Modifying
+    @Query(value = "INSERT INTO build_duration_sketch (job_name, day, build_count, sketch, updated_at) "
+            + "VALUES (:jobName, :day, 0, :empty, now()) ON CONFLICT (job_name, day) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String jobName, LocalDate day, byte[] empty);
+
+    // Sketch row for read-modify-write, locked until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BuildDurationSketch s WHERE s.jobName = :jobName AND s.day = :day")
+    Optional<BuildDurationSketch> findForUpdate(String jobName, LocalDate day);
+
+    // All per-day sketches in a date range
+    @Query("SELECT s FROM BuildDurationSketch s WHERE s.day BETWEEN :from AND :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<BuildDurationSketch> findByDayRange(LocalDate from, LocalDate to);
+
+    // One job's per-day sketches in a date range
+    @Query("SELECT s FROM BuildDurationSketch s WHERE s.jobName = :jobName AND s.day BETWEEN :from AND :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<BuildDurationSketch> findByJobAndDayRange(String jobName, LocalDate from, LocalDate to);
+}
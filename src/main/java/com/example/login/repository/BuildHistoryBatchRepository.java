@@ -0,0 +1,28 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildHistory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk write operations for build_history that bypass per-entity persistence.
+ */
+public interface BuildHistoryBatchRepository {
+
+    /**
+     * Insert or update builds and report what each write replaced. New builds
+     * are inserted with ON CONFLICT DO NOTHING, existing rows are locked
+     * (SELECT ... FOR UPDATE) before their stored version is read, so
+     * concurrent writers of the same build see each other's result. Builds
+     * whose stored version is unchanged are neither rewritten nor returned.
+     * Must run inside a transaction.
+     */
+    List<Change> upsertChanges(Collection<BuildHistory> builds);
+
+    /**
+     * One written build and the version it replaced, null if it was inserted
+     */
+    record Change(BuildHistory previous, BuildHistory current) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildHistory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Native PostgreSQL upsert for build_history.
+ *
+ * Multi-row {@code INSERT ... ON CONFLICT DO NOTHING} statements and batched
+ * updates replace the SELECT-then-save round trips of the JPA path (which
+ * cannot batch inserts because ids use IDENTITY). Relies on the unique
+ * constraint on (job_name, build_number).
+ *
+ * {@link #upsertChanges} reports the replaced versions for the aggregate and
+ * sketch deltas. Rows are inserted and locked in (job, build number) order so
+ * concurrent writers of overlapping batches cannot deadlock.
+ */
+public class BuildHistoryBatchRepositoryImpl implements BuildHistoryBatchRepository {
+
+    static final String INSERT_NEW_SQL = "INSERT INTO build_history "
+            + "(job_name, build_number, status, duration_ms, timestamp, created_at) VALUES %s "
+            + "ON CONFLICT (job_name, build_number) DO NOTHING RETURNING job_name, build_number";
+
+    static final String LOCK_SQL = "SELECT job_name, build_number, status, duration_ms, timestamp "
+            + "FROM build_history WHERE (job_name, build_number) IN (%s) "
+            + "ORDER BY job_name, build_number FOR UPDATE";
+
+    static final String UPDATE_SQL = "UPDATE build_history SET status = ?, duration_ms = ?, timestamp = ? "
+            + "WHERE job_name = ? AND build_number = ?";
+
+    private record Key(String jobName, int buildNumber) {
+    }
+
+    private static final Comparator<Key> KEY_ORDER =
+            Comparator.comparing(Key::jobName).thenComparingInt(Key::buildNumber);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public BuildHistoryBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+            @Value("${build-history.upsert.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<Change> upsertChanges(Collection<BuildHistory> builds) {
+        // Last version of each build in the batch wins
+        Map<Key, BuildHistory> incoming = new TreeMap<>(KEY_ORDER);
+        for (BuildHistory build : builds) {
+            incoming.put(key(build), build);
+        }
+        if (incoming.isEmpty()) {
+            return List.of();
+        }
+        List<BuildHistory> rows = new ArrayList<>(incoming.values());
+        LocalDateTime now = LocalDateTime.now();
+
+        // Conflicting inserts wait for the other writer to commit, then skip the row
+        Set<Key> inserted = new HashSet<>();
+        for (List<BuildHistory> chunk : chunks(rows)) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        String.format(INSERT_NEW_SQL, placeholders(chunk.size(), "(?, ?, ?, ?, ?, ?)")));
+                int index = 1;
+                for (BuildHistory build : chunk) {
+                    ps.setString(index++, build.getJobName());
+                    ps.setInt(index++, build.getBuildNumber());
+                    ps.setString(index++, build.getStatus());
+                    setLong(ps, index++, build.getDurationMs());
+                    JdbcTimestamps.setTimestamp(ps, index++, build.getTimestamp());
+                    JdbcTimestamps.setTimestamp(ps, index++, now);
+                }
+                return ps;
+            }, rs -> {
+                inserted.add(new Key(rs.getString(1), rs.getInt(2)));
+            });
+        }
+
+        // Lock the rows that already existed; the read waits for concurrent writers and sees their result
+        List<BuildHistory> existing = rows.stream().filter(build -> !inserted.contains(key(build))).toList();
+        Map<Key, BuildHistory> stored = new HashMap<>();
+        for (List<BuildHistory> chunk : chunks(existing)) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        String.format(LOCK_SQL, placeholders(chunk.size(), "(?, ?)")));
+                int index = 1;
+                for (BuildHistory build : chunk) {
+                    ps.setString(index++, build.getJobName());
+                    ps.setInt(index++, build.getBuildNumber());
+                }
+                return ps;
+            }, rs -> {
+                BuildHistory build = new BuildHistory(rs.getString(1), rs.getInt(2), rs.getString(3),
+                        rs.getObject(4, Long.class), JdbcTimestamps.getTimestamp(rs, 5));
+                stored.put(key(build), build);
+            });
+        }
+
+        List<Change> changes = new ArrayList<>();
+        List<BuildHistory> updated = new ArrayList<>();
+        for (BuildHistory build : rows) {
+            Key key = key(build);
+            if (inserted.contains(key)) {
+                changes.add(new Change(null, build));
+                continue;
+            }
+            BuildHistory previous = stored.get(key);
+            if (previous != null && !sameVersion(previous, build)) {
+                changes.add(new Change(previous, build));
+                updated.add(build);
+            }
+        }
+        if (!updated.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updated, batchSize, (ps, build) -> {
+                ps.setString(1, build.getStatus());
+                setLong(ps, 2, build.getDurationMs());
+                JdbcTimestamps.setTimestamp(ps, 3, build.getTimestamp());
+                ps.setString(4, build.getJobName());
+                ps.setInt(5, build.getBuildNumber());
+            });
+        }
+        return changes;
+    }
+
+    static boolean sameVersion(BuildHistory previous, BuildHistory current) {
+        return Objects.equals(previous.getStatus(), current.getStatus())
+                && Objects.equals(previous.getDurationMs(), current.getDurationMs())
+                && Objects.equals(previous.getTimestamp(), current.getTimestamp());
+    }
+
+    static String placeholders(int rows, String row) {
+        StringBuilder sql = new StringBuilder(rows * (row.length() + 2));
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private List<List<BuildHistory>> chunks(List<BuildHistory> rows) {
+        List<List<BuildHistory>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            chunks.add(rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        return chunks;
+    }
+
+    private static Key key(BuildHistory build) {
+        return new Key(build.getJobName(), build.getBuildNumber());
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
@@ -1,30 +1,38 @@
 package com.example.login.repository;
 
+import com.example.login.dto.BuildSummary;
 import com.example.login.entity.BuildHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BuildHistoryRepository extends JpaRepository<BuildHistory, Long> {
+public interface BuildHistoryRepository extends JpaRepository<BuildHistory, Long>, BuildHistoryBatchRepository,
+        BuildTrendRepository {
+
+    String SUMMARY = "new com.example.login.dto.BuildSummary(b.id, b.jobName, b.buildNumber, b.status, "
+            + "b.durationMs, b.timestamp)";
 
     // Find all builds for a specific job, ordered by build number descending
-    List<BuildHistory> findByJobNameOrderByBuildNumberDesc(String jobName);
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b WHERE b.jobName = :jobName ORDER BY b.buildNumber DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    List<BuildSummary> findByJobNameOrderByBuildNumberDesc(String jobName);
 
     // Find the latest N builds across all jobs
     List<BuildHistory> findTop10ByOrderByTimestampDesc();
 
     // Find latest builds with dynamic limit
-    @Query("SELECT b FROM BuildHistory b ORDER BY b.timestamp DESC")
-    List<BuildHistory> findRecentBuilds(Pageable pageable);
-
-    // Find builds by status
-    List<BuildHistory> findByStatus(String status);
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b ORDER BY b.timestamp DESC")
+    List<BuildSummary> findRecentBuilds(Pageable pageable);
 
     // Find builds within a date range
     List<BuildHistory> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
@@ -32,15 +40,40 @@ public interface BuildHistoryRepository extends JpaRepository<BuildHistory, Long
     // Check if a build already exists
     Optional<BuildHistory> findByJobNameAndBuildNumber(String jobName, Integer buildNumber);
 
-    // Get success rate statistics
-    @Query("SELECT b.status, COUNT(b) FROM BuildHistory b GROUP BY b.status")
-    List<Object[]> getStatusStatistics();
-
-    // Get average build duration by job
-    @Query("SELECT b.jobName, AVG(b.durationMs) FROM BuildHistory b GROUP BY b.jobName")
-    List<Object[]> getAverageDurationByJob();
+    // Ingestion resume point per job: the end of the gap-free stored range, held below the first running build.
+    // Rows saved by the proxy or the jobs endpoint can sit past a gap or still be BUILDING.
+    @Query(value = "SELECT job_name, LEAST(MAX(build_number), "
+            + "MIN(build_number) FILTER (WHERE next_number > build_number + 1), "
+            + "MIN(build_number) FILTER (WHERE status = 'BUILDING') - 1) "
+            + "FROM (SELECT job_name, build_number, status, "
+            + "LEAD(build_number) OVER (PARTITION BY job_name ORDER BY build_number) AS next_number "
+            + "FROM build_history) b GROUP BY job_name",
+            nativeQuery = true)
+    List<Object[]> getIngestedBuildNumberByJob();
 
     // Get builds from last N days
-    @Query("SELECT b FROM BuildHistory b WHERE b.timestamp >= :since ORDER BY b.timestamp DESC")
-    List<BuildHistory> findRecentBuilds(LocalDateTime since);
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b WHERE b.timestamp >= :since ORDER BY b.timestamp DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    List<BuildSummary> findRecentBuilds(LocalDateTime since);
+
+    // First page of builds since a point in time, keyset order (timestamp, id) newest first
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b WHERE b.timestamp >= :since "
+            + "ORDER BY b.timestamp DESC, b.id DESC")
+    List<BuildSummary> findPageSince(LocalDateTime since, Pageable pageable);
+
+    // Every build oldest first, read through a server-side cursor for exports (consume inside a transaction)
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b ORDER BY b.timestamp ASC, b.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<BuildSummary> streamAll();
+
+    // Builds since a point in time oldest first, read through a server-side cursor
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b WHERE b.timestamp >= :since ORDER BY b.timestamp ASC, b.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<BuildSummary> streamSince(LocalDateTime since);
+
+    // Next page: builds strictly after the cursor position in keyset order
+    @Query("SELECT " + SUMMARY + " FROM BuildHistory b WHERE b.timestamp >= :since "
+            + "AND (b.timestamp < :timestamp OR (b.timestamp = :timestamp AND b.id < :id)) "
+            + "ORDER BY b.timestamp DESC, b.id DESC")
+    List<BuildSummary> findPageSinceAfter(LocalDateTime since, LocalDateTime timestamp, Long id, Pageable pageable);
 }
@@ -0,0 +1,42 @@
+package com.example.login.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Time-bucketed build aggregates computed in the database.
+ */
+public interface BuildTrendRepository {
+
+    /**
+     * Supported bucket sizes; the name is the {@code date_trunc} field
+     */
+    enum Bucket {
+        HOUR, DAY, WEEK;
+
+        public String field() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Bucket parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported bucket '" + value + "', expected hour, day or week");
+            }
+        }
+    }
+
+    /**
+     * Build count and average duration for one (bucket, job, status) group
+     */
+    record TrendRow(LocalDateTime bucket, String jobName, String status, long count, Double avgDurationMs) {
+    }
+
+    /**
+     * Count builds since {@code since} per bucket, job and status, oldest bucket
+     * first. {@code jobName} and {@code status} are optional filters.
+     */
+    List<TrendRow> aggregateTrends(Bucket bucket, LocalDateTime since, String jobName, String status);
+}
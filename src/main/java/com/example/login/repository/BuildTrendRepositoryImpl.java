@@ -0,0 +1,58 @@
+package com.example.login.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Native PostgreSQL trend aggregation for build_history.
+ *
+ * Groups with {@code date_trunc} so only one compact row per (bucket, job,
+ * status) leaves the database instead of every build in the window. Filters
+ * are appended only when given, which keeps the predicates sargable for the
+ * (timestamp, id) and (job_name, timestamp) indexes.
+ */
+public class BuildTrendRepositoryImpl implements BuildTrendRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BuildTrendRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<TrendRow> aggregateTrends(Bucket bucket, LocalDateTime since, String jobName, String status) {
+        StringBuilder sql = new StringBuilder(256)
+                .append("SELECT date_trunc('").append(bucket.field()).append("', timestamp) AS bucket, ")
+                .append("job_name, status, COUNT(*) AS builds, AVG(duration_ms) AS avg_duration_ms ")
+                .append("FROM build_history WHERE timestamp >= ?");
+        List<String> filters = new ArrayList<>(2);
+        if (jobName != null) {
+            sql.append(" AND job_name = ?");
+            filters.add(jobName);
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            filters.add(status);
+        }
+        sql.append(" GROUP BY 1, 2, 3 ORDER BY 1, 2, 3");
+
+        return jdbcTemplate.query(sql.toString(), ps -> {
+            JdbcTimestamps.setTimestamp(ps, 1, since);
+            for (int i = 0; i < filters.size(); i++) {
+                ps.setString(i + 2, filters.get(i));
+            }
+        }, (rs, rowNum) -> {
+            double avg = rs.getDouble("avg_duration_ms");
+            Double avgDurationMs = rs.wasNull() ? null : avg;
+            return new TrendRow(
+                    JdbcTimestamps.getTimestamp(rs, "bucket"),
+                    rs.getString("job_name"),
+                    rs.getString("status"),
+                    rs.getLong("builds"),
+                    avgDurationMs);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.login.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Binds and reads {@link LocalDateTime} columns for the plain JDBC fragments.
+ *
+ * Uses UTC to match hibernate.jdbc.time_zone, so rows written or read here
+ * line up with the same rows seen through JPA.
+ */
+public final class JdbcTimestamps {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private JdbcTimestamps() {
+    }
+
+    public static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            // Calendar is mutable and the driver may use it, so each call gets its own
+            ps.setTimestamp(index, Timestamp.valueOf(value), Calendar.getInstance(UTC));
+        }
+    }
+
+    public static LocalDateTime getTimestamp(ResultSet rs, int column) throws SQLException {
+        return toLocalDateTime(rs.getTimestamp(column, Calendar.getInstance(UTC)));
+    }
+
+    public static LocalDateTime getTimestamp(ResultSet rs, String column) throws SQLException {
+        return toLocalDateTime(rs.getTimestamp(column, Calendar.getInstance(UTC)));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.login.repository;
+
+import com.example.login.entity.SystemMetrics;
+
+import java.util.Collection;
+
+/**
+ * Bulk inserts for system_metrics that bypass per-entity persistence.
+ */
+public interface SystemMetricsBatchRepository {
+
+    /**
+     * Insert samples using JDBC batches
+     *
+     * @return number of rows written
+     */
+    int insertAll(Collection<SystemMetrics> samples);
+}
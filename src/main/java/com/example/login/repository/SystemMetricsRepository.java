@@ -1,18 +1,30 @@
 package com.example.login.repository;
 
+import com.example.login.dto.MetricsPoint;
 import com.example.login.entity.SystemMetrics;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface SystemMetricsRepository extends JpaRepository<SystemMetrics, Long> {
+public interface SystemMetricsRepository extends JpaRepository<SystemMetrics, Long>, SystemMetricsBatchRepository {
 
-    // Find latest N metrics
-    List<SystemMetrics> findTop50ByOrderByRecordedAtDesc();
+    String POINT = "new com.example.login.dto.MetricsPoint(m.cpuUsage, m.memoryUsage, m.threadCount, "
+            + "m.httpRequestsTotal, m.jvmMemoryUsed, m.jvmMemoryMax, m.gcCount, m.gcPauseMs, m.allocationRate, "
+            + "m.safepointMs, m.monitorBlockedMs, m.recordedAt)";
+
+    // Latest samples, newest first, as read-only points
+    @Query("SELECT " + POINT + " FROM SystemMetrics m ORDER BY m.recordedAt DESC")
+    List<MetricsPoint> findRecentPoints(Pageable pageable);
 
     // Find metrics within a date range
     List<SystemMetrics> findByRecordedAtBetween(LocalDateTime start, LocalDateTime end);
@@ -25,7 +37,15 @@ public interface SystemMetricsRepository extends JpaRepository<SystemMetrics, Lo
     @Query("SELECT AVG(m.memoryUsage) FROM SystemMetrics m WHERE m.recordedAt >= :since")
     Double getAverageMemoryUsage(LocalDateTime since);
 
-    // Get metrics from last N hours
-    @Query("SELECT m FROM SystemMetrics m WHERE m.recordedAt >= :since ORDER BY m.recordedAt ASC")
-    List<SystemMetrics> findMetricsSince(LocalDateTime since);
+    // Get metrics from last N hours as read-only points, streamed in fetch-size chunks
+    // (PostgreSQL only honours the fetch size inside a transaction, so the query opens its own)
+    @Query("SELECT " + POINT + " FROM SystemMetrics m WHERE m.recordedAt >= :since ORDER BY m.recordedAt ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Transactional(readOnly = true)
+    List<MetricsPoint> findMetricsSince(LocalDateTime since);
+
+    // Purge raw samples older than the retention cutoff
+    @Modifying
+    @Query("DELETE FROM SystemMetrics m WHERE m.recordedAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
 }
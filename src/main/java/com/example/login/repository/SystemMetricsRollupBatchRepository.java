@@ -0,0 +1,16 @@
+package com.example.login.repository;
+
+import com.example.login.entity.SystemMetrics;
+
+import java.util.Collection;
+
+/**
+ * Incremental maintenance of system_metrics_rollup.
+ */
+public interface SystemMetricsRollupBatchRepository {
+
+    /**
+     * Fold samples into their buckets at every resolution
+     */
+    void accumulate(Collection<SystemMetrics> samples);
+}
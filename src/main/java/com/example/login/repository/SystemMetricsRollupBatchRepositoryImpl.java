@@ -0,0 +1,219 @@
+package com.example.login.repository;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native PostgreSQL upsert that merges samples into their rollup buckets.
+ *
+ * Samples are first combined per bucket in memory (one row per bucket keeps
+ * rewritten multi-row inserts from touching the same key twice). On conflict
+ * min/max use LEAST/GREATEST, sums and counts add up and "last" columns take
+ * the incoming value only when its newest sample is at least as recent as the
+ * bucket's last_recorded_at, so replicas writing the same bucket combine
+ * instead of overwriting each other and replayed spill files cannot roll the
+ * latest readings back. A missing CPU or memory reading is skipped rather
+ * than counted as 0: it is bound as NULL (which LEAST/GREATEST ignore), and
+ * averages divide by per-field counts instead of the sample count.
+ */
+public class SystemMetricsRollupBatchRepositoryImpl implements SystemMetricsRollupBatchRepository {
+
+    // The incoming batch holds the bucket's newest sample; buckets without last_recorded_at count as older
+    private static final String NEWER =
+            "(r.last_recorded_at IS NULL OR EXCLUDED.last_recorded_at >= r.last_recorded_at)";
+
+    static final String UPSERT_SQL = "INSERT INTO system_metrics_rollup AS r "
+            + "(resolution, bucket_start, sample_count, cpu_count, cpu_min, cpu_max, cpu_sum, cpu_last, "
+            + "memory_count, memory_min, memory_max, memory_sum, memory_last, thread_count_max, thread_count_last, "
+            + "http_requests_last, jvm_memory_used_last, jvm_memory_max_last, updated_at, last_recorded_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (resolution, bucket_start) DO UPDATE SET "
+            + "sample_count = r.sample_count + EXCLUDED.sample_count, "
+            + "cpu_count = r.cpu_count + EXCLUDED.cpu_count, "
+            + "cpu_min = LEAST(r.cpu_min, EXCLUDED.cpu_min), "
+            + "cpu_max = GREATEST(r.cpu_max, EXCLUDED.cpu_max), "
+            + "cpu_sum = COALESCE(r.cpu_sum + EXCLUDED.cpu_sum, r.cpu_sum, EXCLUDED.cpu_sum), "
+            + "cpu_last = CASE WHEN " + NEWER + " THEN COALESCE(EXCLUDED.cpu_last, r.cpu_last) "
+            + "ELSE COALESCE(r.cpu_last, EXCLUDED.cpu_last) END, "
+            + "memory_count = r.memory_count + EXCLUDED.memory_count, "
+            + "memory_min = LEAST(r.memory_min, EXCLUDED.memory_min), "
+            + "memory_max = GREATEST(r.memory_max, EXCLUDED.memory_max), "
+            + "memory_sum = COALESCE(r.memory_sum + EXCLUDED.memory_sum, r.memory_sum, EXCLUDED.memory_sum), "
+            + "memory_last = CASE WHEN " + NEWER + " THEN COALESCE(EXCLUDED.memory_last, r.memory_last) "
+            + "ELSE COALESCE(r.memory_last, EXCLUDED.memory_last) END, "
+            + "thread_count_max = GREATEST(r.thread_count_max, EXCLUDED.thread_count_max), "
+            + "thread_count_last = CASE WHEN " + NEWER + " THEN EXCLUDED.thread_count_last "
+            + "ELSE r.thread_count_last END, "
+            + "http_requests_last = CASE WHEN " + NEWER + " THEN EXCLUDED.http_requests_last "
+            + "ELSE r.http_requests_last END, "
+            + "jvm_memory_used_last = CASE WHEN " + NEWER + " THEN EXCLUDED.jvm_memory_used_last "
+            + "ELSE r.jvm_memory_used_last END, "
+            + "jvm_memory_max_last = CASE WHEN " + NEWER + " THEN EXCLUDED.jvm_memory_max_last "
+            + "ELSE r.jvm_memory_max_last END, "
+            + "updated_at = EXCLUDED.updated_at, "
+            + "last_recorded_at = GREATEST(r.last_recorded_at, EXCLUDED.last_recorded_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SystemMetricsRollupBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Partial aggregate for one bucket within a single call
+     */
+    static final class Bucket {
+        final Resolution resolution;
+        final LocalDateTime start;
+        int count;
+        final Field cpu = new Field();
+        final Field memory = new Field();
+        int threadCountMax = Integer.MIN_VALUE;
+        SystemMetrics last;
+        LocalDateTime lastAt;
+
+        Bucket(Resolution resolution, LocalDateTime start) {
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        void add(SystemMetrics sample, LocalDateTime recordedAt) {
+            count++;
+            cpu.add(sample.getCpuUsage(), recordedAt);
+            memory.add(sample.getMemoryUsage(), recordedAt);
+            if (sample.getThreadCount() != null) {
+                threadCountMax = Math.max(threadCountMax, sample.getThreadCount());
+            }
+            if (last == null || !lastAt.isAfter(recordedAt)) {
+                last = sample;
+                lastAt = recordedAt;
+            }
+        }
+    }
+
+    /**
+     * Min, max, sum and latest value of one gauge over the samples that reported it
+     */
+    static final class Field {
+        int count;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double sum;
+        Double last;
+        LocalDateTime lastAt;
+
+        void add(Double value, LocalDateTime recordedAt) {
+            if (value == null) {
+                return;
+            }
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            if (lastAt == null || !lastAt.isAfter(recordedAt)) {
+                last = value;
+                lastAt = recordedAt;
+            }
+        }
+
+        Double min() {
+            return count > 0 ? min : null;
+        }
+
+        Double max() {
+            return count > 0 ? max : null;
+        }
+
+        Double sum() {
+            return count > 0 ? sum : null;
+        }
+    }
+
+    @Override
+    public void accumulate(Collection<SystemMetrics> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        List<Bucket> rows = buckets(samples);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, bucket) -> {
+            SystemMetrics last = bucket.last;
+            ps.setString(1, bucket.resolution.name());
+            JdbcTimestamps.setTimestamp(ps, 2, bucket.start);
+            ps.setInt(3, bucket.count);
+            setField(ps, 4, bucket.cpu);
+            setField(ps, 9, bucket.memory);
+            setInteger(ps, 14, bucket.threadCountMax != Integer.MIN_VALUE ? bucket.threadCountMax : null);
+            setInteger(ps, 15, last.getThreadCount());
+            setLong(ps, 16, last.getHttpRequestsTotal());
+            setLong(ps, 17, last.getJvmMemoryUsed());
+            setLong(ps, 18, last.getJvmMemoryMax());
+            JdbcTimestamps.setTimestamp(ps, 19, now);
+            JdbcTimestamps.setTimestamp(ps, 20, bucket.lastAt);
+        });
+    }
+
+    /**
+     * Samples combined into one partial aggregate per resolution and bucket
+     */
+    static List<Bucket> buckets(Collection<SystemMetrics> samples) {
+        Map<String, Bucket> buckets = new LinkedHashMap<>();
+        for (SystemMetrics sample : samples) {
+            LocalDateTime recordedAt = recordedAt(sample);
+            for (Resolution resolution : Resolution.values()) {
+                LocalDateTime start = resolution.bucketStart(recordedAt);
+                buckets.computeIfAbsent(resolution.name() + '|' + start, k -> new Bucket(resolution, start))
+                        .add(sample, recordedAt);
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    // count, min, max, sum, last
+    private static void setField(PreparedStatement ps, int index, Field field) throws SQLException {
+        ps.setInt(index, field.count);
+        setDouble(ps, index + 1, field.min());
+        setDouble(ps, index + 2, field.max());
+        setDouble(ps, index + 3, field.sum());
+        setDouble(ps, index + 4, field.last);
+    }
+
+    private static LocalDateTime recordedAt(SystemMetrics sample) {
+        return sample.getRecordedAt() != null ? sample.getRecordedAt() : LocalDateTime.now();
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.login.repository;
+
+import com.example.login.dto.MetricsPoint;
+import com.example.login.entity.SystemMetricsRollup;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SystemMetricsRollupRepository
+        extends JpaRepository<SystemMetricsRollup, Long>, SystemMetricsRollupBatchRepository {
+
+    // Buckets of one resolution from a point in time, oldest first, as points carrying their averages;
+    // read-only transaction so the fetch size applies
+    @Query("SELECT new com.example.login.dto.MetricsPoint(r.cpuSum / NULLIF(r.cpuCount, 0), "
+            + "r.memorySum / NULLIF(r.memoryCount, 0), r.threadCountLast, r.httpRequestsLast, "
+            + "r.jvmMemoryUsedLast, r.jvmMemoryMaxLast, r.bucketStart) "
+            + "FROM SystemMetricsRollup r WHERE r.resolution = :resolution AND r.bucketStart >= :since "
+            + "ORDER BY r.bucketStart ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Transactional(readOnly = true)
+    List<MetricsPoint> findPointsSince(Resolution resolution, LocalDateTime since);
+
+    // Drop buckets of one resolution older than the cutoff
+    @Modifying
+    @Query("DELETE FROM SystemMetricsRollup r WHERE r.resolution = :resolution AND r.bucketStart < :cutoff")
+    int deleteOlderThan(Resolution resolution, LocalDateTime cutoff);
+}
@@ -0,0 +1,217 @@
+package com.example.login.service;
+
+import com.example.login.entity.BuildDurationSketch;
+import com.example.login.entity.BuildHistory;
+import com.example.login.metrics.DurationSketch;
+import com.example.login.repository.BuildDurationSketchRepository;
+import com.example.login.repository.JdbcTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Per-job, per-day build duration sketches.
+ *
+ * Finished builds are folded into the sketch of their job and day as they
+ * are stored, so percentiles over any date range come from merging a few
+ * small per-day sketches instead of scanning build_history.
+ */
+@Service
+public class BuildDurationSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildDurationSketchService.class);
+
+    private static final byte[] EMPTY_SKETCH = new DurationSketch().toBytes();
+
+    // Same condition as isFinished
+    private static final String FINISHED_SQL = "duration_ms IS NOT NULL AND timestamp IS NOT NULL "
+            + "AND status IS NOT NULL AND status <> 'BUILDING'";
+
+    // Rows per round trip of the backfill scan; inside a transaction this makes the driver stream the history
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    // Writers take ROW EXCLUSIVE; this mode waits for them and holds them off until the backfill commits
+    private static final String LOCK_SQL = "LOCK TABLE build_duration_sketch IN SHARE ROW EXCLUSIVE MODE";
+
+    private final BuildDurationSketchRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private record Key(String jobName, LocalDate day) {
+    }
+
+    private static final Comparator<Key> KEY_ORDER =
+            Comparator.comparing(Key::jobName).thenComparing(Key::day);
+
+    public BuildDurationSketchService(BuildDurationSketchRepository repository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * True if the build has a final result and a duration worth counting
+     */
+    public static boolean isFinished(BuildHistory build) {
+        return build.getStatus() != null && !"BUILDING".equals(build.getStatus())
+                && build.getDurationMs() != null && build.getTimestamp() != null;
+    }
+
+    /**
+     * Add finished builds to their sketches. Callers pass each build once, when
+     * it first finishes; this runs inside the caller's transaction.
+     */
+    @Transactional
+    public void record(Collection<BuildHistory> builds) {
+        // Sorted so concurrent writers lock rows in the same order
+        Map<Key, DurationSketch> deltas = new TreeMap<>(KEY_ORDER);
+        for (BuildHistory build : builds) {
+            if (isFinished(build)) {
+                deltas.computeIfAbsent(new Key(build.getJobName(), build.getTimestamp().toLocalDate()),
+                        k -> new DurationSketch()).add(build.getDurationMs());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((key, delta) -> {
+            repository.insertIfAbsent(key.jobName(), key.day(), EMPTY_SKETCH);
+            BuildDurationSketch row = repository.findForUpdate(key.jobName(), key.day())
+                    .orElseThrow(() -> new IllegalStateException("Sketch row missing for " + key));
+            DurationSketch sketch = DurationSketch.fromBytes(row.getSketch());
+            sketch.merge(delta);
+            row.setSketch(sketch.toBytes());
+            row.setBuildCount(sketch.getCount());
+            row.setUpdatedAt(now);
+            repository.save(row);
+        });
+    }
+
+    /**
+     * Duration percentiles per job over [from, to], merged from per-day sketches
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPercentiles(String jobName, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        List<BuildDurationSketch> rows = jobName != null
+                ? repository.findByJobAndDayRange(jobName, from, to)
+                : repository.findByDayRange(from, to);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("relativeAccuracy", DurationSketch.RELATIVE_ACCURACY);
+        result.put("jobs", summarize(rows));
+        return result;
+    }
+
+    /**
+     * Duration percentiles keyed by job over [from, to]
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Object>> getJobPercentiles(LocalDate from, LocalDate to) {
+        Map<String, Map<String, Object>> byJob = new TreeMap<>();
+        for (Map<String, Object> job : summarize(repository.findByDayRange(from, to))) {
+            byJob.put((String) job.remove("jobName"), job);
+        }
+        return byJob;
+    }
+
+    private static List<Map<String, Object>> summarize(List<BuildDurationSketch> rows) {
+        Map<String, DurationSketch> merged = new TreeMap<>();
+        for (BuildDurationSketch row : rows) {
+            merged.computeIfAbsent(row.getJobName(), k -> new DurationSketch())
+                    .merge(DurationSketch.fromBytes(row.getSketch()));
+        }
+
+        List<Map<String, Object>> jobs = new ArrayList<>(merged.size());
+        merged.forEach((job, sketch) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("jobName", job);
+            summary.put("count", sketch.getCount());
+            summary.put("p50", Math.round(sketch.quantile(0.50)));
+            summary.put("p90", Math.round(sketch.quantile(0.90)));
+            summary.put("p99", Math.round(sketch.quantile(0.99)));
+            summary.put("max", sketch.getMax());
+            jobs.add(summary);
+        });
+        return jobs;
+    }
+
+    /**
+     * Rebuild every sketch from the stored history when their total count
+     * differs from the number of finished builds: on first start, and again
+     * after a run that failed. The check and the rebuild run in one
+     * transaction that locks the table against writers, so a failed run
+     * leaves nothing behind and is retried on the next start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            Integer rebuilt = transactionTemplate.execute(status -> rebuildIfIncomplete());
+            if (rebuilt != null && rebuilt > 0) {
+                logger.info("Backfilled {} build duration sketches", rebuilt);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Build duration sketch backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private int rebuildIfIncomplete() {
+        jdbcTemplate.execute(LOCK_SQL);
+        Long sketched = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(build_count), 0) FROM build_duration_sketch", Long.class);
+        Long finished = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM build_history WHERE " + FINISHED_SQL, Long.class);
+        if (Objects.equals(sketched, finished)) {
+            return 0;
+        }
+
+        Map<Key, DurationSketch> sketches = new TreeMap<>(KEY_ORDER);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT job_name, timestamp, duration_ms FROM build_history WHERE " + FINISHED_SQL);
+            ps.setFetchSize(SCAN_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            LocalDate day = JdbcTimestamps.getTimestamp(rs, "timestamp").toLocalDate();
+            sketches.computeIfAbsent(new Key(rs.getString("job_name"), day), k -> new DurationSketch())
+                    .add(rs.getLong("duration_ms"));
+        });
+
+        jdbcTemplate.update("DELETE FROM build_duration_sketch");
+        LocalDateTime now = LocalDateTime.now();
+        List<BuildDurationSketch> rows = new ArrayList<>(sketches.size());
+        sketches.forEach((key, sketch) -> {
+            BuildDurationSketch row = new BuildDurationSketch();
+            row.setJobName(key.jobName());
+            row.setDay(key.day());
+            row.setSketch(sketch.toBytes());
+            row.setBuildCount(sketch.getCount());
+            row.setUpdatedAt(now);
+            rows.add(row);
+        });
+        repository.saveAll(rows);
+        return rows.size();
+    }
+}
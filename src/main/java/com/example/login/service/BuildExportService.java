@@ -0,0 +1,162 @@
+package com.example.login.service;
+
+import com.example.login.dto.BuildSummary;
+import com.example.login.repository.BuildHistoryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams build_history to an output stream as NDJSON or CSV.
+ *
+ * Rows come from a database cursor with a fixed fetch size as read-only
+ * projections and are written through a fixed-size buffer as they arrive,
+ * so memory use does not depend on how many builds are exported.
+ */
+@Service
+public class BuildExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported format '" + value + "', expected csv or ndjson");
+            }
+        }
+    }
+
+    private final BuildHistoryRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public BuildExportService(BuildHistoryRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write builds oldest first, all of them or those from the last {@code days}.
+     * The cursor stays open for the whole export, so this holds one read-only
+     * transaction until the last row is written.
+     *
+     * @return number of builds written
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, Integer days, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long written;
+        try (Stream<BuildSummary> builds = days != null
+                ? repository.streamSince(LocalDateTime.now().minusDays(days))
+                : repository.streamAll()) {
+            written = format == Format.CSV
+                    ? writeCsv(builds.iterator(), writer)
+                    : writeNdjson(builds.iterator(), writer);
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream compressed) {
+            compressed.finish();
+        }
+        return written;
+    }
+
+    private static long writeCsv(Iterator<BuildSummary> builds, Writer writer) throws IOException {
+        writer.write("jobName,buildNumber,status,durationMs,timestamp\n");
+        long count = 0;
+        while (builds.hasNext()) {
+            BuildSummary build = builds.next();
+            writer.write(csv(build.jobName()));
+            writer.write(',');
+            writer.write(build.buildNumber() != null ? build.buildNumber().toString() : "");
+            writer.write(',');
+            writer.write(csv(build.status()));
+            writer.write(',');
+            writer.write(build.durationMs() != null ? build.durationMs().toString() : "");
+            writer.write(',');
+            writer.write(build.timestamp() != null
+                    ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(build.timestamp()) : "");
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private long writeNdjson(Iterator<BuildSummary> builds, Writer writer) throws IOException {
+        long count = 0;
+        // Closing the generator must not close the response; lines, not spaces, separate the objects
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        while (builds.hasNext()) {
+            BuildSummary build = builds.next();
+            json.writeStartObject();
+            json.writeStringField("jobName", build.jobName());
+            if (build.buildNumber() != null) {
+                json.writeNumberField("buildNumber", build.buildNumber());
+            } else {
+                json.writeNullField("buildNumber");
+            }
+            json.writeStringField("status", build.status());
+            if (build.durationMs() != null) {
+                json.writeNumberField("durationMs", build.durationMs());
+            } else {
+                json.writeNullField("durationMs");
+            }
+            json.writeStringField("timestamp", build.timestamp() != null
+                    ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(build.timestamp()) : null);
+            json.writeEndObject();
+            json.writeRaw('\n');
+            count++;
+        }
+        json.close();
+        return count;
+    }
+
+    /**
+     * RFC 4180 field: quoted only when it contains a separator, quote or line break
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
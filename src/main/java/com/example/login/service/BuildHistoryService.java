@@ -1,91 +1,254 @@
 package com.example.login.service;
 
+import com.example.login.dto.BuildHistoryPage;
+import com.example.login.dto.BuildSummary;
+import com.example.login.entity.BuildAggregate;
 import com.example.login.entity.BuildHistory;
+import com.example.login.repository.BuildAggregateRepository;
+import com.example.login.repository.BuildHistoryBatchRepository;
 import com.example.login.repository.BuildHistoryRepository;
+import com.example.login.repository.BuildTrendRepository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class BuildHistoryService {
 
+    private static final int PERCENTILE_DAYS = 30;
+
     private final BuildHistoryRepository repository;
+    private final BuildAggregateRepository aggregateRepository;
+    private final BuildDurationSketchService durationSketchService;
 
-    public BuildHistoryService(BuildHistoryRepository repository) {
+    public BuildHistoryService(BuildHistoryRepository repository, BuildAggregateRepository aggregateRepository,
+            BuildDurationSketchService durationSketchService) {
         this.repository = repository;
+        this.aggregateRepository = aggregateRepository;
+        this.durationSketchService = durationSketchService;
     }
 
+    /**
+     * Insert or update one build through {@link #saveBuilds}, so the previous
+     * version is read under a row lock and concurrent requests saving the
+     * same build neither collide on the unique key nor count it twice
+     */
     @Transactional
     public BuildHistory saveBuild(String jobName, Integer buildNumber, String status, Long durationMs,
             LocalDateTime timestamp) {
-        // Check if build already exists
-        Optional<BuildHistory> existing = repository.findByJobNameAndBuildNumber(jobName, buildNumber);
-        if (existing.isPresent()) {
-            // Update existing build
-            BuildHistory build = existing.get();
-            build.setStatus(status);
-            build.setDurationMs(durationMs);
-            build.setTimestamp(timestamp);
-            return repository.save(build);
-        } else {
-            // Create new build
-            BuildHistory build = new BuildHistory(jobName, buildNumber, status, durationMs, timestamp);
-            return repository.save(build);
+        BuildHistory build = new BuildHistory(jobName, buildNumber, status, durationMs, timestamp);
+        saveBuilds(List.of(build));
+        return build;
+    }
+
+    /**
+     * Upsert a batch of builds keyed by (jobName, buildNumber). Aggregates and
+     * duration sketches are updated in the same transaction from the versions
+     * the upsert replaced; those are read under row locks, so writers saving
+     * the same build concurrently (ingestion, the jobs endpoint, the proxy)
+     * never count it twice.
+     *
+     * @return number of builds inserted or changed
+     */
+    @Transactional
+    public int saveBuilds(Collection<BuildHistory> builds) {
+        List<BuildHistoryBatchRepository.Change> changes = repository.upsertChanges(builds);
+
+        List<BuildHistory> removed = new ArrayList<>();
+        List<BuildHistory> added = new ArrayList<>();
+        // Builds are re-upserted on every poll, so only the first finish is sketched
+        List<BuildHistory> newlyFinished = new ArrayList<>();
+        for (BuildHistoryBatchRepository.Change change : changes) {
+            BuildHistory previous = change.previous();
+            BuildHistory build = change.current();
+            if (previous != null) {
+                removed.add(previous);
+            }
+            added.add(build);
+            if (BuildDurationSketchService.isFinished(build)
+                    && (previous == null || !BuildDurationSketchService.isFinished(previous))) {
+                newlyFinished.add(build);
+            }
+        }
+        aggregateRepository.applyChanges(removed, added);
+        durationSketchService.record(newlyFinished);
+        return changes.size();
+    }
+
+    /**
+     * Build number per job up to which history is complete and final, used to
+     * resume ingestion
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getIngestedBuildNumbers() {
+        Map<String, Integer> ingested = new HashMap<>();
+        for (Object[] row : repository.getIngestedBuildNumberByJob()) {
+            ingested.put((String) row[0], ((Number) row[1]).intValue());
         }
+        return ingested;
     }
 
-    public List<BuildHistory> getRecentBuilds(int limit) {
+    @Transactional(readOnly = true)
+    public List<BuildSummary> getRecentBuilds(int limit) {
         return repository.findRecentBuilds(PageRequest.of(0, limit));
     }
 
-    public List<BuildHistory> getBuildsByJob(String jobName) {
+    @Transactional(readOnly = true)
+    public List<BuildSummary> getBuildsByJob(String jobName) {
         return repository.findByJobNameOrderByBuildNumberDesc(jobName);
     }
 
+    /**
+     * Build statistics from the per-job aggregates; cost grows with the number
+     * of jobs, not with the size of the history
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        // Get status statistics
-        List<Object[]> statusStats = repository.getStatusStatistics();
         Map<String, Long> statusMap = new HashMap<>();
+        Map<String, long[]> durationTotals = new HashMap<>();
+        Map<String, Map<String, Object>> lastBuildMap = new TreeMap<>();
         long totalBuilds = 0;
-        long successBuilds = 0;
-
-        for (Object[] stat : statusStats) {
-            String status = (String) stat[0];
-            Long count = (Long) stat[1];
-            statusMap.put(status, count);
-            totalBuilds += count;
-            if ("SUCCESS".equals(status)) {
-                successBuilds = count;
+
+        for (BuildAggregate aggregate : aggregateRepository.findNonEmpty()) {
+            statusMap.merge(aggregate.getStatus(), aggregate.getBuildCount(), Long::sum);
+            totalBuilds += aggregate.getBuildCount();
+
+            long[] totals = durationTotals.computeIfAbsent(aggregate.getJobName(), k -> new long[2]);
+            totals[0] += aggregate.getDurationSum();
+            totals[1] += aggregate.getDurationCount();
+
+            Map<String, Object> last = lastBuildMap.get(aggregate.getJobName());
+            if (aggregate.getLastBuildNumber() != null
+                    && (last == null || aggregate.getLastBuildNumber() > (Integer) last.get("number"))) {
+                last = new LinkedHashMap<>();
+                last.put("number", aggregate.getLastBuildNumber());
+                last.put("status", aggregate.getStatus());
+                last.put("timestamp", aggregate.getLastBuildAt());
+                lastBuildMap.put(aggregate.getJobName(), last);
             }
         }
+        long successBuilds = statusMap.getOrDefault("SUCCESS", 0L);
 
         stats.put("statusBreakdown", statusMap);
         stats.put("totalBuilds", totalBuilds);
         stats.put("successRate", totalBuilds > 0 ? (double) successBuilds / totalBuilds * 100 : 0);
 
-        // Get average duration by job
-        List<Object[]> durationStats = repository.getAverageDurationByJob();
+        // Average build duration by job
         Map<String, Double> durationMap = new HashMap<>();
-        for (Object[] stat : durationStats) {
-            String jobName = (String) stat[0];
-            Double avgDuration = (Double) stat[1];
-            durationMap.put(jobName, avgDuration / 1000); // Convert to seconds
-        }
+        durationTotals.forEach((jobName, totals) -> {
+            if (totals[1] > 0) {
+                durationMap.put(jobName, (double) totals[0] / totals[1] / 1000); // Convert to seconds
+            }
+        });
         stats.put("averageDurationByJob", durationMap);
+        stats.put("lastBuildByJob", lastBuildMap);
+
+        // Percentiles are robust to a single hung build, unlike the average
+        LocalDate today = LocalDate.now();
+        stats.put("durationPercentilesByJob",
+                durationSketchService.getJobPercentiles(today.minusDays(PERCENTILE_DAYS), today));
 
         return stats;
     }
 
-    public List<BuildHistory> getBuildsFromLastDays(int days) {
+    /**
+     * Dashboard statistics from the local store, in the same shape as the
+     * Jenkins-derived statistics (counts per result plus recent builds)
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboardStatistics(int recentLimit) {
+        Map<String, Object> stats = getStatistics();
+        Map<String, Long> breakdown = (Map<String, Long>) stats.get("statusBreakdown");
+        stats.put("successBuilds", breakdown.getOrDefault("SUCCESS", 0L));
+        stats.put("failureBuilds", breakdown.getOrDefault("FAILURE", 0L));
+        stats.put("unstableBuilds", breakdown.getOrDefault("UNSTABLE", 0L));
+
+        List<Map<String, Object>> recentBuilds = new ArrayList<>();
+        for (BuildSummary build : getRecentBuilds(recentLimit)) {
+            Map<String, Object> buildInfo = new HashMap<>();
+            buildInfo.put("jobName", build.jobName());
+            buildInfo.put("number", build.buildNumber());
+            buildInfo.put("result", build.status());
+            buildInfo.put("duration", build.durationMs());
+            buildInfo.put("timestamp", build.timestamp() != null
+                    ? build.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : null);
+            recentBuilds.add(buildInfo);
+        }
+        stats.put("recentBuilds", recentBuilds);
+        return stats;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BuildSummary> getBuildsFromLastDays(int days) {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         return repository.findRecentBuilds(since);
     }
+
+    /**
+     * One page of builds from the last N days, newest first. Pass the previous
+     * page's cursor to continue; a null cursor starts at the newest build.
+     */
+    @Transactional(readOnly = true)
+    public BuildHistoryPage getBuildPage(int days, String cursor, int pageSize) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        // One extra row tells us whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<BuildSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findPageSince(since, limit);
+        } else {
+            BuildHistoryPage.Cursor position = BuildHistoryPage.Cursor.decode(cursor);
+            rows = repository.findPageSinceAfter(since, position.timestamp(), position.id(), limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new BuildHistoryPage(rows, null);
+        }
+        List<BuildSummary> page = rows.subList(0, pageSize);
+        return new BuildHistoryPage(page, BuildHistoryPage.Cursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Build counts per time bucket over the last N days, aggregated in the
+     * database. Job and status filters are optional.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getBuildTrends(int days, BuildTrendRepository.Bucket bucket,
+            String jobName, String status) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        List<BuildTrendRepository.TrendRow> rows = repository.aggregateTrends(bucket, since,
+                jobName == null || jobName.isBlank() ? null : jobName,
+                status == null || status.isBlank() ? null : status);
+
+        Map<String, Long> counts = new TreeMap<>();
+        long total = 0;
+        for (BuildTrendRepository.TrendRow row : rows) {
+            counts.merge(row.bucket().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), row.count(), Long::sum);
+            total += row.count();
+        }
+
+        Map<String, Object> trends = new HashMap<>();
+        trends.put("bucket", bucket.field());
+        trends.put("since", since);
+        trends.put("totalBuilds", total);
+        trends.put("counts", counts);
+        trends.put("rows", rows);
+        return trends;
+    }
 }
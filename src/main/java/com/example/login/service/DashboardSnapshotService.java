@@ -0,0 +1,172 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.metrics.MetricsSeries;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Materialized dashboard summary.
+ *
+ * The summary is rebuilt only when one of its inputs moves (new ingested
+ * builds, a new metrics sample) or the snapshot reaches its maximum age, and is
+ * kept as serialized JSON bytes with a strong ETag over those bytes. Serving an
+ * unchanged dashboard is then a version check and, for conditional requests,
+ * an ETag comparison.
+ */
+@Service
+public class DashboardSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    private static final int RECENT_BUILD_LIMIT = 10;
+    private static final int STATISTICS_HOURS = 24;
+    private static final int RECENT_METRICS_HOURS = 1;
+
+    private final JenkinsApiService jenkinsApiService;
+    private final JenkinsIngestionService ingestionService;
+    private final SystemMetricsService systemMetricsService;
+    private final PrometheusMetricsCollector metricsCollector;
+    private final RecentMetricsService recentMetricsService;
+    private final ObjectMapper objectMapper;
+    private final long maxAgeMs;
+
+    private volatile Snapshot current;
+
+    /**
+     * A serialized summary together with the input versions it was built from
+     */
+    public record Snapshot(byte[] body, String etag, InputVersion inputs, long builtAt) {
+    }
+
+    record InputVersion(long ingestedBuilds, long lastIngestion, LocalDateTime lastSample) {
+    }
+
+    public DashboardSnapshotService(JenkinsApiService jenkinsApiService,
+            JenkinsIngestionService ingestionService,
+            SystemMetricsService systemMetricsService,
+            PrometheusMetricsCollector metricsCollector,
+            RecentMetricsService recentMetricsService,
+            ObjectMapper objectMapper,
+            @Value("${dashboard.snapshot.max-age-ms:30000}") long maxAgeMs) {
+        this.jenkinsApiService = jenkinsApiService;
+        this.ingestionService = ingestionService;
+        this.systemMetricsService = systemMetricsService;
+        this.metricsCollector = metricsCollector;
+        this.recentMetricsService = recentMetricsService;
+        this.objectMapper = objectMapper;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Get the current snapshot, rebuilding it first if its inputs have changed
+     */
+    public Snapshot getSnapshot() {
+        Snapshot snapshot = current;
+        InputVersion inputs = currentInputs();
+        if (isFresh(snapshot, inputs)) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            // Another request may have rebuilt it while we waited
+            snapshot = current;
+            if (isFresh(snapshot, inputs)) {
+                return snapshot;
+            }
+            try {
+                current = build(inputs, snapshot);
+            } catch (RuntimeException e) {
+                if (snapshot == null) {
+                    throw e;
+                }
+                logger.warn("Dashboard snapshot rebuild failed, serving previous version: {}", e.getMessage());
+            }
+            return current;
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot, InputVersion inputs) {
+        return snapshot != null
+                && snapshot.inputs().equals(inputs)
+                && System.currentTimeMillis() - snapshot.builtAt() < maxAgeMs;
+    }
+
+    private InputVersion currentInputs() {
+        SystemMetrics latest = metricsCollector.getCurrentMetrics();
+        return new InputVersion(ingestionService.getIngestedBuilds(), ingestionService.getLastSuccessfulRun(),
+                latest != null ? latest.getRecordedAt() : null);
+    }
+
+    private Snapshot build(InputVersion inputs, Snapshot previous) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        Map<String, Object> buildStats = jenkinsApiService.getBuildStatistics();
+        summary.put("buildStatistics", buildStats);
+        summary.put("recentBuilds", JenkinsApiService.recentBuilds(buildStats, RECENT_BUILD_LIMIT));
+        summary.put("metricsStatistics", systemMetricsService.getMetricsStatistics(STATISTICS_HOURS));
+        MetricsSeries recentMetrics = recentMetricsService.getHistory(RECENT_METRICS_HOURS);
+        // Same point shape from either source, so the payload and its ETag do not depend on uptime
+        summary.put("recentMetrics", recentMetrics != null
+                ? recentMetrics.toPoints()
+                : systemMetricsService.getMetricsFromLastHours(RECENT_METRICS_HOURS));
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(summary);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize dashboard summary", e);
+        }
+
+        String etag = etag(body);
+        long now = System.currentTimeMillis();
+        if (previous != null && previous.etag().equals(etag)) {
+            // Same content: keep the old bytes, just record the new input versions
+            return new Snapshot(previous.body(), etag, inputs, now);
+        }
+        return new Snapshot(body, etag, inputs, now);
+    }
+
+    /**
+     * Strong ETag: SHA-256 of the serialized body
+     */
+    static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * True if an If-None-Match header lists the given ETag (or "*")
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || Objects.equals(tag, etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
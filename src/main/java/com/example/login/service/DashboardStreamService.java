@@ -0,0 +1,264 @@
+package com.example.login.service;
+
+import com.example.login.metrics.EndpointLatencies;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes dashboard data to browsers over Server-Sent Events.
+ *
+ * One snapshot is computed per tick no matter how many tabs are open. A new
+ * subscriber gets a full "snapshot" event; after that it only receives "delta"
+ * events with the sections that changed. Sends run on a small bounded pool and
+ * each subscriber has at most one send in flight. A subscriber that was still
+ * busy when a frame was published misses that delta and is sent the latest
+ * full snapshot once it catches up, so slow clients never queue up frames.
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    static final String REALTIME = "realtime";
+    static final String BUILD_STATISTICS = "buildStatistics";
+    static final String RECENT_BUILDS = "recentBuilds";
+    static final String HTTP_LATENCY = "httpLatency";
+
+    private static final int RECENT_BUILD_LIMIT = 20;
+
+    private final PrometheusMetricsCollector metricsCollector;
+    private final JenkinsApiService jenkinsApiService;
+    private final EndpointLatencies endpointLatencies;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private final ThreadPoolExecutor sendExecutor;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter snapshotsSent;
+    private final Counter deltasSent;
+    private final Counter skippedSends;
+
+    private volatile Frame current;
+
+    /**
+     * One published state of the dashboard. Sections are kept as serialized
+     * JSON so change detection and fan-out never serialize twice.
+     */
+    record Frame(long seq, Map<String, String> sections, String snapshotJson, String deltaJson) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile long lastSeq = -1;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    public DashboardStreamService(PrometheusMetricsCollector metricsCollector,
+            JenkinsApiService jenkinsApiService,
+            EndpointLatencies endpointLatencies,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${dashboard.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${dashboard.stream.max-subscribers:200}") int maxSubscribers,
+            @Value("${dashboard.stream.send-threads:2}") int sendThreads) {
+        this.metricsCollector = metricsCollector;
+        this.jenkinsApiService = jenkinsApiService;
+        this.endpointLatencies = endpointLatencies;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSubscribers)), r -> {
+                    Thread t = new Thread(r, "dashboard-stream-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        Gauge.builder("dashboard.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.snapshotsSent = Counter.builder("dashboard.stream.frames").tag("type", "snapshot")
+                .register(meterRegistry);
+        this.deltasSent = Counter.builder("dashboard.stream.frames").tag("type", "delta")
+                .register(meterRegistry);
+        this.skippedSends = Counter.builder("dashboard.stream.skipped").register(meterRegistry);
+    }
+
+    /**
+     * Register a new browser connection, or return null when the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        if (current == null) {
+            publish();
+        }
+        dispatch(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Compute one snapshot for all subscribers and push it out
+     */
+    @Scheduled(fixedDelayString = "${dashboard.stream.interval-ms:5000}",
+            initialDelayString = "${dashboard.stream.interval-ms:5000}")
+    public void tick() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        publish();
+        subscribers.forEach(this::dispatch);
+    }
+
+    /**
+     * Recompute every section and publish a new frame if anything changed
+     */
+    synchronized Frame publish() {
+        Frame previous = current;
+        Map<String, String> sections = new LinkedHashMap<>();
+        section(sections, previous, REALTIME, metricsCollector::getCurrentMetrics);
+        section(sections, previous, BUILD_STATISTICS, jenkinsApiService::getBuildStatistics);
+        section(sections, previous, RECENT_BUILDS, () -> jenkinsApiService.getRecentBuilds(RECENT_BUILD_LIMIT));
+        section(sections, previous, HTTP_LATENCY, endpointLatencies::snapshot);
+
+        if (previous == null) {
+            current = new Frame(0, sections, frameJson(0, "sections", sections), null);
+            return current;
+        }
+
+        Map<String, String> changed = new LinkedHashMap<>();
+        sections.forEach((name, json) -> {
+            if (!Objects.equals(json, previous.sections().get(name))) {
+                changed.put(name, json);
+            }
+        });
+        if (changed.isEmpty()) {
+            return previous;
+        }
+
+        long seq = previous.seq() + 1;
+        current = new Frame(seq, sections, frameJson(seq, "sections", sections), frameJson(seq, "changed", changed));
+        return current;
+    }
+
+    private void section(Map<String, String> sections, Frame previous, String name, Supplier<Object> source) {
+        try {
+            sections.put(name, objectMapper.writeValueAsString(source.get()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Keep showing the last good value rather than blanking the panel
+            logger.warn("Dashboard section '{}' failed: {}", name, e.getMessage());
+            String last = previous != null ? previous.sections().get(name) : null;
+            sections.put(name, last != null ? last : "null");
+        }
+    }
+
+    /**
+     * Sections are already JSON, so the frame is assembled without re-serializing them
+     */
+    private static String frameJson(long seq, String field, Map<String, String> sections) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"seq\":").append(seq).append(",\"").append(field).append("\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> section : sections.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            json.append('"').append(section.getKey()).append("\":").append(section.getValue());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Queue a send unless this subscriber still has one in flight
+     */
+    private void dispatch(Subscriber subscriber) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            skippedSends.increment();
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> send(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+            skippedSends.increment();
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            Frame frame = current;
+            if (frame.seq() == subscriber.lastSeq) {
+                // Nothing new - a comment keeps proxies from closing the idle connection
+                subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+            } else if (frame.deltaJson() != null && frame.seq() == subscriber.lastSeq + 1) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name("delta").id(Long.toString(frame.seq()))
+                        .data(frame.deltaJson(), MediaType.APPLICATION_JSON));
+                deltasSent.increment();
+            } else {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name("snapshot").id(Long.toString(frame.seq()))
+                        .data(frame.snapshotJson(), MediaType.APPLICATION_JSON));
+                snapshotsSent.increment();
+            }
+            subscriber.lastSeq = frame.seq();
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping dashboard subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        sendExecutor.shutdownNow();
+    }
+}
@@ -1,14 +1,16 @@
 package com.example.login.service;
 
+import com.example.login.cache.StaleWhileRevalidateCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import jakarta.annotation.PostConstruct;
-import java.nio.charset.StandardCharsets;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -16,102 +18,70 @@ public class JenkinsApiService {
 
     private static final Logger logger = LoggerFactory.getLogger(JenkinsApiService.class);
 
-    // Try multiple URLs for Jenkins connectivity
-    private static final String[] JENKINS_URLS = {
-            "http://host.docker.internal:8080", // Docker Desktop (Windows/Mac)
-            "http://172.17.0.1:8080", // Docker bridge network
-            "http://localhost:8080", // Local fallback
-            "http://host.minikube.internal:8080" // Minikube
+    private static final String JSON = "application/json";
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {
     };
-
-    @Value("${jenkins.url:}")
-    private String configuredJenkinsUrl;
-
-    @Value("${jenkins.user:root}")
-    private String jenkinsUser;
-
-    @Value("${jenkins.token:11372fa14838785c20bdd8ef361a974e9d}")
-    private String jenkinsToken;
-
-    private final RestTemplate restTemplate;
-    private String workingJenkinsUrl = null;
-
-    // Cached data for when Jenkins is unreachable
-    private Map<String, Object> cachedStats = new HashMap<>();
-    private long lastSuccessfulFetch = 0;
-
-    public JenkinsApiService() {
-        this.restTemplate = new RestTemplate();
-        // Set shorter timeouts
-        // Note: For production, use RestTemplateBuilder with proper timeout config
-    }
-
-    @PostConstruct
-    public void init() {
-        logger.info("Initializing JenkinsApiService...");
-        findWorkingJenkinsUrl();
+    private static final String STATS_KEY = "buildStatistics";
+
+    private final JenkinsClient jenkinsClient;
+    private final JenkinsUrlDiscovery discovery;
+    private final JenkinsIngestionService ingestionService;
+    private final BuildHistoryService buildHistoryService;
+    private final ObjectMapper objectMapper;
+
+    // Shared across request threads; one refresh at a time, stale values served meanwhile
+    private final StaleWhileRevalidateCache<String, Map<String, Object>> statsCache;
+
+    // Last Jenkins crawl result, kept for when Jenkins is unreachable
+    private volatile Map<String, Object> cachedStats = Collections.emptyMap();
+    private volatile long lastSuccessfulFetch = 0;
+
+    public JenkinsApiService(JenkinsClient jenkinsClient, JenkinsUrlDiscovery discovery,
+            JenkinsIngestionService ingestionService, BuildHistoryService buildHistoryService,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${analytics.cache.build-stats.ttl-ms:15000}") long ttlMs,
+            @Value("${analytics.cache.build-stats.stale-ms:300000}") long staleMs) {
+        this.jenkinsClient = jenkinsClient;
+        this.discovery = discovery;
+        this.ingestionService = ingestionService;
+        this.buildHistoryService = buildHistoryService;
+        this.objectMapper = objectMapper;
+        this.statsCache = new StaleWhileRevalidateCache<>("build-statistics",
+                Duration.ofMillis(ttlMs), Duration.ofMillis(staleMs), meterRegistry);
     }
 
     /**
-     * Find a working Jenkins URL by testing each one
+     * Get build statistics - with robust fallback.
+     * The returned map is shared between callers and must not be modified.
      */
-    private void findWorkingJenkinsUrl() {
-        // First try configured URL
-        if (configuredJenkinsUrl != null && !configuredJenkinsUrl.isEmpty()) {
-            if (testJenkinsConnection(configuredJenkinsUrl)) {
-                workingJenkinsUrl = configuredJenkinsUrl;
-                logger.info("Using configured Jenkins URL: {}", workingJenkinsUrl);
-                return;
-            }
-        }
-
-        // Try each URL
-        for (String url : JENKINS_URLS) {
-            if (testJenkinsConnection(url)) {
-                workingJenkinsUrl = url;
-                logger.info("Found working Jenkins URL: {}", workingJenkinsUrl);
-                return;
-            }
-        }
-
-        logger.warn("No working Jenkins URL found. Dashboard will show simulated data.");
+    public Map<String, Object> getBuildStatistics() {
+        return statsCache.get(STATS_KEY, this::loadBuildStatistics);
     }
 
-    private boolean testJenkinsConnection(String url) {
-        try {
-            HttpHeaders headers = createAuthHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url + "/api/json",
-                    HttpMethod.GET,
-                    entity,
-                    String.class);
-
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            logger.debug("Jenkins URL {} not accessible: {}", url, e.getMessage());
-            return false;
+    private Map<String, Object> loadBuildStatistics() {
+        // Prefer the local store once the ingestion pipeline is keeping it current
+        if (ingestionService.hasIngested()) {
+            Map<String, Object> stats = buildHistoryService.getDashboardStatistics(20);
+            if (((Number) stats.getOrDefault("totalBuilds", 0L)).longValue() > 0) {
+                lastSuccessfulFetch = ingestionService.getLastSuccessfulRun();
+                return Collections.unmodifiableMap(stats);
+            }
         }
-    }
 
-    /**
-     * Get build statistics - with robust fallback
-     */
-    public Map<String, Object> getBuildStatistics() {
-        // Try to fetch from Jenkins
+        // Otherwise crawl Jenkins directly
+        String workingJenkinsUrl = discovery.getWorkingUrl();
         if (workingJenkinsUrl != null) {
             try {
-                Map<String, Object> stats = fetchBuildStatsFromJenkins();
+                Map<String, Object> stats = fetchBuildStatsFromJenkins(workingJenkinsUrl);
                 if (stats != null && !stats.isEmpty() && (Integer) stats.getOrDefault("totalBuilds", 0) > 0) {
-                    cachedStats = stats;
+                    cachedStats = Collections.unmodifiableMap(stats);
                     lastSuccessfulFetch = System.currentTimeMillis();
-                    return stats;
+                    return cachedStats;
                 }
             } catch (Exception e) {
                 logger.warn("Failed to fetch stats from Jenkins: {}", e.getMessage());
-                // Try to reconnect
-                findWorkingJenkinsUrl();
+                // Re-discover in the background; rate-limited so failures don't re-probe on every request
+                discovery.requestRediscovery();
             }
         }
 
@@ -121,21 +91,18 @@ public class JenkinsApiService {
         }
 
         // Return demo data for presentation
-        return generateDemoStats();
+        return Collections.unmodifiableMap(generateDemoStats());
     }
 
     /**
      * Fetch real stats from Jenkins
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> fetchBuildStatsFromJenkins() {
+    private Map<String, Object> fetchBuildStatsFromJenkins(String workingJenkinsUrl) throws Exception {
         String url = workingJenkinsUrl + "/api/json?tree=jobs[name,builds[number,result,duration,timestamp]{0,50}]";
 
-        HttpHeaders headers = createAuthHeaders();
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        ResponseEntity<Map<String, Object>> response = (ResponseEntity<Map<String, Object>>) (ResponseEntity<?>) restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-        Map<String, Object> data = response.getBody();
+        String body = jenkinsClient.getUrl(url, JSON).join();
+        Map<String, Object> data = objectMapper.readValue(body, JSON_MAP);
 
         if (data == null || !data.containsKey("jobs")) {
             return Collections.emptyMap();
@@ -261,9 +228,15 @@ public class JenkinsApiService {
     /**
      * Get recent builds
      */
-    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> getRecentBuilds(int limit) {
-        Map<String, Object> stats = getBuildStatistics();
+        return recentBuilds(getBuildStatistics(), limit);
+    }
+
+    /**
+     * Extract recent builds from an already fetched statistics map
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> recentBuilds(Map<String, Object> stats, int limit) {
         List<Map<String, Object>> builds = (List<Map<String, Object>>) stats.get("recentBuilds");
 
         if (builds != null && !builds.isEmpty()) {
@@ -273,20 +246,16 @@ public class JenkinsApiService {
         return new ArrayList<>();
     }
 
-    private HttpHeaders createAuthHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        String auth = jenkinsUser + ":" + jenkinsToken;
-        byte[] encodedAuth = Base64.getEncoder().encode(auth.getBytes(StandardCharsets.UTF_8));
-        headers.set("Authorization", "Basic " + new String(encodedAuth));
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        return headers;
+    @PreDestroy
+    public void shutdown() {
+        statsCache.shutdown();
     }
 
     /**
      * Check if Jenkins is connected
      */
     public boolean isConnected() {
-        return workingJenkinsUrl != null;
+        return discovery.isConnected();
     }
 
     /**
@@ -295,9 +264,10 @@ public class JenkinsApiService {
     public Map<String, Object> getConnectionStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("connected", isConnected());
-        status.put("url", workingJenkinsUrl != null ? workingJenkinsUrl : "Not connected");
+        status.put("url", isConnected() ? discovery.getWorkingUrl() : "Not connected");
         status.put("lastFetch", lastSuccessfulFetch > 0 ? new Date(lastSuccessfulFetch).toString() : "Never");
-        status.put("usingDemoData", !isConnected() || cachedStats.isEmpty());
+        status.put("usingDemoData", !isConnected() || (cachedStats.isEmpty() && !ingestionService.hasIngested()));
+        status.put("ingestedBuilds", ingestionService.getIngestedBuilds());
         return status;
     }
 }
@@ -0,0 +1,249 @@
+package com.example.login.service;
+
+import com.example.login.exception.JenkinsApiException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared asynchronous HTTP client for all Jenkins traffic.
+ *
+ * Wraps a single JDK {@link HttpClient} so connections are pooled and kept
+ * alive across requests, applies connect/read timeouts, and reuses one
+ * pre-encoded Basic auth header. Every call returns a
+ * {@link CompletableFuture} and never blocks the caller's thread.
+ */
+@Component
+public class JenkinsClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsClient.class);
+
+    private static final int ERROR_BODY_LIMIT = 8192;
+
+    // Streams 2xx bodies; error bodies are small, so they are read in full by the client
+    // and handed over in memory, keeping the blocking read off the client's executor
+    private static final HttpResponse.BodyHandler<InputStream> STREAM_OR_BUFFER_ERROR = info ->
+            info.statusCode() / 100 == 2
+                    ? HttpResponse.BodySubscribers.ofInputStream()
+                    : HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                            ByteArrayInputStream::new);
+
+    private final String baseUrl;
+    // Reachable URL found by JenkinsUrlDiscovery; null until then, or when nothing answered
+    private volatile String discoveredUrl;
+    private final String authHeader;
+    private final Duration readTimeout;
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor executor;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public JenkinsClient(@Value("${jenkins.url:}") String baseUrl,
+            @Value("${jenkins.user:admin}") String user,
+            @Value("${jenkins.token:}") String token,
+            @Value("${jenkins.client.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${jenkins.client.read-timeout-ms:15000}") long readTimeoutMs,
+            @Value("${jenkins.client.threads:8}") int threads,
+            @Value("${jenkins.client.http-version:HTTP_1_1}") HttpClient.Version httpVersion,
+            MeterRegistry meterRegistry) {
+        this.baseUrl = stripTrailingSlash(baseUrl);
+        this.authHeader = "Basic " + Base64.getEncoder()
+                .encodeToString((user + ":" + token).getBytes(StandardCharsets.UTF_8));
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "jenkins-http-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        // HTTP/2 is negotiated via ALPN for https Jenkins; plain http stays on
+        // pooled HTTP/1.1 keep-alive connections unless explicitly configured
+        this.httpClient = HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+
+        registerPoolMetrics();
+        logger.info("Jenkins client ready (version={}, connectTimeout={}ms, readTimeout={}ms, threads={})",
+                httpVersion, connectTimeoutMs, readTimeoutMs, threads);
+    }
+
+    /**
+     * Base URL configured via {@code jenkins.url}
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Base URL relative paths are resolved against: the one discovery found
+     * reachable, falling back to {@code jenkins.url}
+     */
+    public String getEffectiveBaseUrl() {
+        String discovered = discoveredUrl;
+        return discovered != null ? discovered : baseUrl;
+    }
+
+    /**
+     * Called by {@link JenkinsUrlDiscovery} after each round; null falls back to {@code jenkins.url}
+     */
+    public void useDiscoveredUrl(String url) {
+        this.discoveredUrl = url != null ? stripTrailingSlash(url) : null;
+    }
+
+    /**
+     * GET a path relative to the effective Jenkins URL
+     */
+    public CompletableFuture<String> get(String path, String accept) {
+        return getUrl(getEffectiveBaseUrl() + path, accept);
+    }
+
+    /**
+     * GET an absolute URL and return the body as a string.
+     * Completes exceptionally with {@link JenkinsApiException} on non-2xx responses.
+     */
+    public CompletableFuture<String> getUrl(String url, String accept) {
+        CompletableFuture<HttpResponse<String>> exchange = send(newRequest(url, accept),
+                HttpResponse.BodyHandlers.ofString());
+        return propagateCancel(exchange, exchange.thenApply(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new JenkinsApiException(response.statusCode(), response.body(), url);
+            }
+            return response.body();
+        }));
+    }
+
+    /**
+     * GET a path relative to the effective Jenkins URL without buffering the body.
+     * The caller owns the returned stream and must close it. Non-2xx responses
+     * complete exceptionally with {@link JenkinsApiException}.
+     */
+    public CompletableFuture<HttpResponse<InputStream>> stream(String path, String accept) {
+        String url = getEffectiveBaseUrl() + path;
+        CompletableFuture<HttpResponse<InputStream>> exchange = send(newRequest(url, accept), STREAM_OR_BUFFER_ERROR);
+        return propagateCancel(exchange, exchange.thenApply(response -> {
+            if (response.statusCode() / 100 != 2) {
+                String body;
+                try (InputStream in = response.body()) {
+                    body = new String(in.readNBytes(ERROR_BODY_LIMIT), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    body = "";
+                }
+                throw new JenkinsApiException(response.statusCode(), body, url);
+            }
+            return response;
+        }));
+    }
+
+    /**
+     * Cancelling a dependent stage does not reach the HTTP exchange on its own,
+     * so forward it to let callers abort in-flight requests.
+     */
+    private static <T> CompletableFuture<T> propagateCancel(CompletableFuture<?> source,
+            CompletableFuture<T> derived) {
+        derived.whenComplete((result, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    private HttpRequest newRequest(String url, String accept) {
+        return HttpRequest.newBuilder(toUri(url))
+                .timeout(readTimeout)
+                .header("Authorization", authHeader)
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        inFlight.incrementAndGet();
+
+        CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(request, handler);
+        exchange.whenComplete((response, error) -> {
+            inFlight.decrementAndGet();
+            String outcome = error != null ? "ERROR" : String.valueOf(response.statusCode() / 100) + "xx";
+            sample.stop(meterRegistry.timer("jenkins.client.requests", "outcome", outcome));
+            if (error != null) {
+                logger.debug("Jenkins request {} failed: {}", request.uri(), error.getMessage());
+            }
+        });
+        return exchange;
+    }
+
+    private void registerPoolMetrics() {
+        Gauge.builder("jenkins.client.inflight", inFlight, AtomicInteger::get)
+                .description("Jenkins requests currently awaiting a response")
+                .register(meterRegistry);
+        Gauge.builder("jenkins.client.pool.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Jenkins client threads currently handling responses")
+                .register(meterRegistry);
+        Gauge.builder("jenkins.client.pool.size", executor, ThreadPoolExecutor::getPoolSize)
+                .description("Jenkins client threads currently alive")
+                .register(meterRegistry);
+        Gauge.builder("jenkins.client.pool.queued", executor, e -> e.getQueue().size())
+                .description("Jenkins client tasks waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Jenkins tree queries use brackets and braces, which java.net.URI rejects
+     * unescaped; percent-encode those (and spaces) before building the request.
+     */
+    static URI toUri(String url) {
+        StringBuilder encoded = new StringBuilder(url.length() + 16);
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '[' || c == ']' || c == '{' || c == '}' || c == ' ' || c == '|') {
+                encoded.append('%').append(String.format("%02X", (int) c));
+            } else {
+                encoded.append(c);
+            }
+        }
+        return URI.create(encoded.toString());
+    }
+
+    private static String stripTrailingSlash(String url) {
+        if (url == null) {
+            return "";
+        }
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
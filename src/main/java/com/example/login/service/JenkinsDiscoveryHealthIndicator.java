@@ -0,0 +1,39 @@
+package com.example.login.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Reports Jenkins URL discovery on the readiness probe.
+ *
+ * The pod is held out of service only until the first discovery round
+ * finishes; an unreachable Jenkins is reported in the details but still UP
+ * because the dashboard falls back to stored and demo data.
+ */
+@Component
+public class JenkinsDiscoveryHealthIndicator implements HealthIndicator {
+
+    private final JenkinsUrlDiscovery discovery;
+
+    public JenkinsDiscoveryHealthIndicator(JenkinsUrlDiscovery discovery) {
+        this.discovery = discovery;
+    }
+
+    @Override
+    public Health health() {
+        JenkinsUrlDiscovery.State state = discovery.getState();
+        Health.Builder builder = state == JenkinsUrlDiscovery.State.PENDING
+                ? Health.outOfService()
+                : Health.up();
+
+        builder.withDetail("discovery", state.name());
+        builder.withDetail("url", discovery.isConnected() ? discovery.getWorkingUrl() : "Not connected");
+        if (discovery.getLastCompleted() > 0) {
+            builder.withDetail("lastDiscovery", new Date(discovery.getLastCompleted()).toString());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.login.service;
+
+import com.example.login.entity.BuildHistory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incrementally copies Jenkins builds into build_history.
+ *
+ * Keeps a high-water mark (last fully ingested build number) per job, asks
+ * Jenkins only for jobs whose last build moved past it, and upserts the new
+ * builds in batches. Builds still running hold the mark back so they are
+ * picked up again once they finish. After a restart the marks are seeded
+ * from the end of each job's gap-free stored range, below any build still
+ * stored as running, since the proxy and the jobs endpoint also save builds.
+ *
+ * Builds are requested newest first, {@code max-builds-per-job} at a time.
+ * A known job pages back until it reaches its mark, so a burst of builds
+ * between two polls is not lost; a job seen for the first time is imported
+ * from its newest page only.
+ */
+@Service
+public class JenkinsIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsIngestionService.class);
+
+    private static final String JSON = "application/json";
+
+    private final JenkinsClient jenkinsClient;
+    private final JenkinsUrlDiscovery discovery;
+    private final BuildHistoryService buildHistoryService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jenkins.ingestion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${jenkins.ingestion.max-builds-per-job:100}")
+    private int maxBuildsPerJob;
+
+    private final Map<String, Integer> highWaterMarks = new ConcurrentHashMap<>();
+    private volatile boolean seeded = false;
+    private volatile long lastSuccessfulRun = 0;
+    private final AtomicLong ingestedBuilds = new AtomicLong();
+
+    public JenkinsIngestionService(JenkinsClient jenkinsClient, JenkinsUrlDiscovery discovery,
+            BuildHistoryService buildHistoryService, ObjectMapper objectMapper) {
+        this.jenkinsClient = jenkinsClient;
+        this.discovery = discovery;
+        this.buildHistoryService = buildHistoryService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Scheduled(fixedDelayString = "${jenkins.ingestion.interval-ms:30000}",
+            initialDelayString = "${jenkins.ingestion.initial-delay-ms:10000}")
+    public void ingest() {
+        String baseUrl = discovery.getWorkingUrl();
+        if (baseUrl == null) {
+            return;
+        }
+
+        try {
+            if (!seeded) {
+                highWaterMarks.putAll(buildHistoryService.getIngestedBuildNumbers());
+                seeded = true;
+                logger.info("Seeded ingestion high-water marks for {} jobs", highWaterMarks.size());
+            }
+
+            Map<String, Integer> lastBuilds = fetchLastBuildNumbers(baseUrl);
+            Map<String, CompletableFuture<String>> pending = new HashMap<>();
+            lastBuilds.forEach((jobName, lastBuild) -> {
+                if (lastBuild > highWaterMarks.getOrDefault(jobName, 0)) {
+                    pending.put(jobName, jenkinsClient.getUrl(jobBuildsUrl(baseUrl, jobName, 0), JSON));
+                }
+            });
+
+            int saved = 0;
+            List<BuildHistory> batch = new ArrayList<>(batchSize);
+            Map<String, Integer> pendingMarks = new HashMap<>();
+            for (Map.Entry<String, CompletableFuture<String>> entry : pending.entrySet()) {
+                String jobName = entry.getKey();
+                int mark = highWaterMarks.getOrDefault(jobName, 0);
+                List<JsonNode> builds = fetchNewBuilds(baseUrl, jobName, mark, entry.getValue().join());
+
+                int newMark = mark;
+                int lowestRunning = Integer.MAX_VALUE;
+                for (JsonNode build : builds) {
+                    int number = build.path("number").asInt();
+                    if (number <= mark || !build.hasNonNull("timestamp")) {
+                        continue;
+                    }
+                    boolean running = build.path("building").asBoolean(false) || build.path("result").isNull();
+                    if (running) {
+                        lowestRunning = Math.min(lowestRunning, number);
+                    }
+                    newMark = Math.max(newMark, number);
+                    batch.add(toBuildHistory(jobName, build, running));
+                }
+                if (lowestRunning != Integer.MAX_VALUE) {
+                    newMark = Math.max(mark, lowestRunning - 1);
+                }
+                pendingMarks.put(jobName, newMark);
+
+                if (batch.size() >= batchSize) {
+                    saved += flush(batch, pendingMarks);
+                }
+            }
+            saved += flush(batch, pendingMarks);
+
+            lastSuccessfulRun = System.currentTimeMillis();
+            if (saved > 0) {
+                ingestedBuilds.addAndGet(saved);
+                logger.info("Ingested {} builds from {} jobs", saved, pending.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Jenkins ingestion failed: {}", e.getMessage());
+            discovery.requestRediscovery();
+        }
+    }
+
+    /**
+     * Persist a batch, then advance the marks of the jobs it covered
+     */
+    private int flush(List<BuildHistory> batch, Map<String, Integer> pendingMarks) {
+        int saved = batch.isEmpty() ? 0 : buildHistoryService.saveBuilds(batch);
+        highWaterMarks.putAll(pendingMarks);
+        batch.clear();
+        pendingMarks.clear();
+        return saved;
+    }
+
+    /**
+     * Collect the job's builds from the first page and, while a full page has
+     * not reached {@code mark} yet, from the older pages behind it
+     */
+    private List<JsonNode> fetchNewBuilds(String baseUrl, String jobName, int mark, String firstPage)
+            throws Exception {
+        List<JsonNode> builds = new ArrayList<>();
+        JsonNode page = objectMapper.readTree(firstPage).path("builds");
+        for (int from = maxBuildsPerJob; ; from += maxBuildsPerJob) {
+            int oldest = Integer.MAX_VALUE;
+            for (JsonNode build : page) {
+                builds.add(build);
+                oldest = Math.min(oldest, build.path("number").asInt());
+            }
+            if (mark == 0 || page.size() < maxBuildsPerJob || oldest <= mark + 1) {
+                return builds;
+            }
+            String body = jenkinsClient.getUrl(jobBuildsUrl(baseUrl, jobName, from), JSON).join();
+            page = objectMapper.readTree(body).path("builds");
+        }
+    }
+
+    private Map<String, Integer> fetchLastBuildNumbers(String baseUrl) throws Exception {
+        String body = jenkinsClient.getUrl(baseUrl + "/api/json?tree=jobs[name,lastBuild[number]]", JSON).join();
+        Map<String, Integer> lastBuilds = new HashMap<>();
+        for (JsonNode job : objectMapper.readTree(body).path("jobs")) {
+            JsonNode lastBuild = job.path("lastBuild");
+            if (job.hasNonNull("name") && lastBuild.hasNonNull("number")) {
+                lastBuilds.put(job.get("name").asText(), lastBuild.get("number").asInt());
+            }
+        }
+        return lastBuilds;
+    }
+
+    private String jobBuildsUrl(String baseUrl, String jobName, int from) {
+        return baseUrl + "/job/" + UriUtils.encodePathSegment(jobName, StandardCharsets.UTF_8)
+                + "/api/json?tree=builds[number,result,duration,timestamp,building]{" + from + ","
+                + (from + maxBuildsPerJob) + "}";
+    }
+
+    private BuildHistory toBuildHistory(String jobName, JsonNode build, boolean running) {
+        String status = running ? "BUILDING" : build.path("result").asText();
+        Long duration = build.hasNonNull("duration") ? build.get("duration").asLong() : null;
+        LocalDateTime timestamp = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(build.get("timestamp").asLong()),
+                ZoneId.systemDefault());
+        return new BuildHistory(jobName, build.path("number").asInt(), status, duration, timestamp);
+    }
+
+    /**
+     * True once at least one ingestion cycle has completed against Jenkins
+     */
+    public boolean hasIngested() {
+        return lastSuccessfulRun > 0;
+    }
+
+    public long getLastSuccessfulRun() {
+        return lastSuccessfulRun;
+    }
+
+    public long getIngestedBuilds() {
+        return ingestedBuilds.get();
+    }
+}
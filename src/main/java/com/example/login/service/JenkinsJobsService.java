@@ -0,0 +1,233 @@
+package com.example.login.service;
+
+import com.example.login.entity.BuildHistory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Returns every Jenkins job together with its last build in one call.
+ *
+ * Uses a single tree query when Jenkins supports it and falls back to
+ * per-job lastBuild requests with bounded concurrency. The collected builds
+ * are persisted in one batch on the service's own writer thread, so database
+ * latency neither delays the response nor holds a Jenkins client thread.
+ */
+@Service
+public class JenkinsJobsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsJobsService.class);
+
+    private static final String JSON = "application/json";
+    private static final String TREE_QUERY =
+            "/api/json?tree=jobs[name,url,color,lastBuild[number,result,duration,timestamp,building]]";
+
+    private final JenkinsClient jenkinsClient;
+    private final BuildHistoryService buildHistoryService;
+    private final ObjectMapper objectMapper;
+    private final int maxParallel;
+    // One writer keeps saves of the same build in request order; a full queue drops the save,
+    // since ingestion stores the same builds on its next poll
+    private final ThreadPoolExecutor persistExecutor;
+
+    public JenkinsJobsService(JenkinsClient jenkinsClient, BuildHistoryService buildHistoryService,
+            ObjectMapper objectMapper, @Value("${jenkins.bulk.max-parallel:8}") int maxParallel,
+            @Value("${jenkins.bulk.persist-queue:64}") int persistQueue) {
+        this.jenkinsClient = jenkinsClient;
+        this.buildHistoryService = buildHistoryService;
+        this.objectMapper = objectMapper;
+        this.maxParallel = maxParallel;
+        this.persistExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, persistQueue)), r -> {
+                    Thread t = new Thread(r, "jenkins-jobs-persist");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> getJobsWithLastBuild() {
+        return jenkinsClient.get(TREE_QUERY, JSON)
+                .thenCompose(body -> {
+                    JsonNode jobs = readTree(body).path("jobs");
+                    if (hasLastBuildDetails(jobs)) {
+                        List<Map<String, Object>> result = new ArrayList<>();
+                        for (JsonNode job : jobs) {
+                            result.add(toJobEntry(job.path("name").asText(), job, job.path("lastBuild")));
+                        }
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    logger.info("Jenkins ignored nested lastBuild tree; fetching last builds per job");
+                    return fetchPerJob(jobs);
+                })
+                .thenApply(result -> {
+                    persistAsync(result);
+                    return result;
+                });
+    }
+
+    /**
+     * The tree query worked if any job with a last build came back with its details
+     */
+    private static boolean hasLastBuildDetails(JsonNode jobs) {
+        boolean anyLastBuild = false;
+        for (JsonNode job : jobs) {
+            JsonNode lastBuild = job.path("lastBuild");
+            if (lastBuild.isObject()) {
+                anyLastBuild = true;
+                if (lastBuild.has("timestamp")) {
+                    return true;
+                }
+            }
+        }
+        return !anyLastBuild;
+    }
+
+    /**
+     * Fetch each job's last build with at most {@code maxParallel} requests in flight
+     */
+    private CompletableFuture<List<Map<String, Object>>> fetchPerJob(JsonNode jobs) {
+        ConcurrentLinkedQueue<JsonNode> queue = new ConcurrentLinkedQueue<>();
+        jobs.forEach(queue::add);
+        Map<String, Map<String, Object>> results = Collections.synchronizedMap(new HashMap<>());
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(maxParallel, queue.size()); i++) {
+            workers.add(drain(queue, results));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<Map<String, Object>> ordered = new ArrayList<>();
+                    for (JsonNode job : jobs) {
+                        Map<String, Object> entry = results.get(job.path("name").asText());
+                        if (entry != null) {
+                            ordered.add(entry);
+                        }
+                    }
+                    return ordered;
+                });
+    }
+
+    private CompletableFuture<Void> drain(ConcurrentLinkedQueue<JsonNode> queue,
+            Map<String, Map<String, Object>> results) {
+        JsonNode job = queue.poll();
+        if (job == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String name = job.path("name").asText();
+        String path = "/job/" + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8) + "/lastBuild/api/json";
+
+        return jenkinsClient.get(path, JSON)
+                .handle((body, error) -> {
+                    JsonNode lastBuild = error == null ? readTree(body) : objectMapper.nullNode();
+                    if (error != null) {
+                        logger.debug("No last build for {}: {}", name, error.getMessage());
+                    }
+                    results.put(name, toJobEntry(name, job, lastBuild));
+                    return null;
+                })
+                .thenCompose(ignored -> drain(queue, results));
+    }
+
+    private static Map<String, Object> toJobEntry(String name, JsonNode job, JsonNode lastBuild) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("jobName", name);
+        entry.put("url", job.path("url").asText(null));
+        entry.put("color", job.path("color").asText(null));
+
+        if (lastBuild.hasNonNull("number")) {
+            boolean building = lastBuild.path("building").asBoolean(false) || lastBuild.path("result").isNull();
+            entry.put("buildNumber", lastBuild.get("number").asInt());
+            entry.put("status", building ? "BUILDING" : lastBuild.path("result").asText());
+            entry.put("durationMs", lastBuild.hasNonNull("duration") ? lastBuild.get("duration").asLong() : null);
+            entry.put("timestamp", lastBuild.hasNonNull("timestamp")
+                    ? Instant.ofEpochMilli(lastBuild.get("timestamp").asLong()).toString()
+                    : null);
+            entry.put("building", building);
+        }
+        return entry;
+    }
+
+    /**
+     * Queue a last build fetched through the proxy for saving on the same
+     * writer thread as the bulk endpoint; returns without touching the database
+     */
+    public void saveLastBuild(String jobName, String body) {
+        if (body == null) {
+            return;
+        }
+        persistAsync(() -> {
+            try {
+                persist(List.of(toJobEntry(jobName, objectMapper.missingNode(), readTree(body))));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to save last build of {}: {}", jobName, e.getMessage());
+            }
+        }, 1);
+    }
+
+    private void persistAsync(List<Map<String, Object>> jobs) {
+        persistAsync(() -> persist(jobs), jobs.size());
+    }
+
+    private void persistAsync(Runnable task, int builds) {
+        try {
+            persistExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Build persistence queue full, skipping {} last builds", builds);
+        }
+    }
+
+    private void persist(List<Map<String, Object>> jobs) {
+        List<BuildHistory> builds = new ArrayList<>();
+        for (Map<String, Object> job : jobs) {
+            if (job.get("buildNumber") != null && job.get("timestamp") != null) {
+                builds.add(new BuildHistory((String) job.get("jobName"), (Integer) job.get("buildNumber"),
+                        (String) job.get("status"), (Long) job.get("durationMs"),
+                        LocalDateTime.ofInstant(Instant.parse((String) job.get("timestamp")), ZoneId.systemDefault())));
+            }
+        }
+        try {
+            buildHistoryService.saveBuilds(builds);
+        } catch (Exception e) {
+            // Persisting is a side effect; the caller still gets the job list
+            logger.warn("Failed to save {} last builds: {}", builds.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistExecutor.shutdown();
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.login.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Locates a reachable Jenkins instance without holding up startup.
+ *
+ * All candidate URLs are probed concurrently once the application is ready;
+ * the first healthy one wins and the remaining probes are cancelled.
+ * The winner becomes the base URL of every {@link JenkinsClient} request;
+ * when nothing answers, the client falls back to {@code jenkins.url}.
+ * Re-discovery is rate-limited and always runs off the request thread.
+ */
+@Service
+public class JenkinsUrlDiscovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsUrlDiscovery.class);
+
+    // Try multiple URLs for Jenkins connectivity
+    private static final String[] JENKINS_URLS = {
+            "http://host.docker.internal:8080", // Docker Desktop (Windows/Mac)
+            "http://172.17.0.1:8080", // Docker bridge network
+            "http://localhost:8080", // Local fallback
+            "http://host.minikube.internal:8080" // Minikube
+    };
+
+    public enum State {
+        PENDING, CONNECTED, UNREACHABLE
+    }
+
+    private final JenkinsClient jenkinsClient;
+    private final long minIntervalMs;
+
+    private volatile String workingUrl;
+    private volatile State state = State.PENDING;
+    private volatile long lastCompleted = 0;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastAttempt = new AtomicLong(0);
+
+    public JenkinsUrlDiscovery(JenkinsClient jenkinsClient,
+            @Value("${jenkins.discovery.min-interval-ms:60000}") long minIntervalMs) {
+        this.jenkinsClient = jenkinsClient;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    /**
+     * Start discovery in the background once the context is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        logger.info("Starting background Jenkins URL discovery...");
+        lastAttempt.set(System.currentTimeMillis());
+        discover();
+    }
+
+    /**
+     * Periodically retry while disconnected, subject to the same rate limit
+     */
+    @Scheduled(fixedDelayString = "${jenkins.discovery.interval-ms:60000}",
+            initialDelayString = "${jenkins.discovery.interval-ms:60000}")
+    public void periodicCheck() {
+        if (!isConnected()) {
+            requestRediscovery();
+        }
+    }
+
+    /**
+     * Ask for a new discovery round after a failure. Returns immediately;
+     * calls within {@code jenkins.discovery.min-interval-ms} of the last attempt are ignored.
+     */
+    public void requestRediscovery() {
+        long now = System.currentTimeMillis();
+        long last = lastAttempt.get();
+        if (now - last < minIntervalMs || !lastAttempt.compareAndSet(last, now)) {
+            return;
+        }
+        discover();
+    }
+
+    /**
+     * Probe every candidate concurrently; completes with the winning URL or null
+     */
+    CompletableFuture<String> discover() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(workingUrl);
+        }
+
+        List<String> candidates = candidateUrls();
+        CompletableFuture<String> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(candidates.size());
+        List<CompletableFuture<String>> probes = new ArrayList<>();
+
+        for (String url : candidates) {
+            CompletableFuture<String> probe = jenkinsClient.getUrl(url + "/api/json", "application/json");
+            probes.add(probe);
+            probe.whenComplete((body, error) -> {
+                if (error == null) {
+                    winner.complete(url);
+                } else {
+                    logger.debug("Jenkins URL {} not accessible: {}", url, error.getMessage());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    winner.complete(null);
+                }
+            });
+        }
+
+        return winner.whenComplete((url, error) -> {
+            probes.forEach(p -> p.cancel(true));
+            jenkinsClient.useDiscoveredUrl(url);
+            if (url != null) {
+                workingUrl = url;
+                state = State.CONNECTED;
+                logger.info("Found working Jenkins URL: {}", url);
+            } else {
+                workingUrl = null;
+                state = State.UNREACHABLE;
+                logger.warn("No working Jenkins URL found. Dashboard will show simulated data.");
+            }
+            lastCompleted = System.currentTimeMillis();
+            running.set(false);
+        });
+    }
+
+    private List<String> candidateUrls() {
+        Set<String> urls = new LinkedHashSet<>();
+        String configured = jenkinsClient.getBaseUrl();
+        if (configured != null && !configured.isEmpty()) {
+            urls.add(configured);
+        }
+        urls.addAll(List.of(JENKINS_URLS));
+        return new ArrayList<>(urls);
+    }
+
+    public String getWorkingUrl() {
+        return workingUrl;
+    }
+
+    public boolean isConnected() {
+        return workingUrl != null;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getLastCompleted() {
+        return lastCompleted;
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for collected system metrics.
+ *
+ * The collector only enqueues samples into a bounded queue; a dedicated writer
+ * thread stores them in JDBC batches when the batch is full or the flush
+ * interval has passed. Failed flushes are retried with exponential backoff and
+ * then spilled to a local file, which is replayed once the database accepts
+ * writes again. Sampling never waits on the database.
+ */
+@Service
+public class MetricsWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsWriteBehindService.class);
+
+    private final SystemMetricsService systemMetricsService;
+    private final BlockingQueue<SystemMetrics> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Path spillFile;
+    // Spill file taken over by the writer thread while it is replayed
+    private final Path replayFile;
+    private final long spillMaxBytes;
+    // Guards the spill file only; never held while writing to the database
+    private final Object spillLock = new Object();
+
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter spilled;
+    private final Counter dropped;
+    private final Counter flushFailures;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public MetricsWriteBehindService(SystemMetricsService systemMetricsService,
+            MeterRegistry meterRegistry,
+            @Value("${metrics.write-behind.queue-capacity:1000}") int queueCapacity,
+            @Value("${metrics.write-behind.batch-size:100}") int batchSize,
+            @Value("${metrics.write-behind.flush-interval-ms:5000}") long flushIntervalMs,
+            @Value("${metrics.write-behind.max-attempts:3}") int maxAttempts,
+            @Value("${metrics.write-behind.initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${metrics.write-behind.max-backoff-ms:30000}") long maxBackoffMs,
+            @Value("${metrics.write-behind.spill-file:${java.io.tmpdir}/capstone-metrics-spill.csv}") String spillFile,
+            @Value("${metrics.write-behind.spill-max-bytes:52428800}") long spillMaxBytes) {
+        this.systemMetricsService = systemMetricsService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.spillFile = Paths.get(spillFile);
+        this.replayFile = Paths.get(spillFile + ".replay");
+        this.spillMaxBytes = spillMaxBytes;
+
+        Gauge.builder("metrics.writebehind.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("metrics.writebehind.spill.bytes", this, MetricsWriteBehindService::spillBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        this.flushTimer = Timer.builder("metrics.writebehind.flush").register(meterRegistry);
+        this.written = Counter.builder("metrics.writebehind.samples").tag("outcome", "written")
+                .register(meterRegistry);
+        this.spilled = Counter.builder("metrics.writebehind.samples").tag("outcome", "spilled")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("metrics.writebehind.samples").tag("outcome", "dropped")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("metrics.writebehind.flush.failures").register(meterRegistry);
+
+        this.writer = new Thread(this::run, "metrics-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Hand a sample to the writer. Never blocks; if the queue is full the
+     * sample goes straight to the spill file.
+     */
+    public void submit(SystemMetrics sample) {
+        if (!queue.offer(sample)) {
+            spill(List.of(sample));
+        }
+    }
+
+    private void run() {
+        List<SystemMetrics> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                SystemMetrics first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Flush when the batch is full or the interval since its first sample has passed
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    SystemMetrics next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // The buffer is reused for the next batch, so hand the service a snapshot
+                flush(List.copyOf(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Shutdown: whatever is still in memory goes to the database or the spill file
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<SystemMetrics> batch) {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            if (persist(batch)) {
+                replaySpill();
+                return;
+            }
+            if (attempt >= maxAttempts || !running || !sleep(backoffMs)) {
+                logger.warn("Could not store {} metric samples after {} attempts, spilling to {}",
+                        batch.size(), attempt, spillFile);
+                spill(batch);
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        }
+    }
+
+    private boolean persist(Collection<SystemMetrics> batch) {
+        long start = System.nanoTime();
+        try {
+            systemMetricsService.saveBatch(batch);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            written.increment(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            logger.warn("Metrics flush of {} samples failed: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Append samples to the spill file, one CSV line each
+     */
+    private void spill(Collection<SystemMetrics> samples) {
+        synchronized (spillLock) {
+            if (spillBytes() >= spillMaxBytes) {
+                dropped.increment(samples.size());
+                logger.error("Metrics spill file {} is full, dropping {} samples", spillFile, samples.size());
+                return;
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SystemMetrics sample : samples) {
+                    out.write(toLine(sample));
+                    out.newLine();
+                }
+                spilled.increment(samples.size());
+            } catch (IOException e) {
+                dropped.increment(samples.size());
+                logger.error("Failed to spill {} metric samples: {}", samples.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Store spilled samples now that the database is reachable again. The
+     * spill file is moved aside under the lock and replayed outside it, so
+     * the collector can keep spilling while the database is slow. Lines that
+     * could not be stored stay in the replay file for the next attempt, which
+     * also picks up a replay interrupted by a restart. Only the writer thread
+     * replays.
+     */
+    private void replaySpill() {
+        if (!Files.exists(replayFile) || replay()) {
+            synchronized (spillLock) {
+                if (!Files.exists(spillFile)) {
+                    return;
+                }
+                try {
+                    Files.move(spillFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    logger.error("Failed to move metrics spill file {}: {}", spillFile, e.getMessage());
+                    return;
+                }
+            }
+            replay();
+        }
+    }
+
+    /**
+     * Store the lines of the replay file, keeping those that failed
+     *
+     * @return whether the replay file was fully stored and deleted
+     */
+    private boolean replay() {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(replayFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.error("Failed to read metrics spill file {}: {}", replayFile, e.getMessage());
+            return false;
+        }
+
+        int stored = 0;
+        while (stored < lines.size()) {
+            List<String> chunk = lines.subList(stored, Math.min(stored + batchSize, lines.size()));
+            List<SystemMetrics> samples = new ArrayList<>(chunk.size());
+            for (String line : chunk) {
+                SystemMetrics sample = fromLine(line);
+                if (sample != null) {
+                    samples.add(sample);
+                }
+            }
+            if (!persist(samples)) {
+                break;
+            }
+            stored += chunk.size();
+        }
+
+        try {
+            if (stored == lines.size()) {
+                Files.delete(replayFile);
+                logger.info("Replayed {} spilled metric samples", stored);
+                return true;
+            } else if (stored > 0) {
+                Files.write(replayFile, lines.subList(stored, lines.size()), StandardCharsets.UTF_8,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to update metrics spill file {}: {}", replayFile, e.getMessage());
+        }
+        return false;
+    }
+
+    static String toLine(SystemMetrics sample) {
+        return String.join(",",
+                sample.getRecordedAt() != null ? sample.getRecordedAt().toString() : "",
+                str(sample.getCpuUsage()), str(sample.getMemoryUsage()), str(sample.getThreadCount()),
+                str(sample.getHttpRequestsTotal()), str(sample.getJvmMemoryUsed()), str(sample.getJvmMemoryMax()),
+                str(sample.getGcCount()), str(sample.getGcPauseMs()), str(sample.getAllocationRate()),
+                str(sample.getSafepointMs()), str(sample.getMonitorBlockedMs()));
+    }
+
+    static SystemMetrics fromLine(String line) {
+        String[] fields = line.split(",", -1);
+        // 7 fields: spill files written before the JFR columns existed
+        if ((fields.length != 7 && fields.length != 12) || fields[0].isEmpty()) {
+            return null;
+        }
+        try {
+            SystemMetrics sample = new SystemMetrics(
+                    fields[1].isEmpty() ? null : Double.valueOf(fields[1]),
+                    fields[2].isEmpty() ? null : Double.valueOf(fields[2]),
+                    fields[3].isEmpty() ? null : Integer.valueOf(fields[3]),
+                    fields[4].isEmpty() ? null : Long.valueOf(fields[4]),
+                    fields[5].isEmpty() ? null : Long.valueOf(fields[5]),
+                    fields[6].isEmpty() ? null : Long.valueOf(fields[6]));
+            sample.setRecordedAt(LocalDateTime.parse(fields[0]));
+            if (fields.length == 12) {
+                sample.setGcCount(fields[7].isEmpty() ? null : Integer.valueOf(fields[7]));
+                sample.setGcPauseMs(fields[8].isEmpty() ? null : Double.valueOf(fields[8]));
+                sample.setAllocationRate(fields[9].isEmpty() ? null : Double.valueOf(fields[9]));
+                sample.setSafepointMs(fields[10].isEmpty() ? null : Double.valueOf(fields[10]));
+                sample.setMonitorBlockedMs(fields[11].isEmpty() ? null : Double.valueOf(fields[11]));
+            }
+            return sample;
+        } catch (RuntimeException e) {
+            logger.warn("Skipping malformed spilled metrics line: {}", line);
+            return null;
+        }
+    }
+
+    private static String str(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    // Both files count towards the cap, so a stuck replay cannot let the spill grow unbounded
+    private double spillBytes() {
+        return size(spillFile) + size(replayFile);
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
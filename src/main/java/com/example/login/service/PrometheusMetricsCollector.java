@@ -1,7 +1,9 @@
 package com.example.login.service;
 
 import com.example.login.entity.SystemMetrics;
-import com.example.login.repository.SystemMetricsRepository;
+import com.example.login.metrics.HttpRequestCounters;
+import com.example.login.metrics.JfrEventAggregator;
+import com.example.login.metrics.JvmEventSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -19,31 +21,46 @@ public class PrometheusMetricsCollector {
 
     private static final Logger logger = LoggerFactory.getLogger(PrometheusMetricsCollector.class);
 
-    private final SystemMetricsRepository systemMetricsRepository;
-
-    public PrometheusMetricsCollector(SystemMetricsRepository systemMetricsRepository) {
-        this.systemMetricsRepository = systemMetricsRepository;
+    private final MetricsWriteBehindService writeBehindService;
+    private final RecentMetricsService recentMetricsService;
+    private final SystemMetricsService systemMetricsService;
+    private final HttpRequestCounters httpRequestCounters;
+    private final JfrEventAggregator jfrEventAggregator;
+
+    public PrometheusMetricsCollector(MetricsWriteBehindService writeBehindService,
+            RecentMetricsService recentMetricsService,
+            SystemMetricsService systemMetricsService,
+            HttpRequestCounters httpRequestCounters,
+            JfrEventAggregator jfrEventAggregator) {
+        this.writeBehindService = writeBehindService;
+        this.recentMetricsService = recentMetricsService;
+        this.systemMetricsService = systemMetricsService;
+        this.httpRequestCounters = httpRequestCounters;
+        this.jfrEventAggregator = jfrEventAggregator;
     }
 
     private volatile SystemMetrics currentMetrics;
-    private long httpRequestCounter = 0;
     private double previousCpuUsage = 0.15; // Starting value for smoothing
     private final Random random = new Random();
 
     /**
      * Collect metrics every 30 seconds
      */
-    @Scheduled(fixedRate = 30000)
+    @Scheduled(fixedRateString = "${metrics.collection.interval-ms:30000}")
     public void collectAndStoreMetrics() {
         try {
             logger.info("Collecting JVM metrics...");
 
             currentMetrics = collectMetrics();
 
-            // Save to database
-            systemMetricsRepository.save(currentMetrics);
+            // In-memory first so recent history stays available if the database is down
+            recentMetricsService.record(currentMetrics);
+            systemMetricsService.record(currentMetrics);
+
+            // Queued for the write-behind writer; never waits on the database
+            writeBehindService.submit(currentMetrics);
 
-            logger.info("Metrics saved - CPU: {}%, Memory: {}%, Threads: {}",
+            logger.info("Metrics collected - CPU: {}%, Memory: {}%, Threads: {}",
                     String.format("%.1f", currentMetrics.getCpuUsage() * 100),
                     String.format("%.1f", currentMetrics.getMemoryUsage() * 100),
                     currentMetrics.getThreadCount());
@@ -91,8 +108,17 @@ public class PrometheusMetricsCollector {
             metrics.setThreadCount(threadBean.getThreadCount());
 
             // ===== HTTP REQUESTS =====
-            httpRequestCounter++;
-            metrics.setHttpRequestsTotal(httpRequestCounter);
+            metrics.setHttpRequestsTotal(httpRequestCounters.total());
+
+            // ===== GC / ALLOCATION / SAFEPOINTS / CONTENTION (JFR) =====
+            JvmEventSummary events = jfrEventAggregator.drain();
+            if (events != null) {
+                metrics.setGcCount(events.gcCount());
+                metrics.setGcPauseMs(events.gcPauseMs());
+                metrics.setAllocationRate(events.allocationRate());
+                metrics.setSafepointMs(events.safepointMs());
+                metrics.setMonitorBlockedMs(events.monitorBlockedMs());
+            }
 
         } catch (Exception e) {
             logger.error("Error collecting metrics: {}", e.getMessage());
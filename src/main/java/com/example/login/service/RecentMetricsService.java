@@ -0,0 +1,97 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.metrics.MetricsRingBuffer;
+import com.example.login.metrics.MetricsSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Serves recent system metrics from memory.
+ *
+ * The collector appends every sample to a {@link MetricsRingBuffer}; latest
+ * values, request rates and short history windows are then answered without
+ * touching the database. Windows the buffer does not fully cover (longer
+ * than its capacity, or reaching back before this instance started) return
+ * null so callers fall back to stored history.
+ */
+@Service
+public class RecentMetricsService {
+
+    private final MetricsRingBuffer buffer;
+    private final long sampleIntervalMs;
+
+    public RecentMetricsService(@Value("${metrics.buffer.capacity:240}") int capacity,
+            @Value("${metrics.collection.interval-ms:30000}") long sampleIntervalMs) {
+        this.buffer = new MetricsRingBuffer(capacity);
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    /**
+     * Append a collected sample. Called only from the collector's scheduled thread.
+     */
+    public void record(SystemMetrics sample) {
+        LocalDateTime recordedAt = sample.getRecordedAt() != null ? sample.getRecordedAt() : LocalDateTime.now();
+        buffer.record(recordedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                valueOf(sample.getCpuUsage()),
+                valueOf(sample.getMemoryUsage()),
+                sample.getThreadCount() != null ? sample.getThreadCount() : 0,
+                valueOf(sample.getHttpRequestsTotal()),
+                valueOf(sample.getJvmMemoryUsed()),
+                valueOf(sample.getJvmMemoryMax()));
+    }
+
+    /**
+     * Samples from the last N hours, or null if the buffer does not cover the whole window
+     */
+    public MetricsSeries getHistory(int hours) {
+        long now = System.currentTimeMillis();
+        long since = now - hours * 3_600_000L;
+
+        MetricsRingBuffer.Cursor oldest = buffer.last(buffer.size());
+        if (!oldest.next() || oldest.timestamp() > since + sampleIntervalMs) {
+            return null;
+        }
+        int expected = (int) Math.min(buffer.size(), hours * 3_600_000L / Math.max(1, sampleIntervalMs) + 1);
+        return MetricsSeries.copyOf(buffer.since(since), expected);
+    }
+
+    /**
+     * The newest sample as a single-element series, empty if nothing was collected yet
+     */
+    public MetricsSeries getLatest() {
+        return MetricsSeries.copyOf(buffer.last(1), 1);
+    }
+
+    /**
+     * HTTP requests per second between the two newest samples
+     */
+    public double getRequestRate() {
+        MetricsRingBuffer.Cursor cursor = buffer.last(2);
+        if (!cursor.next()) {
+            return 0.0;
+        }
+        long previousTime = cursor.timestamp();
+        long previousCount = cursor.httpRequestsTotal();
+        if (!cursor.next()) {
+            return 0.0;
+        }
+        long elapsedMs = cursor.timestamp() - previousTime;
+        if (elapsedMs <= 0) {
+            return 0.0;
+        }
+        return (cursor.httpRequestsTotal() - previousCount) * 1000.0 / elapsedMs;
+    }
+
+    // Missing readings stay NaN, as in stored history, so downsampling and JSON skip them
+    private static double valueOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
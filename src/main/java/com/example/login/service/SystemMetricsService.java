@@ -1,22 +1,85 @@
 package com.example.login.service;
 
+import com.example.login.dto.MetricsPoint;
 import com.example.login.entity.SystemMetrics;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import com.example.login.metrics.Lttb;
+import com.example.login.metrics.MetricsBlock;
+import com.example.login.metrics.MetricsHistoryStore;
 import com.example.login.repository.SystemMetricsRepository;
+import com.example.login.repository.SystemMetricsRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Stores collected system metrics and serves their history.
+ *
+ * Every sample is kept in the compressed in-memory {@link MetricsHistoryStore};
+ * history windows it fully covers are answered from memory. Longer windows,
+ * or windows reaching back before this instance started, come from the raw
+ * and rollup tables. Either way charts get at most {@code maxPoints} points.
+ */
 @Service
 public class SystemMetricsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SystemMetricsService.class);
+
     private final SystemMetricsRepository repository;
+    private final SystemMetricsRollupRepository rollupRepository;
+    private final MetricsHistoryStore historyStore;
+
+    @Value("${metrics.collection.interval-ms:30000}")
+    private long sampleIntervalMs;
+
+    @Value("${metrics.history.max-points:500}")
+    private int defaultMaxPoints;
+
+    @Value("${metrics.retention.raw-hours:48}")
+    private int rawRetentionHours;
+
+    @Value("${metrics.retention.rollup-1m-hours:168}")
+    private int minuteRetentionHours;
+
+    @Value("${metrics.retention.rollup-5m-hours:720}")
+    private int fiveMinuteRetentionHours;
+
+    @Value("${metrics.retention.rollup-1h-hours:8760}")
+    private int hourRetentionHours;
 
-    public SystemMetricsService(SystemMetricsRepository repository) {
+    public SystemMetricsService(SystemMetricsRepository repository,
+            SystemMetricsRollupRepository rollupRepository,
+            MetricsHistoryStore historyStore) {
         this.repository = repository;
+        this.rollupRepository = rollupRepository;
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Append a collected sample to the in-memory history. Called only from the collector's scheduled thread.
+     */
+    public void record(SystemMetrics sample) {
+        LocalDateTime recordedAt = sample.getRecordedAt() != null ? sample.getRecordedAt() : LocalDateTime.now();
+        historyStore.record(toEpochMilli(recordedAt),
+                doubleOf(sample.getCpuUsage()), doubleOf(sample.getMemoryUsage()),
+                longOf(sample.getThreadCount()), longOf(sample.getHttpRequestsTotal()),
+                longOf(sample.getJvmMemoryUsed()), longOf(sample.getJvmMemoryMax()), longOf(sample.getGcCount()),
+                doubleOf(sample.getGcPauseMs()), doubleOf(sample.getAllocationRate()),
+                doubleOf(sample.getSafepointMs()), doubleOf(sample.getMonitorBlockedMs()));
     }
 
     @Transactional
@@ -27,15 +90,189 @@ public class SystemMetricsService {
         return repository.save(metrics);
     }
 
-    public List<SystemMetrics> getRecentMetrics(int limit) {
-        return repository.findTop50ByOrderByRecordedAtDesc();
+    /**
+     * Store a batch of collected samples and fold them into the 1m, 5m and 1h
+     * rollups in one transaction, so a failed flush can be retried without
+     * double-counting
+     */
+    @Transactional
+    public int saveBatch(Collection<SystemMetrics> samples) {
+        int written = repository.insertAll(samples);
+        rollupRepository.accumulate(samples);
+        return written;
+    }
+
+    @Transactional(readOnly = true)
+    public List<MetricsPoint> getRecentMetrics(int limit) {
+        return repository.findRecentPoints(PageRequest.of(0, limit));
+    }
+
+    public List<MetricsPoint> getMetricsFromLastHours(int hours) {
+        return getMetricsFromLastHours(hours, defaultMaxPoints);
     }
 
-    public List<SystemMetrics> getMetricsFromLastHours(int hours) {
+    /**
+     * At most {@code maxPoints} metrics for the last N hours. Windows held in
+     * memory, and otherwise windows within raw retention, are read at raw
+     * resolution and reduced with LTTB, which keeps peaks and dips. Rollups
+     * only start at deployment, so they are used only for windows reaching
+     * past raw retention: the finest 1m, 5m or 1h tier that (nearly) fits,
+     * with LTTB trimming what is left over. Rollup buckets are points
+     * carrying their averages, so spikes shorter than a bucket are already
+     * smoothed on that path.
+     *
+     * Not transactional: windows in memory never touch the database, and the
+     * repository queries open their own read-only transactions, so their
+     * fetch size applies even on self-invoked paths such as getMetricsHistory.
+     */
+    public List<MetricsPoint> getMetricsFromLastHours(int hours, int maxPoints) {
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        return repository.findMetricsSince(since);
+        long rangeSeconds = hours * 3600L;
+
+        long sinceMs = toEpochMilli(since);
+        if (historyStore.oldestMs() <= sinceMs + sampleIntervalMs) {
+            return storedPoints(sinceMs, maxPoints);
+        }
+
+        if (hours <= rawRetentionHours) {
+            return downsample(repository.findMetricsSince(since), maxPoints);
+        }
+
+        Resolution resolution = Resolution.ONE_HOUR;
+        for (Resolution candidate : Resolution.values()) {
+            if (hours <= retentionHours(candidate) && rangeSeconds / candidate.getSeconds() <= maxPoints) {
+                resolution = candidate;
+                break;
+            }
+        }
+
+        return downsample(rollupRepository.findPointsSince(resolution, resolution.bucketStart(since)), maxPoints);
+    }
+
+    /**
+     * Drop raw samples and rollup buckets past their retention
+     */
+    @Scheduled(fixedDelayString = "${metrics.retention.purge-interval-ms:3600000}",
+            initialDelayString = "${metrics.retention.purge-initial-delay-ms:60000}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int raw = repository.deleteOlderThan(now.minusHours(rawRetentionHours));
+        int rollups = 0;
+        for (Resolution resolution : Resolution.values()) {
+            rollups += rollupRepository.deleteOlderThan(resolution, now.minusHours(retentionHours(resolution)));
+        }
+        if (raw > 0 || rollups > 0) {
+            logger.info("Purged {} raw metrics samples and {} rollup buckets", raw, rollups);
+        }
+    }
+
+    /**
+     * Raw samples from the in-memory history, downsampled to {@code maxPoints}.
+     * A first pass decodes only timestamps, CPU and memory into primitive
+     * arrays for LTTB; the second creates points for the chosen samples only,
+     * so a month-long window allocates no more points than a short one.
+     */
+    private List<MetricsPoint> storedPoints(long sinceMs, int maxPoints) {
+        MetricsHistoryStore.Cursor cursor = historyStore.since(sinceMs);
+        long expected = (System.currentTimeMillis() - sinceMs) / Math.max(1, sampleIntervalMs) + 16;
+        int capacity = (int) Math.min(expected, historyStore.size() + 1L);
+        long[] timestamps = new long[capacity];
+        double[] cpuUsage = new double[capacity];
+        double[] memoryUsage = new double[capacity];
+        int size = 0;
+        while (cursor.next()) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                cpuUsage = Arrays.copyOf(cpuUsage, size * 2);
+                memoryUsage = Arrays.copyOf(memoryUsage, size * 2);
+            }
+            timestamps[size] = cursor.timestamp();
+            cpuUsage[size] = cursor.cpuUsage();
+            memoryUsage[size] = cursor.memoryUsage();
+            size++;
+        }
+
+        int[] keep = Lttb.select(timestamps, size, Math.max(3, maxPoints), cpuUsage, memoryUsage);
+        List<MetricsPoint> points = new ArrayList<>(keep.length);
+        cursor.rewind();
+        int index = 0;
+        for (int kept : keep) {
+            while (index <= kept) {
+                cursor.next();
+                index++;
+            }
+            points.add(new MetricsPoint(boxed(cursor.cpuUsage()), boxed(cursor.memoryUsage()),
+                    intOf(cursor.threadCount()), boxed(cursor.httpRequestsTotal()),
+                    boxed(cursor.jvmMemoryUsed()), boxed(cursor.jvmMemoryMax()), intOf(cursor.gcCount()),
+                    boxed(cursor.gcPauseMs()), boxed(cursor.allocationRate()), boxed(cursor.safepointMs()),
+                    boxed(cursor.monitorBlockedMs()), toLocalDateTime(cursor.timestamp())));
+        }
+        return points;
+    }
+
+    /**
+     * At most {@code maxPoints} of the given points, picked by LTTB on CPU and memory usage
+     */
+    static List<MetricsPoint> downsample(List<MetricsPoint> points, int maxPoints) {
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+        int size = points.size();
+        long[] timestamps = new long[size];
+        double[] cpuUsage = new double[size];
+        double[] memoryUsage = new double[size];
+        for (int i = 0; i < size; i++) {
+            MetricsPoint point = points.get(i);
+            timestamps[i] = toEpochMilli(point.recordedAt());
+            cpuUsage[i] = doubleOf(point.cpuUsage());
+            memoryUsage[i] = doubleOf(point.memoryUsage());
+        }
+        int[] keep = Lttb.select(timestamps, size, Math.max(3, maxPoints), cpuUsage, memoryUsage);
+        List<MetricsPoint> result = new ArrayList<>(keep.length);
+        for (int i : keep) {
+            result.add(points.get(i));
+        }
+        return result;
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
     }
 
+    private static double doubleOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static long longOf(Number value) {
+        return value != null ? value.longValue() : MetricsBlock.MISSING_LONG;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Long boxed(long value) {
+        return value != MetricsBlock.MISSING_LONG ? value : null;
+    }
+
+    private static Integer intOf(long value) {
+        return value != MetricsBlock.MISSING_LONG ? (int) value : null;
+    }
+
+    private int retentionHours(Resolution resolution) {
+        return switch (resolution) {
+            case ONE_MINUTE -> minuteRetentionHours;
+            case FIVE_MINUTES -> fiveMinuteRetentionHours;
+            case ONE_HOUR -> hourRetentionHours;
+        };
+    }
+
+    @Transactional(readOnly = true)
     public Map<String, Object> getMetricsStatistics(int hours) {
         Map<String, Object> stats = new HashMap<>();
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
@@ -53,7 +290,11 @@ public class SystemMetricsService {
     /**
      * Alias for getMetricsFromLastHours for consistency
      */
-    public List<SystemMetrics> getMetricsHistory(int hours) {
+    public List<MetricsPoint> getMetricsHistory(int hours) {
         return getMetricsFromLastHours(hours);
     }
+
+    public List<MetricsPoint> getMetricsHistory(int hours, int maxPoints) {
+        return getMetricsFromLastHours(hours, maxPoints);
+    }
 }
@@ -0,0 +1,138 @@
+-- Baseline schema. Written to be safe on databases previously created by
+-- ddl-auto=update (tables, columns and indexes are only created when missing)
+-- as well as on empty ones.
+
+-- build_history -------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS build_history (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    job_name VARCHAR(255) NOT NULL,
+    build_number INTEGER NOT NULL,
+    status VARCHAR(50),
+    duration_ms BIGINT,
+    timestamp TIMESTAMP(6),
+    created_at TIMESTAMP(6)
+);
+
+-- Older databases may hold duplicate (job_name, build_number) rows from
+-- before the upsert; keep the newest copy so the constraint can be added
+DELETE FROM build_history b
+USING build_history newer
+WHERE b.job_name = newer.job_name
+  AND b.build_number = newer.build_number
+  AND b.id < newer.id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_build_history_job_build') THEN
+        ALTER TABLE build_history
+            ADD CONSTRAINT uk_build_history_job_build UNIQUE (job_name, build_number);
+    END IF;
+END $$;
+
+-- Recent builds, keyset pages and time-windowed trends (timestamp DESC, id DESC)
+CREATE INDEX IF NOT EXISTS idx_build_history_timestamp_id ON build_history (timestamp, id);
+-- Trends and lookups filtered by job within a time window
+CREATE INDEX IF NOT EXISTS idx_build_history_job_timestamp ON build_history (job_name, timestamp);
+-- Aggregate reconciliation probes (job_name, status)
+CREATE INDEX IF NOT EXISTS idx_build_history_job_status ON build_history (job_name, status);
+
+-- system_metrics ------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS system_metrics (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cpu_usage DOUBLE PRECISION,
+    memory_usage DOUBLE PRECISION,
+    thread_count INTEGER,
+    http_requests_total BIGINT,
+    jvm_memory_used BIGINT,
+    jvm_memory_max BIGINT,
+    recorded_at TIMESTAMP(6)
+);
+
+ALTER TABLE system_metrics ADD COLUMN IF NOT EXISTS gc_count INTEGER;
+ALTER TABLE system_metrics ADD COLUMN IF NOT EXISTS gc_pause_ms DOUBLE PRECISION;
+ALTER TABLE system_metrics ADD COLUMN IF NOT EXISTS allocation_rate DOUBLE PRECISION;
+ALTER TABLE system_metrics ADD COLUMN IF NOT EXISTS safepoint_ms DOUBLE PRECISION;
+ALTER TABLE system_metrics ADD COLUMN IF NOT EXISTS monitor_blocked_ms DOUBLE PRECISION;
+
+-- Latest samples, time windows, averages and the retention purge
+CREATE INDEX IF NOT EXISTS idx_system_metrics_recorded_at ON system_metrics (recorded_at);
+
+-- system_metrics_rollup -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS system_metrics_rollup (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    resolution VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    sample_count INTEGER NOT NULL,
+    cpu_min DOUBLE PRECISION,
+    cpu_max DOUBLE PRECISION,
+    cpu_sum DOUBLE PRECISION,
+    cpu_last DOUBLE PRECISION,
+    memory_min DOUBLE PRECISION,
+    memory_max DOUBLE PRECISION,
+    memory_sum DOUBLE PRECISION,
+    memory_last DOUBLE PRECISION,
+    thread_count_max INTEGER,
+    thread_count_last INTEGER,
+    http_requests_last BIGINT,
+    jvm_memory_used_last BIGINT,
+    jvm_memory_max_last BIGINT,
+    updated_at TIMESTAMP(6)
+);
+
+-- Upsert target; also serves range reads and purges per resolution
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_system_metrics_rollup_bucket') THEN
+        ALTER TABLE system_metrics_rollup
+            ADD CONSTRAINT uk_system_metrics_rollup_bucket UNIQUE (resolution, bucket_start);
+    END IF;
+END $$;
+
+-- build_duration_sketch -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS build_duration_sketch (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    job_name VARCHAR(255) NOT NULL,
+    day DATE NOT NULL,
+    build_count BIGINT NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP(6)
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_build_duration_sketch_job_day') THEN
+        ALTER TABLE build_duration_sketch
+            ADD CONSTRAINT uk_build_duration_sketch_job_day UNIQUE (job_name, day);
+    END IF;
+END $$;
+
+-- Percentiles across all jobs for a date range
+CREATE INDEX IF NOT EXISTS idx_build_duration_sketch_day ON build_duration_sketch (day);
+
+-- build_aggregate -----------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS build_aggregate (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    job_name VARCHAR(255) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    build_count BIGINT NOT NULL,
+    duration_sum BIGINT NOT NULL,
+    duration_count BIGINT NOT NULL,
+    duration_min BIGINT,
+    duration_max BIGINT,
+    last_build_number INTEGER,
+    last_build_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_build_aggregate_job_status') THEN
+        ALTER TABLE build_aggregate
+            ADD CONSTRAINT uk_build_aggregate_job_status UNIQUE (job_name, status);
+    END IF;
+END $$;
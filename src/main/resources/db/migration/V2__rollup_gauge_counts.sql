@@ -0,0 +1,13 @@
+-- Per-gauge sample counts for system_metrics_rollup, so a sample without a
+-- CPU or memory reading no longer counts towards that gauge's average.
+-- Existing buckets were written with every sample counted, so they start
+-- with the sample count.
+
+ALTER TABLE system_metrics_rollup ADD COLUMN IF NOT EXISTS cpu_count INTEGER;
+ALTER TABLE system_metrics_rollup ADD COLUMN IF NOT EXISTS memory_count INTEGER;
+
+UPDATE system_metrics_rollup SET cpu_count = sample_count WHERE cpu_count IS NULL;
+UPDATE system_metrics_rollup SET memory_count = sample_count WHERE memory_count IS NULL;
+
+ALTER TABLE system_metrics_rollup ALTER COLUMN cpu_count SET NOT NULL;
+ALTER TABLE system_metrics_rollup ALTER COLUMN memory_count SET NOT NULL;
@@ -0,0 +1,6 @@
+-- Time of the newest sample merged into each rollup bucket. The upsert only
+-- lets an incoming batch overwrite the *_last columns when its newest sample
+-- is at least this recent, so spilled samples replayed late cannot replace
+-- newer readings. Existing buckets start without it and accept the next write.
+
+ALTER TABLE system_metrics_rollup ADD COLUMN IF NOT EXISTS last_recorded_at TIMESTAMP(6);
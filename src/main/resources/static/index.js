@@ -5,13 +5,19 @@
 const CONFIG = {
     API_BASE_URL: window.location.origin,
     REFRESH_INTERVAL: 30000,
-    JENKINS_URL: '/api/jenkins'
+    STREAM_URL: '/api/analytics/dashboard/stream',
+    JENKINS_URL: '/api/jenkins',
+    METRICS_COLUMNS_TYPE: 'application/vnd.capstone.metrics-columns+json'
 };
 
 // ==================== GLOBAL STATE ====================
 let charts = {};
 let refreshInterval = null;
+let eventSource = null;
+let dashboardState = {};
+let systemHistory = { timestamps: [], cpuUsage: [], memoryUsage: [] };
 let allBuilds = [];
+let latencyData = null;
 let isDarkMode = false;
 
 // ==================== INITIALIZATION ====================
@@ -30,8 +36,8 @@ document.addEventListener('DOMContentLoaded', () => {
     // Setup event listeners
     setupEventListeners();
 
-    // Start auto-refresh
-    startAutoRefresh();
+    // Live updates over SSE, polling only when the stream is unavailable
+    startLiveUpdates();
 
     console.log('✅ Dashboard Ready!');
 });
@@ -96,6 +102,9 @@ function setupEventListeners() {
 
     // Export button
     document.getElementById('exportBtn')?.addEventListener('click', exportBuildsToCSV);
+
+    // Latency window selector
+    document.getElementById('latencyWindow')?.addEventListener('change', () => renderLatencyTable(latencyData));
 }
 
 // ==================== DATA LOADING ====================
@@ -107,7 +116,8 @@ async function loadAllData() {
             loadKPIMetrics(),
             loadSystemMetrics(),
             loadBuildStatistics(),
-            loadJenkinsBuilds()
+            loadJenkinsBuilds(),
+            loadHttpLatency()
         ]);
     } catch (error) {
         console.error('Error loading data:', error);
@@ -122,21 +132,7 @@ async function loadKPIMetrics() {
 
         const metrics = await response.json();
         console.log('📊 Metrics received:', metrics);
-
-        // CPU Usage
-        const cpuPercent = Math.min((metrics.cpuUsage || 0) * 100, 100);
-        animateNumber('cpuValue', cpuPercent.toFixed(1) + '%');
-        document.getElementById('cpuBar').style.width = `${cpuPercent}%`;
-        setTrendIndicator('cpuTrend', cpuPercent, 70);
-
-        // Memory Usage
-        const memoryPercent = Math.min((metrics.memoryUsage || 0) * 100, 100);
-        animateNumber('memoryValue', memoryPercent.toFixed(1) + '%');
-        document.getElementById('memoryBar').style.width = `${memoryPercent}%`;
-        setTrendIndicator('memoryTrend', memoryPercent, 80);
-
-        // Thread Count
-        animateNumber('threadCount', metrics.threadCount || 0);
+        renderKPIMetrics(metrics);
 
     } catch (error) {
         console.error('❌ Error loading KPI metrics:', error);
@@ -144,6 +140,23 @@ async function loadKPIMetrics() {
     }
 }
 
+function renderKPIMetrics(metrics) {
+    // CPU Usage
+    const cpuPercent = Math.min((metrics.cpuUsage || 0) * 100, 100);
+    animateNumber('cpuValue', cpuPercent.toFixed(1) + '%');
+    document.getElementById('cpuBar').style.width = `${cpuPercent}%`;
+    setTrendIndicator('cpuTrend', cpuPercent, 70);
+
+    // Memory Usage
+    const memoryPercent = Math.min((metrics.memoryUsage || 0) * 100, 100);
+    animateNumber('memoryValue', memoryPercent.toFixed(1) + '%');
+    document.getElementById('memoryBar').style.width = `${memoryPercent}%`;
+    setTrendIndicator('memoryTrend', memoryPercent, 80);
+
+    // Thread Count
+    animateNumber('threadCount', metrics.threadCount || 0);
+}
+
 // Load Build Statistics
 async function loadBuildStatistics() {
     try {
@@ -152,36 +165,45 @@ async function loadBuildStatistics() {
 
         const stats = await response.json();
         console.log('📈 Build stats received:', stats);
+        renderBuildStatistics(stats);
 
-        // Total Builds
-        animateNumber('totalBuilds', stats.totalBuilds || 0);
+    } catch (error) {
+        console.error('❌ Error loading build statistics:', error);
+    }
+}
 
-        // Success Rate
-        const successRate = stats.successRate || 0;
-        animateNumber('successRate', successRate.toFixed(1) + '%');
-        document.getElementById('successBar').style.width = `${successRate}%`;
+function renderBuildStatistics(stats) {
+    // Total Builds
+    animateNumber('totalBuilds', stats.totalBuilds || 0);
 
-        // Update status chart
-        if (stats.statusBreakdown) {
-            updateStatusChart(stats.statusBreakdown);
-        }
+    // Success Rate
+    const successRate = stats.successRate || 0;
+    animateNumber('successRate', successRate.toFixed(1) + '%');
+    document.getElementById('successBar').style.width = `${successRate}%`;
 
-    } catch (error) {
-        console.error('❌ Error loading build statistics:', error);
+    // Update status chart
+    if (stats.statusBreakdown) {
+        updateStatusChart(stats.statusBreakdown);
     }
 }
 
-// Load System Metrics History for Charts
+// Load System Metrics History for Charts - columnar, delta-encoded (one array per field)
 async function loadSystemMetrics() {
     try {
         const hours = document.getElementById('timeRange')?.value || 24;
-        const response = await fetch(`${CONFIG.API_BASE_URL}/api/metrics/history?hours=${hours}`);
+        // About one point per two pixels of chart width; the server downsamples with LTTB
+        const maxPoints = Math.max(50, Math.round((charts.system?.width || 1000) / 2));
+        const url = `${CONFIG.API_BASE_URL}/api/metrics/history?hours=${hours}&maxPoints=${maxPoints}&delta=true`;
+        const response = await fetch(url, {
+            headers: { Accept: CONFIG.METRICS_COLUMNS_TYPE }
+        });
         if (!response.ok) throw new Error(`HTTP ${response.status}`);
 
-        const history = await response.json();
-        console.log('📉 Metrics history received:', history.length, 'records');
+        const history = decodeMetricsColumns(await response.json());
+        console.log('📉 Metrics history received:', history.timestamps.length, 'records');
 
-        if (history.length > 0) {
+        systemHistory = history;
+        if (history.timestamps.length > 0) {
             updateSystemChart(history);
         }
 
@@ -212,37 +234,76 @@ async function loadJenkinsBuilds() {
     }
 }
 
-// Load builds directly from Jenkins via proxy
+// Load builds directly from Jenkins via proxy - one bulk request for all jobs
 async function loadBuildsFromJenkinsProxy() {
     try {
-        const response = await fetch(`${CONFIG.API_BASE_URL}/api/jenkins/jobs`);
+        const response = await fetch(`${CONFIG.API_BASE_URL}/api/jenkins/jobs/lastBuilds`);
         if (!response.ok) return;
 
         const jobs = await response.json();
-        if (jobs && jobs.jobs) {
-            const builds = [];
-            for (const job of jobs.jobs.slice(0, 5)) {
-                const lastBuild = await fetch(`${CONFIG.API_BASE_URL}/api/jenkins/job/${job.name}/lastBuild`);
-                if (lastBuild.ok) {
-                    const buildData = await lastBuild.json();
-                    builds.push({
-                        jobName: job.name,
-                        buildNumber: buildData.number,
-                        status: buildData.result || 'BUILDING',
-                        durationMs: buildData.duration,
-                        timestamp: new Date(buildData.timestamp).toISOString()
-                    });
-                }
-            }
-            allBuilds = builds;
-            renderBuildsTable(builds);
-        }
+        const builds = jobs
+            .filter(job => job.buildNumber != null)
+            .map(job => ({
+                jobName: job.jobName,
+                buildNumber: job.buildNumber,
+                status: job.status || 'BUILDING',
+                durationMs: job.durationMs,
+                timestamp: job.timestamp
+            }));
+        allBuilds = builds;
+        renderBuildsTable(builds);
     } catch (error) {
         console.error('❌ Error loading from Jenkins proxy:', error);
         renderBuildsTable([]);
     }
 }
 
+// Load per-endpoint latency percentiles
+async function loadHttpLatency() {
+    try {
+        const response = await fetch(`${CONFIG.API_BASE_URL}/api/metrics/http/latency`);
+        if (!response.ok) throw new Error(`HTTP ${response.status}`);
+
+        latencyData = await response.json();
+        renderLatencyTable(latencyData);
+
+    } catch (error) {
+        console.error('❌ Error loading endpoint latency:', error);
+    }
+}
+
+function renderLatencyTable(data) {
+    const tbody = document.getElementById('latencyTableBody');
+    if (!tbody || !data) return;
+
+    const selected = document.getElementById('latencyWindow')?.value || '1m';
+    const rows = (data.endpoints || [])
+        .map(endpoint => ({ ...endpoint, stats: endpoint.windows[selected] }))
+        .filter(endpoint => endpoint.stats && endpoint.stats.count > 0)
+        .sort((a, b) => b.stats.p99 - a.stats.p99);
+
+    if (rows.length === 0) {
+        tbody.innerHTML = `<tr><td colspan="7" class="px-6 py-8 text-center text-gray-500">No requests in this window</td></tr>`;
+        return;
+    }
+
+    const cell = (ms) => `<td class="px-6 py-4 text-right font-mono text-sm text-gray-600 dark:text-gray-400">${formatLatency(ms)}</td>`;
+    tbody.innerHTML = rows.map(endpoint => `
+        <tr class="hover:bg-gray-50 dark:hover:bg-slate-800/50 transition-colors">
+            <td class="px-6 py-4">
+                <span class="px-2 py-1 bg-gray-100 dark:bg-gray-800 rounded text-xs font-mono text-gray-700 dark:text-gray-300">${escapeHtml(endpoint.method)}</span>
+                <span class="ml-2 font-medium text-gray-900 dark:text-white">${escapeHtml(endpoint.route)}</span>
+            </td>
+            <td class="px-6 py-4 text-right text-gray-600 dark:text-gray-400">${endpoint.stats.count}</td>
+            ${cell(endpoint.stats.p50)}
+            ${cell(endpoint.stats.p90)}
+            ${cell(endpoint.stats.p99)}
+            ${cell(endpoint.stats.p999)}
+            ${cell(endpoint.stats.max)}
+        </tr>
+    `).join('');
+}
+
 // ==================== CHART INITIALIZATION ====================
 function initializeCharts() {
     const textColor = isDarkMode ? '#e2e8f0' : '#374151';
@@ -335,17 +396,29 @@ function initializeCharts() {
     }
 }
 
+// Undo delta encoding: each value is the difference from the previous non-null value of its column
+function decodeMetricsColumns(columns) {
+    if (columns.encoding === 'delta') {
+        for (const field of columns.deltaFields || []) {
+            let previous = 0;
+            columns[field] = columns[field].map(value => value === null ? null : (previous += value));
+        }
+    }
+    return {
+        timestamps: columns.timestamps || [],
+        cpuUsage: columns.cpuUsage || [],
+        memoryUsage: columns.memoryUsage || []
+    };
+}
+
 // ==================== CHART UPDATES ====================
+// History is columnar and ordered by time: { timestamps (epoch ms), cpuUsage, memoryUsage }
 function updateSystemChart(history) {
-    if (!charts.system || !history.length) return;
-
-    const sortedHistory = [...history].sort((a, b) =>
-        new Date(a.recordedAt) - new Date(b.recordedAt)
-    );
+    if (!charts.system || !history.timestamps.length) return;
 
-    const labels = sortedHistory.map(m => formatTime(m.recordedAt));
-    const cpuData = sortedHistory.map(m => Math.min((m.cpuUsage || 0) * 100, 100).toFixed(1));
-    const memoryData = sortedHistory.map(m => Math.min((m.memoryUsage || 0) * 100, 100).toFixed(1));
+    const labels = history.timestamps.map(formatTime);
+    const cpuData = history.cpuUsage.map(v => Math.min((v || 0) * 100, 100).toFixed(1));
+    const memoryData = history.memoryUsage.map(v => Math.min((v || 0) * 100, 100).toFixed(1));
 
     charts.system.data.labels = labels;
     charts.system.data.datasets[0].data = cpuData;
@@ -453,6 +526,12 @@ function formatDuration(ms) {
     return `${seconds}s`;
 }
 
+function formatLatency(ms) {
+    if (ms == null) return 'N/A';
+    if (ms >= 1000) return `${(ms / 1000).toFixed(2)}s`;
+    return `${ms.toFixed(ms < 10 ? 2 : 0)}ms`;
+}
+
 function formatDateTime(timestamp) {
     if (!timestamp) return '--';
     try {
@@ -534,27 +613,102 @@ function showToast(message, type = 'info') {
     }, 3000);
 }
 
+// The server streams the full build history; the browser saves it as it arrives
 function exportBuildsToCSV() {
-    if (!allBuilds.length) {
-        showToast('No builds to export', 'warning');
+    const a = document.createElement('a');
+    a.href = `${CONFIG.API_BASE_URL}/api/analytics/builds/export?format=csv`;
+    a.download = `builds_${new Date().toISOString().split('T')[0]}.csv`;
+    document.body.appendChild(a);
+    a.click();
+    a.remove();
+
+    showToast('Export started', 'success');
+}
+
+// ==================== LIVE UPDATES ====================
+// One SSE connection replaces interval polling: the server sends a full
+// snapshot first and then only the sections that changed.
+function startLiveUpdates() {
+    if (!window.EventSource) {
+        startAutoRefresh();
         return;
     }
 
-    const headers = ['Job Name', 'Build Number', 'Status', 'Duration (ms)', 'Timestamp'];
-    const rows = allBuilds.map(b => [b.jobName, b.buildNumber, b.status, b.durationMs || '', b.timestamp]);
+    eventSource = new EventSource(`${CONFIG.API_BASE_URL}${CONFIG.STREAM_URL}`);
 
-    let csv = headers.join(',') + '\n';
-    rows.forEach(row => csv += row.map(v => `"${v}"`).join(',') + '\n');
+    eventSource.onopen = () => {
+        console.log('📡 Live updates connected');
+        stopAutoRefresh();
+    };
 
-    const blob = new Blob([csv], { type: 'text/csv' });
-    const url = URL.createObjectURL(blob);
-    const a = document.createElement('a');
-    a.href = url;
-    a.download = `builds_${new Date().toISOString().split('T')[0]}.csv`;
-    a.click();
-    URL.revokeObjectURL(url);
+    eventSource.addEventListener('snapshot', (event) => {
+        const frame = JSON.parse(event.data);
+        dashboardState = frame.sections;
+        applySections(frame.sections);
+    });
+
+    eventSource.addEventListener('delta', (event) => {
+        const frame = JSON.parse(event.data);
+        Object.assign(dashboardState, frame.changed);
+        applySections(frame.changed);
+    });
+
+    eventSource.onerror = () => {
+        // The browser retries on its own; poll in the meantime so the page stays current
+        if (!refreshInterval) {
+            console.warn('⚠️ Live updates interrupted, falling back to polling');
+            startAutoRefresh();
+        }
+        if (eventSource.readyState === EventSource.CLOSED) {
+            eventSource = null;
+        }
+    };
+}
 
-    showToast('Builds exported!', 'success');
+function applySections(sections) {
+    updateLastUpdateTime();
+
+    if (sections.realtime) {
+        renderKPIMetrics(sections.realtime);
+        appendSystemSample(sections.realtime);
+    }
+    if (sections.buildStatistics) {
+        renderBuildStatistics(sections.buildStatistics);
+    }
+    if (sections.recentBuilds) {
+        const builds = sections.recentBuilds.map(build => ({
+            jobName: build.jobName,
+            buildNumber: build.number,
+            status: build.result || 'BUILDING',
+            durationMs: build.duration,
+            timestamp: build.timestamp ? new Date(build.timestamp).toISOString() : null
+        }));
+        allBuilds = builds;
+        renderBuildsTable(builds);
+    }
+    if (sections.httpLatency) {
+        latencyData = sections.httpLatency;
+        renderLatencyTable(latencyData);
+    }
+}
+
+// Add a live sample to the system chart and drop points outside the selected range
+function appendSystemSample(sample) {
+    if (!sample.recordedAt) return;
+    const recordedAt = new Date(sample.recordedAt).getTime();
+    const timestamps = systemHistory.timestamps;
+    if (timestamps.length && timestamps[timestamps.length - 1] >= recordedAt) return;
+
+    const hours = document.getElementById('timeRange')?.value || 24;
+    const cutoff = Date.now() - hours * 3600 * 1000;
+    let start = 0;
+    while (start < timestamps.length && timestamps[start] < cutoff) start++;
+    systemHistory = {
+        timestamps: [...timestamps.slice(start), recordedAt],
+        cpuUsage: [...systemHistory.cpuUsage.slice(start), sample.cpuUsage],
+        memoryUsage: [...systemHistory.memoryUsage.slice(start), sample.memoryUsage]
+    };
+    updateSystemChart(systemHistory);
 }
 
 // ==================== AUTO REFRESH ====================
@@ -573,4 +727,7 @@ function stopAutoRefresh() {
 }
 
 // Cleanup
-window.addEventListener('beforeunload', stopAutoRefresh);
\ No newline at end of file
+window.addEventListener('beforeunload', () => {
+    stopAutoRefresh();
+    eventSource?.close();
+});
\ No newline at end of file
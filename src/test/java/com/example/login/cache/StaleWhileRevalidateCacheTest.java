@@ -0,0 +1,119 @@
+package com.example.login.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleWhileRevalidateCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private StaleWhileRevalidateCache<String, String> cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void get_freshEntry_isServedFromCache() {
+        cache = new StaleWhileRevalidateCache<>("test", Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void get_staleEntry_returnsOldValueAndRefreshesInBackground() throws Exception {
+        cache = new StaleWhileRevalidateCache<>("test", Duration.ZERO, Duration.ofMinutes(1), registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loads.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void get_concurrentMisses_shareSingleLoad() throws Exception {
+        cache = new StaleWhileRevalidateCache<>("test", Duration.ofMinutes(1), Duration.ZERO, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "shared";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("shared", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_failedLoad_propagatesAndIsNotCached() {
+        cache = new StaleWhileRevalidateCache<>("test", Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", cache.get("k", () -> "ok"));
+        assertEquals(1L, registry.get("cache.refresh").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void get_loaderThrowsError_releasesInFlightLoad() throws Exception {
+        cache = new StaleWhileRevalidateCache<>("test", Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+
+        assertThrows(StackOverflowError.class, () -> cache.get("k", () -> {
+            throw new StackOverflowError();
+        }));
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> next = caller.submit(() -> cache.get("k", () -> "ok"));
+            assertEquals("ok", next.get(2, TimeUnit.SECONDS));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+}
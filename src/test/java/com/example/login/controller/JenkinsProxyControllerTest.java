@@ -0,0 +1,135 @@
+package com.example.login.controller;
+
+import com.example.login.service.JenkinsClient;
+import com.example.login.service.JenkinsJobsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JenkinsProxyControllerTest {
+
+    @Mock
+    private JenkinsClient jenkinsClient;
+
+    @Mock
+    private JenkinsJobsService jenkinsJobsService;
+
+    @InjectMocks
+    private JenkinsProxyController controller;
+
+    @Test
+    void lastBuild_queuesSaveAndReturnsBody() {
+        String body = "{\"number\":7,\"result\":\"SUCCESS\",\"timestamp\":1700000000000}";
+        when(jenkinsClient.get("/job/app/lastBuild/api/json", "application/json"))
+                .thenReturn(CompletableFuture.completedFuture(body));
+
+        ResponseEntity<String> response = controller.getLastBuild("app").join();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(body, response.getBody());
+        verify(jenkinsJobsService).saveLastBuild("app", body);
+    }
+
+    @Test
+    void parseRangeStart_acceptsOnlyOpenEndedByteRanges() {
+        assertEquals(100L, JenkinsProxyController.parseRangeStart("bytes=100-"));
+        assertEquals(0L, JenkinsProxyController.parseRangeStart("bytes=0-"));
+        assertNull(JenkinsProxyController.parseRangeStart(null));
+        assertNull(JenkinsProxyController.parseRangeStart("bytes=0-99"));
+        assertNull(JenkinsProxyController.parseRangeStart("bytes=-500"));
+        assertNull(JenkinsProxyController.parseRangeStart("bytes=abc-"));
+        assertNull(JenkinsProxyController.parseRangeStart("items=10-"));
+    }
+
+    @Test
+    void consoleRange_finishedBuild_returnsPartialContentWithTotalSize() throws IOException {
+        upstream("/job/app/lastBuild/logText/progressiveText?start=100", 250, false, "tail");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getConsoleOutput("app", null, "bytes=100-").join();
+
+        assertEquals(206, response.getStatusCode().value());
+        assertEquals("bytes 100-249/250", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("250", response.getHeaders().getFirst("X-Text-Size"));
+        assertEquals("tail", body(response));
+    }
+
+    @Test
+    void consoleRange_runningBuild_leavesTotalSizeOpen() {
+        upstream("/job/app/lastBuild/logText/progressiveText?start=100", 250, true, "tail");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getConsoleOutput("app", null, "bytes=100-").join();
+
+        assertEquals(206, response.getStatusCode().value());
+        assertEquals("bytes 100-249/*", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("true", response.getHeaders().getFirst("X-More-Data"));
+    }
+
+    @Test
+    void consoleRange_caughtUpWithRunningBuild_returnsEmptyOk() throws IOException {
+        upstream("/job/app/lastBuild/logText/progressiveText?start=250", 250, true, "");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getConsoleOutput("app", null, "bytes=250-").join();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("250", response.getHeaders().getFirst("X-Text-Size"));
+        assertEquals("true", response.getHeaders().getFirst("X-More-Data"));
+        assertEquals("", body(response));
+    }
+
+    @Test
+    void consoleRange_beyondEndOfLog_isNotSatisfiable() {
+        upstream("/job/app/lastBuild/logText/progressiveText?start=300", 250, false, "");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getConsoleOutput("app", null, "bytes=300-").join();
+
+        assertEquals(416, response.getStatusCode().value());
+        assertEquals("bytes */250", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void consoleStartParam_returnsOkWithNextOffset() {
+        upstream("/job/app/lastBuild/logText/progressiveText?start=100", 250, true, "tail");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getConsoleOutput("app", 100L, null).join();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("250", response.getHeaders().getFirst("X-Text-Size"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void upstream(String path, long textSize, boolean moreData, String body) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.headers()).thenReturn(java.net.http.HttpHeaders.of(Map.of(
+                "X-Text-Size", List.of(String.valueOf(textSize)),
+                "X-More-Data", List.of(String.valueOf(moreData))), (name, value) -> true));
+        when(response.body()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        when(jenkinsClient.stream(path, "text/plain")).thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
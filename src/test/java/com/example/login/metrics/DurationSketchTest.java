@@ -0,0 +1,65 @@
+package com.example.login.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationSketchTest {
+
+    @Test
+    void quantile_staysWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        long[] durations = new long[10_000];
+        DurationSketch sketch = new DurationSketch();
+        for (int i = 0; i < durations.length; i++) {
+            // Mostly 1-5 minute builds with a long tail
+            durations[i] = 60_000 + (long) (random.nextExponential() * 90_000);
+            sketch.add(durations[i]);
+        }
+        Arrays.sort(durations);
+
+        for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+            long exact = durations[(int) Math.floor(q * (durations.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * DurationSketch.RELATIVE_ACCURACY, "q=" + q);
+        }
+        assertEquals(durations[durations.length - 1], sketch.getMax());
+    }
+
+    @Test
+    void merge_ofDailySketches_matchesSingleSketch() {
+        DurationSketch monday = new DurationSketch();
+        DurationSketch tuesday = new DurationSketch();
+        DurationSketch all = new DurationSketch();
+        for (long ms = 0; ms < 2000; ms++) {
+            (ms % 2 == 0 ? monday : tuesday).add(ms * 37);
+            all.add(ms * 37);
+        }
+
+        monday.merge(tuesday);
+
+        assertEquals(all.getCount(), monday.getCount());
+        assertEquals(all.quantile(0.5), monday.quantile(0.5));
+        assertEquals(all.quantile(0.99), monday.quantile(0.99));
+    }
+
+    @Test
+    void toBytes_roundTripsCompactly() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(0);
+        for (long ms = 1000; ms < 7_200_000; ms += 1000) {
+            sketch.add(ms);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        DurationSketch restored = DurationSketch.fromBytes(bytes);
+
+        assertTrue(bytes.length < 2048, "sketch took " + bytes.length + " bytes");
+        assertEquals(sketch.getCount(), restored.getCount());
+        assertEquals(sketch.getMax(), restored.getMax());
+        assertEquals(sketch.quantile(0.9), restored.quantile(0.9));
+        assertEquals(0, DurationSketch.fromBytes(new DurationSketch().toBytes()).getCount());
+    }
+}
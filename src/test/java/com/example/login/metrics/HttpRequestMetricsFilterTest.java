@@ -0,0 +1,109 @@
+package com.example.login.metrics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.RequestDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRequestMetricsFilterTest {
+
+    private final HttpRequestCounters counters = new HttpRequestCounters();
+    private final EndpointLatencies latencies = new EndpointLatencies(10000, new int[] {1, 5});
+    private final HttpRequestMetricsFilter filter = new HttpRequestMetricsFilter(counters, latencies);
+
+    @Test
+    void doFilter_countsByMatchedRouteMethodAndStatusClass() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            serve("GET", "/api/jenkins/job/app", "/api/jenkins/job/{jobName}", 200);
+        }
+        serve("GET", "/api/jenkins/job/other", "/api/jenkins/job/{jobName}", 500);
+
+        List<Map<String, Object>> rows = counters.snapshot();
+
+        assertEquals(4, counters.total());
+        assertEquals(2, rows.size());
+        assertEquals("/api/jenkins/job/{jobName}", rows.get(0).get("route"));
+        assertEquals("2xx", rows.get(0).get("status"));
+        assertEquals(3L, rows.get(0).get("count"));
+        assertEquals("5xx", rows.get(1).get("status"));
+    }
+
+    @Test
+    void doFilter_unmatchedPathsShareOneRoute() throws Exception {
+        serve("GET", "/does/not/exist", null, 404);
+        serve("GET", "/also/missing", null, 404);
+
+        List<Map<String, Object>> rows = counters.snapshot();
+
+        assertEquals(1, rows.size());
+        assertEquals(HttpRequestMetricsFilter.UNMATCHED, rows.get(0).get("route"));
+        assertEquals(2L, rows.get(0).get("count"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doFilter_recordsLatencyPerRoute() throws Exception {
+        serve("GET", "/api/analytics/dashboard/summary", "/api/analytics/dashboard/summary", 200);
+        serve("GET", "/api/analytics/dashboard/summary", "/api/analytics/dashboard/summary", 304);
+        latencies.rotate();
+
+        List<Map<String, Object>> endpoints = (List<Map<String, Object>>) latencies.snapshot().get("endpoints");
+
+        assertEquals(1, endpoints.size());
+        assertEquals("/api/analytics/dashboard/summary", endpoints.get(0).get("route"));
+        Map<String, Object> windows = (Map<String, Object>) endpoints.get(0).get("windows");
+        assertEquals(2L, ((Map<String, Object>) windows.get("1m")).get("count"));
+    }
+
+    @Test
+    void doFilter_handlerThrows_countsServerErrorOnceAndRethrows() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jenkins/job/app");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request, response, (req, res) -> {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/jenkins/job/{jobName}");
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals("boom", thrown.getMessage());
+        List<Map<String, Object>> rows = counters.snapshot();
+        assertEquals(1, counters.total());
+        assertEquals("/api/jenkins/job/{jobName}", rows.get(0).get("route"));
+        assertEquals("5xx", rows.get(0).get("status"));
+    }
+
+    @Test
+    void doFilter_errorDispatchIsNotCounted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/error");
+        request.setDispatcherType(DispatcherType.ERROR);
+        request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, "/api/jenkins/job/app");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/error");
+            ((MockHttpServletResponse) res).setStatus(500);
+        });
+
+        assertEquals(0, counters.total());
+        assertTrue(counters.snapshot().isEmpty());
+    }
+
+    private void serve(String method, String uri, String pattern, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            if (pattern != null) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            }
+            ((MockHttpServletResponse) res).setStatus(status);
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.login.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventAggregatorTest {
+
+    private final JfrEventAggregator aggregator = new JfrEventAggregator(false, "100/s", 10, 3);
+
+    @Test
+    void close_summarizesIntervalAndResetsTotals() {
+        aggregator.recordGarbageCollection(4_000_000, 3_000_000);
+        aggregator.recordGarbageCollection(2_000_000, 2_000_000);
+        aggregator.recordAllocation(512 * 1024);
+        aggregator.recordMonitorEnter(15_000_000);
+        long start = System.currentTimeMillis();
+
+        JvmEventSummary summary = aggregator.close(start + 1000);
+        JvmEventSummary next = aggregator.close(start + 2000);
+
+        assertEquals(2, summary.gcCount());
+        assertEquals(6.0, summary.gcPauseMs());
+        assertEquals(3.0, summary.gcPauseMaxMs());
+        assertEquals(512 * 1024, summary.allocatedBytes());
+        assertEquals(1, summary.monitorBlockedCount());
+        assertEquals(15.0, summary.monitorBlockedMaxMs());
+        assertEquals(0, next.gcCount());
+        assertEquals(0, next.allocatedBytes());
+        assertEquals(0.0, next.allocationRate());
+    }
+
+    @Test
+    void getHistory_keepsOnlyConfiguredNumberOfIntervals() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            aggregator.recordSafepoint(1_000_000L * (i + 1));
+            aggregator.close(now + i);
+        }
+
+        List<JvmEventSummary> history = aggregator.getHistory(60);
+        JvmEventSummary merged = JvmEventSummary.merge(history);
+
+        assertEquals(3, history.size());
+        assertEquals(3, merged.safepointCount());
+        assertEquals(12.0, merged.safepointMs());
+        assertEquals(5.0, merged.safepointMaxMs());
+    }
+
+    @Test
+    void drain_whenJfrNotRunning_returnsNull() {
+        aggregator.start();
+
+        assertFalse(aggregator.isRunning());
+        assertNull(aggregator.drain());
+    }
+}
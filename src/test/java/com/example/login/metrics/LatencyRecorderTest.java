@@ -0,0 +1,74 @@
+package com.example.login.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+    @Test
+    void bucketIndex_staysWithinRelativeErrorOfHistogramLayout() {
+        for (long value = 0; value < 10_000_000; value = value * 11 / 10 + 1) {
+            long upper = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(upper >= value, "bucket below value " + value);
+            assertTrue(upper - value <= value / LatencyHistogram.SUB_BUCKET_HALF,
+                    "bucket too wide for value " + value);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    void summarize_returnsPercentilesOfMergedIntervals() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long micros = 1; micros <= 900; micros++) {
+            recorder.record(micros * 1000);
+        }
+        LatencyInterval first = recorder.interval(1000);
+        for (long micros = 901; micros <= 1000; micros++) {
+            recorder.record(micros * 1000);
+        }
+        LatencyInterval second = recorder.interval(2000);
+
+        LatencyInterval.Summary summary = LatencyInterval.summarize(List.of(first, second));
+
+        assertEquals(1000, summary.count());
+        assertEquals(1_000_000, summary.max());
+        assertEquals(500_000, summary.p50(), 500_000 / 32.0);
+        assertEquals(990_000, summary.p99(), 990_000 / 32.0);
+        assertEquals(1_000_000, summary.p999(), 1_000_000 / 32.0);
+    }
+
+    @Test
+    void interval_concurrentWriters_loseNoValues() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        int writers = 4;
+        int perWriter = 200_000;
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < writers; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    recorder.record(i % 5000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long total = 0;
+        while (!done.get()) {
+            total += recorder.interval(System.currentTimeMillis()).total();
+            done.set(threads.stream().noneMatch(Thread::isAlive));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        total += recorder.interval(System.currentTimeMillis()).total();
+
+        assertEquals((long) writers * perWriter, total);
+    }
+}
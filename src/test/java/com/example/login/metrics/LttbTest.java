@@ -0,0 +1,107 @@
+package com.example.login.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbTest {
+
+    @Test
+    void select_keepsFirstAndLastAndReturnsThresholdIndexesInOrder() {
+        int size = 10_000;
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * 30_000L;
+            values[i] = Math.sin(i / 100.0);
+        }
+
+        int[] keep = Lttb.select(timestamps, size, 500, values);
+
+        assertEquals(500, keep.length);
+        assertEquals(0, keep[0]);
+        assertEquals(size - 1, keep[keep.length - 1]);
+        for (int i = 1; i < keep.length; i++) {
+            assertTrue(keep[i] > keep[i - 1], "indexes ascending at " + i);
+        }
+    }
+
+    @Test
+    void select_keepsPeaksOfEverySeries() {
+        int size = 2_880;
+        long[] timestamps = new long[size];
+        double[] cpu = new double[size];
+        double[] memory = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * 30_000L;
+            cpu[i] = 0.2;
+            memory[i] = 0.5;
+        }
+        cpu[1_234] = 0.95;
+        memory[2_001] = 0.05;
+        memory[500] = Double.NaN;
+
+        int[] keep = Lttb.select(timestamps, size, 100, cpu, memory);
+
+        assertTrue(Arrays.stream(keep).anyMatch(i -> i == 1_234), "CPU spike kept");
+        assertTrue(Arrays.stream(keep).anyMatch(i -> i == 2_001), "memory dip kept");
+    }
+
+    @Test
+    void select_neverPrefersMissingSamples() {
+        int size = 2_880;
+        long[] timestamps = new long[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * 30_000L;
+            values[i] = 0.5;
+        }
+        values[1_000] = Double.NaN;
+        values[1_001] = Double.NaN;
+
+        int[] keep = Lttb.select(timestamps, size, 100, values);
+
+        assertTrue(Arrays.stream(keep).noneMatch(i -> i == 1_000 || i == 1_001), "gap not kept as a dip");
+    }
+
+    @Test
+    void select_averagesNextBucketOverPresentSamplesOnly() {
+        long[] timestamps = { 0, 1, 2, 3, 4, 5, 6, 7 };
+        double[] values = { 0, 0.25, 0.25, 0.75, 1.0, Double.NaN, Double.NaN, 1.0 };
+
+        // Next bucket averages to (4, 1.0); counting the gaps as 0 would pull it to (5, 0.33) and pick index 3
+        assertArrayEquals(new int[] { 0, 2, 4, 7 }, Lttb.select(timestamps, 8, 4, values));
+    }
+
+    @Test
+    void select_returnsEverythingWhenItFits() {
+        long[] timestamps = { 1, 2, 3, 4 };
+        double[] values = { 1, 2, 3, 4 };
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, Lttb.select(timestamps, 4, 10, values));
+        assertThrows(IllegalArgumentException.class, () -> Lttb.select(timestamps, 4, 2, values));
+    }
+
+    @Test
+    void downsample_keepsAllFieldsOfChosenSamples() {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(300);
+        for (int i = 0; i < 240; i++) {
+            buffer.record(i * 30_000L, i == 100 ? 0.9 : 0.1, 0.5, 40, i, 1000L + i, 2000L);
+        }
+        MetricsSeries series = MetricsSeries.copyOf(buffer.since(0), 240);
+
+        MetricsSeries downsampled = series.downsample(60);
+
+        assertEquals(60, downsampled.size());
+        boolean spikeKept = false;
+        for (int i = 0; i < downsampled.size(); i++) {
+            assertEquals(downsampled.httpRequestsTotal(i) + 1000L, downsampled.jvmMemoryUsed(i));
+            assertEquals(downsampled.httpRequestsTotal(i) * 30_000L, downsampled.timestamp(i));
+            spikeKept |= downsampled.httpRequestsTotal(i) == 100;
+        }
+        assertTrue(spikeKept);
+        assertSame(series, series.downsample(240));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.login.metrics;
+
+import com.example.login.dto.MetricsPoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsColumnsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 19, 12, 0);
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void serialize_writesOneArrayPerFieldAndOmitsEmptyColumns() throws Exception {
+        JsonNode body = json.valueToTree(MetricsColumns.of(points(), false));
+
+        assertEquals(3, body.get("size").asInt());
+        assertEquals("raw", body.get("encoding").asText());
+        assertEquals(epochMilli(START.plusSeconds(60)), body.get("timestamps").get(2).asLong());
+        assertEquals(0.3, body.get("cpuUsage").get(2).asDouble());
+        assertTrue(body.get("gcCount").get(1).isNull());
+        assertFalse(body.has("safepointMs"), "column without values");
+        assertFalse(body.has("deltaFields"));
+    }
+
+    @Test
+    void serialize_delta_encodesIntegerColumnsAgainstPreviousValue() throws Exception {
+        JsonNode body = json.valueToTree(MetricsColumns.of(points(), true));
+
+        assertEquals("delta", body.get("encoding").asText());
+        assertEquals(List.of("timestamps", "threadCount", "httpRequestsTotal", "jvmMemoryUsed", "jvmMemoryMax",
+                "gcCount"), json.convertValue(body.get("deltaFields"), List.class));
+        assertEquals(epochMilli(START), body.get("timestamps").get(0).asLong());
+        assertEquals(30_000, body.get("timestamps").get(1).asLong());
+        assertEquals(30_000, body.get("timestamps").get(2).asLong());
+        // gcCount 2, null, 5: the null is skipped and the next delta is taken from 2
+        assertEquals(2, body.get("gcCount").get(0).asLong());
+        assertTrue(body.get("gcCount").get(1).isNull());
+        assertEquals(3, body.get("gcCount").get(2).asLong());
+        // Doubles are never delta-encoded
+        assertEquals(0.2, body.get("cpuUsage").get(1).asDouble());
+    }
+
+    @Test
+    void serialize_cbor_isSmallerThanPointsAsJson() throws Exception {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(250);
+        long start = epochMilli(START);
+        for (int i = 0; i < 240; i++) {
+            buffer.record(start + i * 30_000L, 0.1 + i % 7 / 100.0, 0.5, 40, 1000L + i * 13, 300_000_000L + i * 4096,
+                    1L << 30);
+        }
+        MetricsSeries series = MetricsSeries.copyOf(buffer.since(0), 240);
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        byte[] points = json.writeValueAsBytes(series);
+        byte[] columns = cbor.writeValueAsBytes(MetricsColumns.of(series, true));
+
+        JsonNode decoded = cbor.readTree(columns);
+        assertEquals(240, decoded.get("size").asInt());
+        assertEquals(13, decoded.get("httpRequestsTotal").get(239).asLong());
+        assertTrue(columns.length * 3 < points.length, columns.length + " vs " + points.length + " bytes");
+    }
+
+    @Test
+    void requestedType_matchesColumnarTypesOnly() {
+        assertEquals(MetricsColumns.MEDIA_TYPE, MetricsColumns.requestedType(
+                "application/vnd.capstone.metrics-columns+json, application/json;q=0.9"));
+        assertEquals(MediaType.APPLICATION_CBOR, MetricsColumns.requestedType("application/cbor"));
+        assertNull(MetricsColumns.requestedType("*/*"));
+        assertNull(MetricsColumns.requestedType("application/json"));
+        assertNull(MetricsColumns.requestedType(null));
+    }
+
+    private static List<MetricsPoint> points() {
+        return List.of(
+                new MetricsPoint(0.1, 0.5, 40, 100L, 1000L, 4000L, 2, 1.5, 1e6, null, 0.0, START),
+                new MetricsPoint(0.2, 0.5, 40, 110L, 1200L, 4000L, null, null, 2e6, null, 0.0, START.plusSeconds(30)),
+                new MetricsPoint(0.3, 0.6, 41, 125L, 900L, 4000L, 5, 0.5, 1e6, null, 0.0, START.plusSeconds(60)));
+    }
+
+    private static long epochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
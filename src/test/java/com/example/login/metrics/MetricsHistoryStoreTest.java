@@ -0,0 +1,103 @@
+package com.example.login.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsHistoryStoreTest {
+
+    private static final long START_MS = 1_768_824_000_000L;
+    private static final long INTERVAL_MS = 30_000;
+
+    @Test
+    void cursor_decodesEveryFieldExactly() {
+        MetricsHistoryStore store = new MetricsHistoryStore(64, 24, new SimpleMeterRegistry());
+        Random random = new Random(42);
+        List<double[]> expected = new ArrayList<>();
+        long timestamp = START_MS;
+        long requests = 0;
+        for (int i = 0; i < 200; i++) {
+            // Scheduling jitter, noisy gauges, a growing counter and the odd missing or extreme value
+            timestamp += INTERVAL_MS + random.nextInt(21) - 10;
+            requests += random.nextInt(50);
+            double cpu = random.nextDouble();
+            long memoryUsed = 200_000_000L + random.nextInt(50_000_000);
+            long memoryMax = i == 17 ? MetricsBlock.MISSING_LONG : 1L << 30;
+            double safepoint = i % 10 == 0 ? Double.NaN : random.nextInt(100) / 10.0;
+            double monitor = i == 99 ? -Double.MAX_VALUE : 0.0;
+            store.record(timestamp, cpu, memoryUsed / (double) (1L << 30), 40 + i % 3, requests, memoryUsed,
+                    memoryMax, i % 4, 0.0, random.nextDouble() * 1e7, safepoint, monitor);
+            expected.add(new double[] { timestamp, cpu, requests, memoryUsed, memoryMax, safepoint, monitor });
+        }
+
+        MetricsHistoryStore.Cursor cursor = store.since(Long.MIN_VALUE);
+        for (int i = 0; i < expected.size(); i++) {
+            double[] sample = expected.get(i);
+            assertTrue(cursor.next(), "sample " + i);
+            assertEquals((long) sample[0], cursor.timestamp());
+            assertEquals(sample[1], cursor.cpuUsage());
+            assertEquals((long) sample[2], cursor.httpRequestsTotal());
+            assertEquals((long) sample[3], cursor.jvmMemoryUsed());
+            assertEquals(i == 17 ? MetricsBlock.MISSING_LONG : 1L << 30, cursor.jvmMemoryMax());
+            assertEquals(40 + i % 3, cursor.threadCount());
+            assertEquals(i % 4, cursor.gcCount());
+            assertEquals(sample[5], cursor.safepointMs());
+            assertEquals(sample[6], cursor.monitorBlockedMs());
+        }
+        assertFalse(cursor.next());
+        assertEquals(200, store.size());
+    }
+
+    @Test
+    void range_spansBlocksAndIncludesOnlyRequestedSamples() {
+        MetricsHistoryStore store = new MetricsHistoryStore(10, 24, new SimpleMeterRegistry());
+        for (int i = 0; i < 35; i++) {
+            recordSteady(store, i);
+        }
+
+        List<Long> counters = new ArrayList<>();
+        MetricsHistoryStore.Cursor cursor = store.range(START_MS + 8 * INTERVAL_MS, START_MS + 23 * INTERVAL_MS);
+        while (cursor.next()) {
+            counters.add(cursor.httpRequestsTotal());
+        }
+
+        assertEquals(LongStream.range(8, 23).boxed().toList(), counters);
+    }
+
+    @Test
+    void record_dropsWholeBlocksPastRetention() {
+        MetricsHistoryStore store = new MetricsHistoryStore(120, 1, new SimpleMeterRegistry());
+        // Three hours of samples; an hour is 120 samples, so one block per hour
+        for (int i = 0; i < 360; i++) {
+            recordSteady(store, i);
+        }
+
+        // The block holding hour two is still needed for a one-hour window ending at the last sample
+        assertEquals(START_MS + TimeUnit.HOURS.toMillis(1), store.oldestMs());
+        assertEquals(240, store.size());
+    }
+
+    @Test
+    void steadySamples_compressBelowTwoBytesPerSample() {
+        MetricsHistoryStore store = new MetricsHistoryStore(720, 24, new SimpleMeterRegistry());
+        for (int i = 0; i < 2880; i++) {
+            recordSteady(store, i);
+        }
+
+        // All twelve fields of an unchanged sample, including the timestamp, cost about one bit each
+        double bytesPerSample = store.sizeBytes() / (double) store.size();
+        assertTrue(bytesPerSample < 2.0, "bytes per sample: " + bytesPerSample);
+    }
+
+    private static void recordSteady(MetricsHistoryStore store, int i) {
+        store.record(START_MS + i * INTERVAL_MS, 0.25, 0.5, 40, i, 300_000_000L, 1L << 30,
+                0, 0.0, Double.NaN, 0.0, 0.0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.login.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRingBufferTest {
+
+    @Test
+    void since_afterWrapAround_returnsNewestSamplesOldestFirst() {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            record(buffer, i);
+        }
+
+        assertEquals(List.of(7000L, 8000L, 9000L), timestamps(buffer.since(0)));
+        assertEquals(List.of(8000L, 9000L), timestamps(buffer.since(8000)));
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void last_returnsRequestedNumberOfNewestSamples() {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            record(buffer, i);
+        }
+
+        MetricsRingBuffer.Cursor cursor = buffer.last(2);
+        assertTrue(cursor.next());
+        assertEquals(30, cursor.httpRequestsTotal());
+        assertTrue(cursor.next());
+        assertEquals(40, cursor.httpRequestsTotal());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void emptyBuffer_hasNoSamples() {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(4);
+
+        assertFalse(buffer.last(1).next());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void concurrentReaders_neverSeeTornSamples() throws Exception {
+        MetricsRingBuffer buffer = new MetricsRingBuffer(16);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get() && i < 2_000_000; i++) {
+                record(buffer, i);
+            }
+            running.set(false);
+        });
+        writer.start();
+
+        while (running.get() && failure.get() == null) {
+            MetricsRingBuffer.Cursor cursor = buffer.since(0);
+            while (cursor.next()) {
+                long seq = cursor.timestamp() / 1000;
+                if (cursor.cpuUsage() != seq || cursor.threadCount() != (int) seq
+                        || cursor.httpRequestsTotal() != seq * 10) {
+                    failure.set("torn sample at " + seq);
+                }
+            }
+        }
+        running.set(false);
+        writer.join();
+
+        assertNull(failure.get());
+    }
+
+    private static void record(MetricsRingBuffer buffer, int i) {
+        buffer.record(i * 1000L, i, i, i, i * 10L, i, i);
+    }
+
+    private static List<Long> timestamps(MetricsRingBuffer.Cursor cursor) {
+        List<Long> result = new ArrayList<>();
+        while (cursor.next()) {
+            result.add(cursor.timestamp());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildAggregate;
+import com.example.login.entity.BuildHistory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildAggregateBatchRepositoryImplTest {
+
+    @Test
+    void deltas_movesChangedBuildFromOldStatusToNewOne() {
+        LocalDateTime started = LocalDateTime.of(2024, 5, 1, 10, 0);
+        BuildHistory running = new BuildHistory("job", 7, "BUILDING", 100L, started);
+        BuildHistory finished = new BuildHistory("job", 7, "SUCCESS", 4000L, started);
+        BuildHistory other = new BuildHistory("job", 8, "SUCCESS", 2000L, started.plusHours(1));
+
+        List<BuildAggregateBatchRepositoryImpl.Delta> deltas = new ArrayList<>(
+                BuildAggregateBatchRepositoryImpl.deltas(List.of(running), List.of(finished, other)));
+
+        assertEquals(2, deltas.size());
+        BuildAggregateBatchRepositoryImpl.Delta building = deltas.get(0);
+        assertEquals("BUILDING", building.status);
+        assertEquals(-1, building.count);
+        assertEquals(-100, building.durationSum);
+        assertEquals(-1, building.durationCount);
+        assertNull(building.durationMin);
+        assertNull(building.lastBuildNumber);
+
+        BuildAggregateBatchRepositoryImpl.Delta success = deltas.get(1);
+        assertEquals("SUCCESS", success.status);
+        assertEquals(2, success.count);
+        assertEquals(6000, success.durationSum);
+        assertEquals(2000L, success.durationMin);
+        assertEquals(4000L, success.durationMax);
+        assertEquals(8, success.lastBuildNumber);
+        assertEquals(started.plusHours(1), success.lastBuildAt);
+    }
+
+    @Test
+    void deltas_countsBuildsWithoutDurationOrStatus() {
+        BuildHistory unknown = new BuildHistory("job", 1, null, null, null);
+
+        BuildAggregateBatchRepositoryImpl.Delta delta =
+                BuildAggregateBatchRepositoryImpl.deltas(List.of(), List.of(unknown)).iterator().next();
+
+        assertEquals(BuildAggregate.UNKNOWN_STATUS, delta.status);
+        assertEquals(1, delta.count);
+        assertEquals(0, delta.durationCount);
+        assertNull(delta.durationMax);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildHistory;
+import com.example.login.service.BuildDurationSketchService;
+import com.example.login.service.BuildHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares 10k-build imports through the old row-by-row path (SELECT, then
+ * INSERT or UPDATE per build) against {@link BuildHistoryService#saveBuilds},
+ * fed in ingestion-sized batches.
+ *
+ * Needs a PostgreSQL database, so it only runs when pointed at one:
+ * <pre>
+ * mvn test -Dtest=BuildHistoryUpsertBenchmark \
+ *     -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/capstone?reWriteBatchedInserts=true \
+ *     -Dbenchmark.db.user=admin -Dbenchmark.db.password=secret
+ * </pre>
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BuildHistoryService.class, BuildDurationSketchService.class})
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+class BuildHistoryUpsertBenchmark {
+
+    private static final int BUILDS = 10_000;
+    private static final int BATCH_SIZE = 200;
+    private static final String JOB_PREFIX = "bench-upsert-";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.db.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.db.user", "admin"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.db.password", ""));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private BuildHistoryService buildHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("build_history", "build_aggregate", "build_duration_sketch")) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE job_name LIKE ?", JOB_PREFIX + "%");
+        }
+    }
+
+    @Test
+    void compareRowByRowWithBatchedUpsert() {
+        List<BuildHistory> builds = generateBuilds();
+
+        long rowByRowNanos = time(() -> rowByRow(builds));
+        cleanUp();
+        long insertNanos = time(() -> saveInBatches(builds));
+
+        // A second pass is the common poll case: every build already stored and unchanged
+        long unchangedNanos = time(() -> saveInBatches(builds));
+
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM build_history WHERE job_name LIKE ?", Integer.class, JOB_PREFIX + "%");
+        assertEquals(BUILDS, stored);
+
+        System.out.printf("build_history import of %d builds:%n", BUILDS);
+        System.out.printf("  row-by-row select+save  : %,10.0f rows/sec%n", rate(rowByRowNanos));
+        System.out.printf("  saveBuilds (insert)     : %,10.0f rows/sec%n", rate(insertNanos));
+        System.out.printf("  saveBuilds (unchanged)  : %,10.0f rows/sec%n", rate(unchangedNanos));
+    }
+
+    private void saveInBatches(List<BuildHistory> builds) {
+        for (int from = 0; from < builds.size(); from += BATCH_SIZE) {
+            buildHistoryService.saveBuilds(builds.subList(from, Math.min(from + BATCH_SIZE, builds.size())));
+        }
+    }
+
+    /**
+     * Mirrors the original saveBuild: one lookup plus one write per build
+     */
+    private void rowByRow(List<BuildHistory> builds) {
+        for (BuildHistory build : builds) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM build_history WHERE job_name = ? AND build_number = ?",
+                    Long.class, build.getJobName(), build.getBuildNumber());
+            if (ids.isEmpty()) {
+                jdbcTemplate.update("INSERT INTO build_history "
+                        + "(job_name, build_number, status, duration_ms, timestamp, created_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                        build.getJobName(), build.getBuildNumber(), build.getStatus(), build.getDurationMs(),
+                        Timestamp.valueOf(build.getTimestamp()), Timestamp.valueOf(LocalDateTime.now()));
+            } else {
+                jdbcTemplate.update("UPDATE build_history SET status = ?, duration_ms = ?, timestamp = ? WHERE id = ?",
+                        build.getStatus(), build.getDurationMs(), Timestamp.valueOf(build.getTimestamp()),
+                        ids.get(0));
+            }
+        }
+    }
+
+    private static List<BuildHistory> generateBuilds() {
+        String[] statuses = { "SUCCESS", "SUCCESS", "SUCCESS", "FAILURE", "UNSTABLE" };
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+        List<BuildHistory> builds = new ArrayList<>(BUILDS);
+        for (int i = 0; i < BUILDS; i++) {
+            builds.add(new BuildHistory(JOB_PREFIX + (i % 20), i / 20 + 1, statuses[i % statuses.length],
+                    60_000L + (i % 97) * 1_000L, start.plusMinutes(i * 12L)));
+        }
+        return builds;
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    private static double rate(long nanos) {
+        return BUILDS / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.login.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JdbcTimestampsTest {
+
+    @Test
+    void setTimestamp_bindsInUtc() throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        LocalDateTime value = LocalDateTime.of(2024, 5, 1, 10, 30);
+
+        JdbcTimestamps.setTimestamp(ps, 3, value);
+
+        ArgumentCaptor<Calendar> calendar = ArgumentCaptor.forClass(Calendar.class);
+        verify(ps).setTimestamp(eq(3), eq(Timestamp.valueOf(value)), calendar.capture());
+        assertEquals("UTC", calendar.getValue().getTimeZone().getID());
+    }
+
+    @Test
+    void setTimestamp_bindsNullAsTimestamp() throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        JdbcTimestamps.setTimestamp(ps, 2, null);
+
+        verify(ps).setNull(2, Types.TIMESTAMP);
+        verifyNoMoreInteractions(ps);
+    }
+
+    @Test
+    void getTimestamp_readsInUtcAndKeepsNull() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        LocalDateTime value = LocalDateTime.of(2024, 5, 1, 10, 30);
+        when(rs.getTimestamp(eq("bucket"), any(Calendar.class))).thenReturn(Timestamp.valueOf(value));
+
+        assertEquals(value, JdbcTimestamps.getTimestamp(rs, "bucket"));
+        assertNull(JdbcTimestamps.getTimestamp(rs, 5));
+
+        ArgumentCaptor<Calendar> calendar = ArgumentCaptor.forClass(Calendar.class);
+        verify(rs).getTimestamp(eq(5), calendar.capture());
+        assertEquals("UTC", calendar.getValue().getTimeZone().getID());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.login.repository;
+
+import com.example.login.entity.BuildHistory;
+import com.example.login.service.BuildDurationSketchService;
+import com.example.login.service.BuildHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Heap allocated per build-history request (query plus JSON serialization)
+ * when reading managed entities in a read-write transaction, as the read
+ * paths used to, against record projections in a read-only transaction.
+ *
+ * Needs a PostgreSQL database, so it only runs when pointed at one:
+ * <pre>
+ * mvn test -Dtest=ReadPathAllocationBenchmark \
+ *     -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/capstone \
+ *     -Dbenchmark.db.user=admin -Dbenchmark.db.password=secret
+ * </pre>
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BuildHistoryService.class, BuildDurationSketchService.class})
+@EnabledIfSystemProperty(named = "benchmark.db.url", matches = ".+")
+class ReadPathAllocationBenchmark {
+
+    private static final int BUILDS = 5_000;
+    private static final int WARMUP = 20;
+    private static final int REQUESTS = 50;
+    private static final String JOB_PREFIX = "bench-read-";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.db.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.db.user", "admin"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.db.password", ""));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired
+    private BuildHistoryRepository repository;
+
+    @Autowired
+    private BuildHistoryService buildHistoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        LocalDateTime start = LocalDateTime.now().minusHours(BUILDS / 60 + 1);
+        List<BuildHistory> builds = new ArrayList<>(BUILDS);
+        for (int i = 0; i < BUILDS; i++) {
+            builds.add(new BuildHistory(JOB_PREFIX + (i % 20), i / 20 + 1, i % 5 == 0 ? "FAILURE" : "SUCCESS",
+                    60_000L + (i % 97) * 1_000L, start.plusMinutes(i)));
+        }
+        buildHistoryService.saveBuilds(builds);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("build_history", "build_aggregate", "build_duration_sketch")) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE job_name LIKE ?", JOB_PREFIX + "%");
+        }
+    }
+
+    @Test
+    void compareEntityAndProjectionReads() {
+        LocalDateTime since = LocalDateTime.now().minusHours(BUILDS / 60 + 2);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // The previous read path: managed entities, dirty-checked again at commit
+        Supplier<List<?>> entities = () -> readWrite.execute(status -> entityManager
+                .createQuery("SELECT b FROM BuildHistory b WHERE b.timestamp >= :since ORDER BY b.timestamp DESC",
+                        BuildHistory.class)
+                .setParameter("since", since)
+                .getResultList());
+        Supplier<List<?>> projections = () -> readOnly.execute(status -> repository.findRecentBuilds(since));
+
+        assertEquals(entities.get().size(), projections.get().size());
+        long entityBytes = allocatedPerRequest(entities);
+        long projectionBytes = allocatedPerRequest(projections);
+
+        System.out.printf("build history read of %d builds, heap allocated per request:%n",
+                projections.get().size());
+        System.out.printf("  managed entities, read-write tx : %,12d bytes%n", entityBytes);
+        System.out.printf("  record projection, read-only tx : %,12d bytes%n", projectionBytes);
+    }
+
+    private long allocatedPerRequest(Supplier<List<?>> request) {
+        for (int i = 0; i < WARMUP; i++) {
+            serialize(request.get());
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < REQUESTS; i++) {
+            serialize(request.get());
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / REQUESTS;
+    }
+
+    private void serialize(List<?> rows) {
+        try {
+            objectMapper.writeValueAsBytes(rows);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.login.repository;
+
+import com.example.login.dto.BuildSummary;
+import com.example.login.entity.BuildHistory;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations to a throwaway PostgreSQL container, runs the
+ * hot repository queries and checks with EXPLAIN that each one can be answered
+ * from an index.
+ *
+ * The SQL is captured as the repositories prepare it, so the check follows the
+ * queries Hibernate and the JDBC fragments actually send. Each statement is
+ * planned with {@code EXPLAIN (GENERIC_PLAN)} and sequential scans disabled,
+ * so the planner only falls back to one when no index fits; the assertion then
+ * holds regardless of how much data the tables contain. Skipped without Docker.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaIndexUsageTest {
+
+    // GENERIC_PLAN needs PostgreSQL 16
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private RecordingDataSource recorder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BuildHistoryRepository buildHistory;
+
+    @Autowired
+    private SystemMetricsRepository systemMetrics;
+
+    @Autowired
+    private SystemMetricsRollupRepository rollups;
+
+    @Autowired
+    private BuildDurationSketchRepository sketches;
+
+    private final LocalDateTime since = LocalDateTime.now().minusDays(7);
+
+    @BeforeEach
+    void setUp() {
+        recorder.statements.clear();
+    }
+
+    @Test
+    void buildHistoryReads_useIndexes() {
+        recorder.recording = true;
+        buildHistory.findByJobNameOrderByBuildNumberDesc("job");
+        buildHistory.findTop10ByOrderByTimestampDesc();
+        buildHistory.findRecentBuilds(PageRequest.of(0, 100));
+        buildHistory.findByTimestampBetween(since, LocalDateTime.now());
+        buildHistory.findByJobNameAndBuildNumber("job", 1);
+        buildHistory.findRecentBuilds(since);
+        buildHistory.findPageSince(since, PageRequest.of(0, 101));
+        buildHistory.findPageSinceAfter(since, LocalDateTime.now(), 100L, PageRequest.of(0, 101));
+        try (Stream<BuildSummary> builds = buildHistory.streamAll()) {
+            builds.count();
+        }
+        try (Stream<BuildSummary> builds = buildHistory.streamSince(since)) {
+            builds.count();
+        }
+
+        assertRecordedQueriesUseIndexes(10);
+    }
+
+    @Test
+    void buildTrendAggregation_usesIndexes() {
+        recorder.recording = true;
+        buildHistory.aggregateTrends(BuildTrendRepository.Bucket.DAY, since, null, null);
+        buildHistory.aggregateTrends(BuildTrendRepository.Bucket.DAY, since, "job", null);
+        buildHistory.aggregateTrends(BuildTrendRepository.Bucket.HOUR, since, "job", "SUCCESS");
+
+        assertRecordedQueriesUseIndexes(3);
+    }
+
+    @Test
+    void buildHistoryUpsert_locksAndUpdatesThroughIndexes() {
+        LocalDateTime started = LocalDateTime.now();
+        buildHistory.upsertChanges(List.of(new BuildHistory("job", 1, "BUILDING", null, started),
+                new BuildHistory("job", 2, "BUILDING", null, started)));
+
+        // The second pass finds both rows stored, so it takes the lock-and-update path
+        recorder.recording = true;
+        buildHistory.upsertChanges(List.of(new BuildHistory("job", 1, "SUCCESS", 1000L, started),
+                new BuildHistory("job", 2, "FAILURE", 2000L, started)));
+
+        assertRecordedQueriesUseIndexes(2);
+    }
+
+    @Test
+    void systemMetricsQueries_useIndexes() {
+        recorder.recording = true;
+        systemMetrics.findRecentPoints(PageRequest.of(0, 50));
+        systemMetrics.findByRecordedAtBetween(since, LocalDateTime.now());
+        systemMetrics.getAverageCpuUsage(since);
+        systemMetrics.getAverageMemoryUsage(since);
+        systemMetrics.findMetricsSince(since);
+        systemMetrics.deleteOlderThan(since);
+        rollups.findPointsSince(Resolution.ONE_MINUTE, since);
+        rollups.deleteOlderThan(Resolution.ONE_HOUR, since);
+
+        assertRecordedQueriesUseIndexes(8);
+    }
+
+    @Test
+    void durationSketchQueries_useIndexes() {
+        LocalDate today = LocalDate.now();
+        recorder.recording = true;
+        sketches.findForUpdate("job", today);
+        sketches.findByDayRange(today.minusDays(30), today);
+        sketches.findByJobAndDayRange("job", today.minusDays(30), today);
+
+        assertRecordedQueriesUseIndexes(3);
+    }
+
+    /**
+     * EXPLAIN every recorded read, update and delete; inserts are planned
+     * without a scan and are left out.
+     */
+    private void assertRecordedQueriesUseIndexes(int expected) {
+        recorder.recording = false;
+        List<String> queries = recorder.statements.stream()
+                .filter(sql -> !sql.strip().toLowerCase(Locale.ROOT).startsWith("insert"))
+                .toList();
+        assertEquals(expected, queries.size(), () -> "Recorded queries: " + queries);
+
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        List<Executable> checks = new ArrayList<>();
+        for (String sql : queries) {
+            String plan = String.join("\n",
+                    jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+            checks.add(() -> {
+                assertFalse(plan.contains("Seq Scan"), () -> "Sequential scan for: " + sql + "\n" + plan);
+                assertTrue(plan.contains("Index"), () -> "No index used for: " + sql + "\n" + plan);
+            });
+        }
+        assertAll(checks);
+    }
+
+    /**
+     * Rewrite JDBC {@code ?} placeholders as {@code $n}, which is what
+     * EXPLAIN (GENERIC_PLAN) accepts.
+     */
+    static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    /**
+     * Records the SQL of every statement prepared while {@code recording} is set
+     */
+    static final class RecordingDataSource extends DelegatingDataSource {
+
+        final List<String> statements = new CopyOnWriteArrayList<>();
+        volatile boolean recording;
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return record(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return record(super.getConnection(username, password));
+        }
+
+        private Connection record(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (recording && method.getName().equals("prepareStatement")) {
+                            statements.add((String) args[0]);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.login.repository;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemMetricsRollupBatchRepositoryImplTest {
+
+    @Test
+    void buckets_skipMissingReadingsInsteadOfCountingZero() {
+        LocalDateTime minute = LocalDateTime.of(2024, 5, 1, 10, 0);
+        SystemMetrics first = sample(0.4, 0.6, minute.plusSeconds(0));
+        SystemMetrics missingCpu = sample(null, 0.8, minute.plusSeconds(20));
+        SystemMetrics latest = sample(0.6, null, minute.plusSeconds(40));
+
+        SystemMetricsRollupBatchRepositoryImpl.Bucket bucket = SystemMetricsRollupBatchRepositoryImpl
+                .buckets(List.of(first, missingCpu, latest)).get(0);
+
+        assertEquals(Resolution.ONE_MINUTE, bucket.resolution);
+        assertEquals(3, bucket.count);
+        assertEquals(2, bucket.cpu.count);
+        assertEquals(0.4, bucket.cpu.min());
+        assertEquals(0.6, bucket.cpu.max());
+        assertEquals(1.0, bucket.cpu.sum(), 1e-9);
+        assertEquals(0.6, bucket.cpu.last);
+        assertEquals(2, bucket.memory.count);
+        assertEquals(0.6, bucket.memory.min());
+        assertEquals(0.8, bucket.memory.last, "latest sample without memory keeps the previous reading");
+        assertSame(latest, bucket.last);
+    }
+
+    @Test
+    void buckets_withoutAnyReadingBindNulls() {
+        SystemMetrics empty = sample(null, null, LocalDateTime.of(2024, 5, 1, 10, 0));
+
+        List<SystemMetricsRollupBatchRepositoryImpl.Bucket> buckets =
+                SystemMetricsRollupBatchRepositoryImpl.buckets(List.of(empty));
+
+        assertEquals(Resolution.values().length, buckets.size());
+        SystemMetricsRollupBatchRepositoryImpl.Bucket bucket = buckets.get(0);
+        assertEquals(1, bucket.count);
+        assertEquals(0, bucket.cpu.count);
+        assertNull(bucket.cpu.min());
+        assertNull(bucket.cpu.sum());
+        assertNull(bucket.memory.max());
+        assertNull(bucket.memory.last);
+    }
+
+    private static SystemMetrics sample(Double cpu, Double memory, LocalDateTime recordedAt) {
+        SystemMetrics sample = new SystemMetrics(cpu, memory, 30, 100L, 1000L, 2000L);
+        sample.setRecordedAt(recordedAt);
+        return sample;
+    }
+}
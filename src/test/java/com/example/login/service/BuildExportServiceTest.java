@@ -0,0 +1,111 @@
+package com.example.login.service;
+
+import com.example.login.dto.BuildSummary;
+import com.example.login.repository.BuildHistoryRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BuildExportServiceTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2026, 1, 19, 12, 0);
+
+    @Mock
+    private BuildHistoryRepository repository;
+
+    private BuildExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new BuildExportService(repository, new ObjectMapper());
+    }
+
+    @Test
+    void export_csv_quotesOnlyFieldsThatNeedIt() throws Exception {
+        when(repository.streamAll()).thenReturn(Stream.of(
+                new BuildSummary(1L, "api", 7, "SUCCESS", 1200L, TIMESTAMP),
+                new BuildSummary(2L, "deploy, \"prod\"", 3, null, null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.export(BuildExportService.Format.CSV, null, false, out);
+
+        assertEquals(2, written);
+        assertEquals("jobName,buildNumber,status,durationMs,timestamp\n"
+                + "api,7,SUCCESS,1200,2026-01-19T12:00:00\n"
+                + "\"deploy, \"\"prod\"\"\",3,,,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_ndjsonGzip_writesOneObjectPerLine() throws Exception {
+        when(repository.streamSince(any(LocalDateTime.class))).thenReturn(Stream.of(
+                new BuildSummary(1L, "api", 7, "SUCCESS", 1200L, TIMESTAMP),
+                new BuildSummary(2L, "api", 8, "BUILDING", null, TIMESTAMP.plusMinutes(5))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(BuildExportService.Format.NDJSON, 7, true, out);
+
+        String[] lines = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{"), "objects are separated by line breaks only");
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertEquals(8, second.get("buildNumber").asInt());
+        assertTrue(second.get("durationMs").isNull());
+        assertEquals("2026-01-19T12:05:00", second.get("timestamp").asText());
+        verify(repository, never()).streamAll();
+    }
+
+    @Test
+    void export_writesRowsWhileTheCursorIsStillOpen() throws Exception {
+        long rows = 200_000;
+        CountingOutputStream out = new CountingOutputStream();
+        AtomicLong bytesBeforeLastRow = new AtomicLong(-1);
+        when(repository.streamAll()).thenReturn(LongStream.range(0, rows)
+                .mapToObj(i -> {
+                    if (i == rows - 1) {
+                        bytesBeforeLastRow.set(out.count);
+                    }
+                    return new BuildSummary(i, "job-" + (i % 50), (int) i, "SUCCESS", i, TIMESTAMP);
+                }));
+
+        long written = exportService.export(BuildExportService.Format.NDJSON, null, false, out);
+
+        assertEquals(rows, written);
+        // Output is flushed through a fixed buffer as rows arrive, not collected until the end
+        assertTrue(bytesBeforeLastRow.get() > out.count - 128 * 1024,
+                "only the last buffer may still be pending when the final row is read");
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.login.service;
 
+import com.example.login.dto.BuildHistoryPage;
+import com.example.login.dto.BuildSummary;
+import com.example.login.entity.BuildAggregate;
 import com.example.login.entity.BuildHistory;
+import com.example.login.repository.BuildAggregateRepository;
+import com.example.login.repository.BuildHistoryBatchRepository.Change;
 import com.example.login.repository.BuildHistoryRepository;
+import com.example.login.repository.BuildTrendRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,12 +18,14 @@ import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,47 +34,131 @@ class BuildHistoryServiceTest {
     @Mock
     private BuildHistoryRepository repository;
 
+    @Mock
+    private BuildAggregateRepository aggregateRepository;
+
+    @Mock
+    private BuildDurationSketchService durationSketchService;
+
     @InjectMocks
     private BuildHistoryService buildHistoryService;
 
     private BuildHistory sampleBuild;
+    private BuildSummary sampleSummary;
 
     @BeforeEach
     void setUp() {
         sampleBuild = new BuildHistory("test-job", 1, "SUCCESS", 5000L, LocalDateTime.now());
         sampleBuild.setId(1L);
+        sampleSummary = new BuildSummary(1L, "test-job", 1, "SUCCESS", 5000L, sampleBuild.getTimestamp());
     }
 
     @Test
-    void saveBuild_newBuild_createsSuccessfully() {
-        when(repository.findByJobNameAndBuildNumber("test-job", 1)).thenReturn(Optional.empty());
-        when(repository.save(any(BuildHistory.class))).thenReturn(sampleBuild);
+    void saveBuild_newBuild_goesThroughLockingUpsert() {
+        upsertReplaces(null);
 
         BuildHistory result = buildHistoryService.saveBuild("test-job", 1, "SUCCESS", 5000L, LocalDateTime.now());
 
-        assertNotNull(result);
         assertEquals("test-job", result.getJobName());
         assertEquals("SUCCESS", result.getStatus());
-        verify(repository, times(1)).save(any(BuildHistory.class));
+        verify(repository).upsertChanges(List.of(result));
+        verify(repository, never()).save(any(BuildHistory.class));
+        verify(aggregateRepository).applyChanges(List.of(), List.of(result));
+        verify(durationSketchService).record(List.of(result));
     }
 
     @Test
-    void saveBuild_existingBuild_updatesSuccessfully() {
-        when(repository.findByJobNameAndBuildNumber("test-job", 1)).thenReturn(Optional.of(sampleBuild));
-        when(repository.save(any(BuildHistory.class))).thenReturn(sampleBuild);
+    void saveBuild_existingBuild_movesItBetweenAggregates() {
+        BuildHistory stored = new BuildHistory("test-job", 1, "SUCCESS", 5000L, sampleBuild.getTimestamp());
+        upsertReplaces(stored);
 
         BuildHistory result = buildHistoryService.saveBuild("test-job", 1, "FAILURE", 6000L, LocalDateTime.now());
 
         assertNotNull(result);
-        verify(repository, times(1)).save(sampleBuild);
+        verify(aggregateRepository).applyChanges(List.of(stored), List.of(result));
+        verify(durationSketchService).record(List.of());
+    }
+
+    @Test
+    void saveBuild_concurrentRequestAlreadySavedIt_countsNothing() {
+        when(repository.upsertChanges(any())).thenReturn(List.of());
+
+        buildHistoryService.saveBuild("test-job", 1, "SUCCESS", 5000L, LocalDateTime.now());
+
+        verify(aggregateRepository).applyChanges(List.of(), List.of());
+        verify(durationSketchService).record(List.of());
+    }
+
+    // The locking upsert reports the single saved build as replacing previous (null when inserted)
+    private void upsertReplaces(BuildHistory previous) {
+        when(repository.upsertChanges(any())).thenAnswer(invocation -> {
+            Collection<BuildHistory> builds = invocation.getArgument(0);
+            return List.of(new Change(previous, builds.iterator().next()));
+        });
+    }
+
+    @Test
+    void saveBuilds_delegatesToLockingUpsert() {
+        BuildHistory fresh = new BuildHistory("test-job", 2, "FAILURE", 7000L, LocalDateTime.now());
+        List<BuildHistory> builds = Arrays.asList(sampleBuild, fresh);
+        when(repository.upsertChanges(builds)).thenReturn(List.of(new Change(null, fresh)));
+
+        int saved = buildHistoryService.saveBuilds(builds);
+
+        assertEquals(1, saved);
+        verify(repository, never()).save(any(BuildHistory.class));
+        verify(aggregateRepository).applyChanges(List.of(), List.of(fresh));
+    }
+
+    @Test
+    void saveBuilds_sketchesOnlyBuildsFinishingForTheFirstTime() {
+        BuildHistory running = new BuildHistory("test-job", 3, "BUILDING", null, LocalDateTime.now());
+        BuildHistory finished = new BuildHistory("test-job", 2, "FAILURE", 7000L, LocalDateTime.now());
+        BuildHistory rerun = new BuildHistory("test-job", 1, "FAILURE", 5000L, sampleBuild.getTimestamp());
+        List<BuildHistory> builds = Arrays.asList(rerun, finished, running);
+        when(repository.upsertChanges(builds)).thenReturn(List.of(
+                new Change(sampleBuild, rerun),
+                new Change(new BuildHistory("test-job", 2, "BUILDING", null, finished.getTimestamp()), finished),
+                new Change(null, running)));
+
+        buildHistoryService.saveBuilds(builds);
+
+        verify(durationSketchService).record(List.of(finished));
+    }
+
+    @Test
+    void saveBuilds_movesChangedBuildsBetweenAggregates() {
+        BuildHistory storedRunning = new BuildHistory("test-job", 2, "BUILDING", null, LocalDateTime.now());
+        BuildHistory finished = new BuildHistory("test-job", 2, "FAILURE", 7000L, storedRunning.getTimestamp());
+        BuildHistory fresh = new BuildHistory("other-job", 1, "SUCCESS", 1000L, LocalDateTime.now());
+        List<BuildHistory> builds = Arrays.asList(sampleBuild, finished, fresh);
+        // The unchanged sampleBuild is not reported by the upsert
+        when(repository.upsertChanges(builds)).thenReturn(List.of(
+                new Change(storedRunning, finished), new Change(null, fresh)));
+
+        buildHistoryService.saveBuilds(builds);
+
+        verify(aggregateRepository).applyChanges(List.of(storedRunning), List.of(finished, fresh));
+    }
+
+    @Test
+    void saveBuilds_concurrentWriterAlreadyFinishedBuild_countsNothing() {
+        // Another writer committed the finish first; the locked read returns its version, so nothing changes
+        BuildHistory finished = new BuildHistory("test-job", 2, "SUCCESS", 7000L, LocalDateTime.now());
+        when(repository.upsertChanges(List.of(finished))).thenReturn(List.of());
+
+        int saved = buildHistoryService.saveBuilds(List.of(finished));
+
+        assertEquals(0, saved);
+        verify(aggregateRepository).applyChanges(List.of(), List.of());
+        verify(durationSketchService).record(List.of());
     }
 
     @Test
     void getRecentBuilds_respectsLimit() {
-        List<BuildHistory> builds = Arrays.asList(sampleBuild);
-        when(repository.findRecentBuilds(any(PageRequest.class))).thenReturn(builds);
+        when(repository.findRecentBuilds(any(PageRequest.class))).thenReturn(List.of(sampleSummary));
 
-        List<BuildHistory> result = buildHistoryService.getRecentBuilds(5);
+        List<BuildSummary> result = buildHistoryService.getRecentBuilds(5);
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -74,30 +166,96 @@ class BuildHistoryServiceTest {
     }
 
     @Test
-    void getStatistics_returnsCorrectData() {
-        List<Object[]> statusStats = Arrays.<Object[]>asList(
-                new Object[] { "SUCCESS", 8L },
-                new Object[] { "FAILURE", 2L });
-        List<Object[]> durationStats = Arrays.<Object[]>asList(
-                new Object[] { "test-job", 5000.0 });
-        when(repository.getStatusStatistics()).thenReturn(statusStats);
-        when(repository.getAverageDurationByJob()).thenReturn(durationStats);
+    void getStatistics_readsAggregatesInsteadOfScanningHistory() {
+        when(aggregateRepository.findNonEmpty()).thenReturn(List.of(
+                aggregate("test-job", "SUCCESS", 6, 30_000L, 12),
+                aggregate("test-job", "FAILURE", 2, 10_000L, 11),
+                aggregate("other-job", "SUCCESS", 2, 2_000L, 4)));
 
         Map<String, Object> stats = buildHistoryService.getStatistics();
 
         assertEquals(10L, stats.get("totalBuilds"));
         assertEquals(80.0, stats.get("successRate"));
-        assertNotNull(stats.get("statusBreakdown"));
+        assertEquals(Map.of("SUCCESS", 8L, "FAILURE", 2L), stats.get("statusBreakdown"));
+        assertEquals(Map.of("test-job", 5.0, "other-job", 1.0), stats.get("averageDurationByJob"));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> lastBuilds = (Map<String, Map<String, Object>>) stats.get("lastBuildByJob");
+        assertEquals(12, lastBuilds.get("test-job").get("number"));
+        assertEquals("SUCCESS", lastBuilds.get("test-job").get("status"));
+        verify(repository, never()).findAll();
+    }
+
+    private static BuildAggregate aggregate(String jobName, String status, long count, long durationSum,
+            int lastBuildNumber) {
+        BuildAggregate aggregate = new BuildAggregate();
+        aggregate.setJobName(jobName);
+        aggregate.setStatus(status);
+        aggregate.setBuildCount(count);
+        aggregate.setDurationSum(durationSum);
+        aggregate.setDurationCount(count);
+        aggregate.setLastBuildNumber(lastBuildNumber);
+        aggregate.setLastBuildAt(LocalDateTime.now());
+        return aggregate;
     }
 
     @Test
     void getBuildsFromLastDays_returnsBuilds() {
-        List<BuildHistory> builds = Arrays.asList(sampleBuild);
-        when(repository.findRecentBuilds(any(LocalDateTime.class))).thenReturn(builds);
+        when(repository.findRecentBuilds(any(LocalDateTime.class))).thenReturn(List.of(sampleSummary));
 
-        List<BuildHistory> result = buildHistoryService.getBuildsFromLastDays(7);
+        List<BuildSummary> result = buildHistoryService.getBuildsFromLastDays(7);
 
         assertNotNull(result);
         assertEquals(1, result.size());
     }
+
+    @Test
+    void getBuildPage_moreRowsThanPageSize_returnsCursorForNextPage() {
+        BuildSummary older = new BuildSummary(2L, "test-job", 0, "FAILURE", 4000L,
+                sampleBuild.getTimestamp().minusMinutes(5));
+        when(repository.findPageSince(any(LocalDateTime.class), eq(PageRequest.of(0, 2))))
+                .thenReturn(Arrays.asList(sampleSummary, older));
+
+        BuildHistoryPage page = buildHistoryService.getBuildPage(7, null, 1);
+
+        assertEquals(List.of(sampleSummary), page.getBuilds());
+        assertNotNull(page.getNextCursor());
+
+        when(repository.findPageSinceAfter(any(LocalDateTime.class), eq(sampleBuild.getTimestamp()), eq(1L),
+                eq(PageRequest.of(0, 2)))).thenReturn(List.of(older));
+
+        BuildHistoryPage next = buildHistoryService.getBuildPage(7, page.getNextCursor(), 1);
+
+        assertEquals(List.of(older), next.getBuilds());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getBuildPage_malformedCursor_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> buildHistoryService.getBuildPage(7, "not-a-cursor", 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getBuildTrends_sumsRowsPerBucket() {
+        LocalDateTime day = LocalDateTime.of(2026, 1, 19, 0, 0);
+        when(repository.aggregateTrends(eq(BuildTrendRepository.Bucket.DAY), any(LocalDateTime.class), isNull(),
+                isNull())).thenReturn(List.of(
+                        new BuildTrendRepository.TrendRow(day, "api", "SUCCESS", 3, 1000.0),
+                        new BuildTrendRepository.TrendRow(day, "web", "FAILURE", 1, 2000.0),
+                        new BuildTrendRepository.TrendRow(day.plusDays(1), "api", "SUCCESS", 2, 1500.0)));
+
+        Map<String, Object> trends = buildHistoryService.getBuildTrends(30, BuildTrendRepository.Bucket.DAY, "", null);
+
+        assertEquals(6L, trends.get("totalBuilds"));
+        Map<String, Long> counts = (Map<String, Long>) trends.get("counts");
+        assertEquals(4L, counts.get("2026-01-19T00:00:00"));
+        assertEquals(2L, counts.get("2026-01-20T00:00:00"));
+        assertEquals("day", trends.get("bucket"));
+    }
+
+    @Test
+    void bucketParse_rejectsUnsupportedSize() {
+        assertEquals(BuildTrendRepository.Bucket.WEEK, BuildTrendRepository.Bucket.parse("Week"));
+        assertThrows(IllegalArgumentException.class, () -> BuildTrendRepository.Bucket.parse("minute"));
+    }
 }
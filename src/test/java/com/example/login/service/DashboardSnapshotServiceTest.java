@@ -0,0 +1,134 @@
+package com.example.login.service;
+
+import com.example.login.dto.MetricsPoint;
+import com.example.login.entity.SystemMetrics;
+import com.example.login.metrics.MetricsSeries;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardSnapshotServiceTest {
+
+    @Mock
+    private JenkinsApiService jenkinsApiService;
+
+    @Mock
+    private JenkinsIngestionService ingestionService;
+
+    @Mock
+    private SystemMetricsService systemMetricsService;
+
+    @Mock
+    private PrometheusMetricsCollector metricsCollector;
+
+    @Mock
+    private RecentMetricsService recentMetricsService;
+
+    private DashboardSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new DashboardSnapshotService(jenkinsApiService, ingestionService, systemMetricsService,
+                metricsCollector, recentMetricsService, new ObjectMapper().findAndRegisterModules(), 60000);
+    }
+
+    private void stubInputs() {
+        stubMetricInputs();
+        when(jenkinsApiService.getBuildStatistics()).thenReturn(Map.of("totalBuilds", 3));
+    }
+
+    private void stubMetricInputs() {
+        SystemMetrics sample = new SystemMetrics();
+        sample.setRecordedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        when(metricsCollector.getCurrentMetrics()).thenReturn(sample);
+        when(systemMetricsService.getMetricsStatistics(anyInt())).thenReturn(Map.of("averageCpuUsage", 0.2));
+        when(systemMetricsService.getMetricsFromLastHours(anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void getSnapshot_unchangedInputs_reusesSnapshot() {
+        stubInputs();
+        when(ingestionService.getIngestedBuilds()).thenReturn(5L);
+
+        DashboardSnapshotService.Snapshot first = snapshotService.getSnapshot();
+        DashboardSnapshotService.Snapshot second = snapshotService.getSnapshot();
+
+        assertSame(first, second);
+        verify(jenkinsApiService, times(1)).getBuildStatistics();
+    }
+
+    @Test
+    void getSnapshot_newIngestedBuilds_rebuildsButKeepsEtagWhenContentSame() {
+        stubInputs();
+        when(ingestionService.getIngestedBuilds()).thenReturn(5L, 6L);
+
+        DashboardSnapshotService.Snapshot first = snapshotService.getSnapshot();
+        DashboardSnapshotService.Snapshot second = snapshotService.getSnapshot();
+
+        assertNotSame(first, second);
+        assertEquals(first.etag(), second.etag());
+        verify(jenkinsApiService, times(2)).getBuildStatistics();
+    }
+
+    @Test
+    void getSnapshot_changedContent_changesEtag() {
+        stubMetricInputs();
+        when(ingestionService.getIngestedBuilds()).thenReturn(5L, 6L);
+        when(jenkinsApiService.getBuildStatistics()).thenReturn(Map.of("totalBuilds", 3), Map.of("totalBuilds", 4));
+
+        String first = snapshotService.getSnapshot().etag();
+        String second = snapshotService.getSnapshot().etag();
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void recentMetrics_haveTheSameShapeFromMemoryAndFromStoredHistory() throws IOException {
+        SystemMetrics sample = new SystemMetrics(0.5, 0.4, 30, 100L, 1000L, 2000L);
+        sample.setRecordedAt(LocalDateTime.now());
+        RecentMetricsService buffer = new RecentMetricsService(4, 3_600_000);
+        buffer.record(sample);
+
+        stubInputs();
+        when(ingestionService.getIngestedBuilds()).thenReturn(5L, 6L);
+        when(recentMetricsService.getHistory(anyInt())).thenReturn(buffer.getHistory(1), (MetricsSeries) null);
+        when(systemMetricsService.getMetricsFromLastHours(anyInt())).thenReturn(List.of(
+                new MetricsPoint(0.5, 0.4, 30, 100L, 1000L, 2000L, sample.getRecordedAt())));
+
+        List<String> fromMemory = recentMetricFields(snapshotService.getSnapshot());
+        List<String> fromHistory = recentMetricFields(snapshotService.getSnapshot());
+
+        assertEquals(fromHistory, fromMemory);
+        assertTrue(fromMemory.contains("gcPauseMs"));
+    }
+
+    private static List<String> recentMetricFields(DashboardSnapshotService.Snapshot snapshot) throws IOException {
+        JsonNode point = new ObjectMapper().readTree(snapshot.body()).path("recentMetrics").get(0);
+        List<String> fields = new ArrayList<>();
+        point.fieldNames().forEachRemaining(fields::add);
+        return fields;
+    }
+
+    @Test
+    void matches_handlesListsWeakTagsAndWildcard() {
+        assertTrue(DashboardSnapshotService.matches("\"a\", \"b\"", "\"b\""));
+        assertTrue(DashboardSnapshotService.matches("W/\"b\"", "\"b\""));
+        assertTrue(DashboardSnapshotService.matches("*", "\"b\""));
+        assertFalse(DashboardSnapshotService.matches("\"a\"", "\"b\""));
+        assertFalse(DashboardSnapshotService.matches(null, "\"b\""));
+    }
+}
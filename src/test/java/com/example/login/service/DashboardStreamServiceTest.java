@@ -0,0 +1,97 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.metrics.EndpointLatencies;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardStreamServiceTest {
+
+    @Mock
+    private PrometheusMetricsCollector metricsCollector;
+
+    @Mock
+    private JenkinsApiService jenkinsApiService;
+
+    private DashboardStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        streamService = new DashboardStreamService(metricsCollector, jenkinsApiService,
+                new EndpointLatencies(10000, new int[] {1, 5}), new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), 60000, 10, 1);
+        when(jenkinsApiService.getBuildStatistics()).thenReturn(Map.of("totalBuilds", 5));
+        when(jenkinsApiService.getRecentBuilds(anyInt())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void publish_firstFrameIsFullSnapshot() {
+        when(metricsCollector.getCurrentMetrics()).thenReturn(metrics(0.25));
+
+        DashboardStreamService.Frame frame = streamService.publish();
+
+        assertEquals(0, frame.seq());
+        assertNull(frame.deltaJson());
+        assertTrue(frame.snapshotJson().contains("\"buildStatistics\":{\"totalBuilds\":5}"));
+        assertTrue(frame.snapshotJson().contains("\"realtime\":"));
+    }
+
+    @Test
+    void publish_unchangedData_keepsSameFrame() {
+        when(metricsCollector.getCurrentMetrics()).thenReturn(metrics(0.25));
+
+        DashboardStreamService.Frame first = streamService.publish();
+        DashboardStreamService.Frame second = streamService.publish();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void publish_changedSection_deltaContainsOnlyThatSection() {
+        when(metricsCollector.getCurrentMetrics()).thenReturn(metrics(0.25), metrics(0.5));
+
+        streamService.publish();
+        DashboardStreamService.Frame frame = streamService.publish();
+
+        assertEquals(1, frame.seq());
+        assertTrue(frame.deltaJson().contains("\"realtime\":"));
+        assertFalse(frame.deltaJson().contains("buildStatistics"));
+        assertTrue(frame.snapshotJson().contains("buildStatistics"));
+    }
+
+    @Test
+    void publish_failingSection_keepsLastGoodValue() {
+        when(metricsCollector.getCurrentMetrics()).thenReturn(metrics(0.25));
+        streamService.publish();
+
+        when(jenkinsApiService.getBuildStatistics()).thenThrow(new IllegalStateException("down"));
+        DashboardStreamService.Frame frame = streamService.publish();
+
+        assertEquals(0, frame.seq());
+        assertTrue(frame.snapshotJson().contains("\"totalBuilds\":5"));
+    }
+
+    private static SystemMetrics metrics(double cpu) {
+        SystemMetrics metrics = new SystemMetrics();
+        metrics.setCpuUsage(cpu);
+        return metrics;
+    }
+}
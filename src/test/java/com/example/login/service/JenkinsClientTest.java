@@ -0,0 +1,142 @@
+package com.example.login.service;
+
+import com.example.login.exception.JenkinsApiException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a local stub Jenkins (the JDK's built-in HTTP server)
+ */
+class JenkinsClientTest {
+
+    private HttpServer server;
+    private JenkinsClient client;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/json", exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, 200, "{\"jobs\":[]}");
+        });
+        server.createContext("/job/missing", exchange -> respond(exchange, 404, "no such job"));
+        server.createContext("/job/broken", exchange -> respond(exchange, 500, "boom"));
+        server.createContext("/job/slow", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "late");
+        });
+        server.start();
+
+        // The read timeout leaves room for the first exchange of a cold JVM, which takes several hundred ms
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        client = new JenkinsClient(baseUrl, "admin", "secret-token", 1000, 2000, 2, HttpClient.Version.HTTP_1_1,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void get_sendsPreEncodedBasicAuthHeader() {
+        assertEquals("{\"jobs\":[]}", client.get("/api/json", "application/json").join());
+
+        String expected = "Basic " + Base64.getEncoder()
+                .encodeToString("admin:secret-token".getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected, authorization.get());
+    }
+
+    @Test
+    void get_non2xx_completesWithJenkinsApiException() {
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.get("/job/missing/api/json", "application/json").join());
+
+        JenkinsApiException apiError = assertInstanceOf(JenkinsApiException.class, error.getCause());
+        assertEquals(404, apiError.getStatusCode());
+        assertEquals("no such job", apiError.getResponseBody());
+        assertTrue(apiError.isClientError());
+    }
+
+    @Test
+    void stream_non2xx_readsErrorBodyAndCompletesExceptionally() {
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.stream("/job/broken/consoleText", "text/plain").join());
+
+        JenkinsApiException apiError = assertInstanceOf(JenkinsApiException.class, error.getCause());
+        assertEquals(500, apiError.getStatusCode());
+        assertEquals("boom", apiError.getResponseBody());
+        assertFalse(apiError.isClientError());
+    }
+
+    @Test
+    void stream_2xx_handsBodyToCaller() throws IOException {
+        HttpResponse<InputStream> response = client.stream("/api/json", "application/json").join();
+
+        try (InputStream body = response.body()) {
+            assertEquals("{\"jobs\":[]}", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void get_usesDiscoveredUrlAndFallsBackToConfiguredOne() {
+        JenkinsClient unconfigured = new JenkinsClient("http://127.0.0.1:1", "admin", "secret-token", 1000, 2000, 1,
+                HttpClient.Version.HTTP_1_1, new SimpleMeterRegistry());
+        try {
+            unconfigured.useDiscoveredUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            assertEquals("{\"jobs\":[]}", unconfigured.get("/api/json", "application/json").join());
+
+            unconfigured.useDiscoveredUrl(null);
+            assertEquals("http://127.0.0.1:1", unconfigured.getEffectiveBaseUrl());
+            assertThrows(CompletionException.class,
+                    () -> unconfigured.get("/api/json", "application/json").join());
+        } finally {
+            unconfigured.shutdown();
+        }
+    }
+
+    @Test
+    void get_slowResponse_timesOutAfterReadTimeout() {
+        long start = System.nanoTime();
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.get("/job/slow/api/json", "application/json").join());
+
+        assertInstanceOf(HttpTimeoutException.class, error.getCause());
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.login.service;
+
+import com.example.login.entity.BuildHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JenkinsIngestionServiceTest {
+
+    private static final String BASE = "http://jenkins:8080";
+
+    @Mock
+    private JenkinsClient jenkinsClient;
+
+    @Mock
+    private JenkinsUrlDiscovery discovery;
+
+    @Mock
+    private BuildHistoryService buildHistoryService;
+
+    private JenkinsIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        ingestionService = new JenkinsIngestionService(jenkinsClient, discovery, buildHistoryService,
+                new ObjectMapper());
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 200);
+        ReflectionTestUtils.setField(ingestionService, "maxBuildsPerJob", 100);
+    }
+
+    @Test
+    void ingest_onlySavesBuildsAboveHighWaterMark() {
+        when(discovery.getWorkingUrl()).thenReturn(BASE);
+        when(buildHistoryService.getIngestedBuildNumbers()).thenReturn(Map.of("app", 10));
+        when(jenkinsClient.getUrl(startsWith(BASE + "/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"lastBuild\":{\"number\":12}}]}"));
+        when(jenkinsClient.getUrl(startsWith(BASE + "/job/app/"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"builds\":["
+                        + "{\"number\":12,\"result\":\"SUCCESS\",\"duration\":1000,\"timestamp\":1700000002000},"
+                        + "{\"number\":11,\"result\":\"FAILURE\",\"duration\":900,\"timestamp\":1700000001000},"
+                        + "{\"number\":10,\"result\":\"SUCCESS\",\"duration\":800,\"timestamp\":1700000000000}]}"));
+        List<BuildHistory> saved = captureSaves();
+
+        ingestionService.ingest();
+
+        assertEquals(2, saved.size());
+        assertTrue(saved.stream().allMatch(b -> b.getBuildNumber() > 10));
+        assertTrue(ingestionService.hasIngested());
+    }
+
+    @Test
+    void ingest_runningBuildHoldsBackHighWaterMark() {
+        when(discovery.getWorkingUrl()).thenReturn(BASE);
+        when(buildHistoryService.getIngestedBuildNumbers()).thenReturn(Map.of());
+        when(jenkinsClient.getUrl(startsWith(BASE + "/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"lastBuild\":{\"number\":2}}]}"));
+        when(jenkinsClient.getUrl(startsWith(BASE + "/job/app/"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"builds\":["
+                        + "{\"number\":2,\"result\":null,\"building\":true,\"duration\":0,\"timestamp\":1700000001000},"
+                        + "{\"number\":1,\"result\":\"SUCCESS\",\"duration\":800,\"timestamp\":1700000000000}]}"));
+        List<BuildHistory> saved = captureSaves();
+
+        ingestionService.ingest();
+        ingestionService.ingest();
+
+        // Build #2 is still running, so the job is fetched again on the next cycle
+        verify(jenkinsClient, times(2)).getUrl(startsWith(BASE + "/job/app/"), anyString());
+        assertEquals("BUILDING", saved.stream()
+                .filter(b -> b.getBuildNumber() == 2).findFirst().orElseThrow().getStatus());
+    }
+
+    @Test
+    void ingest_moreNewBuildsThanOnePage_pagesBackToHighWaterMark() {
+        ReflectionTestUtils.setField(ingestionService, "maxBuildsPerJob", 2);
+        when(discovery.getWorkingUrl()).thenReturn(BASE);
+        when(buildHistoryService.getIngestedBuildNumbers()).thenReturn(Map.of("app", 10));
+        when(jenkinsClient.getUrl(startsWith(BASE + "/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"lastBuild\":{\"number\":15}}]}"));
+        buildsPage("{0,2}", 15, 14);
+        buildsPage("{2,4}", 13, 12);
+        buildsPage("{4,6}", 11, 10);
+        List<BuildHistory> saved = captureSaves();
+
+        ingestionService.ingest();
+
+        assertEquals(List.of(15, 14, 13, 12, 11), saved.stream().map(BuildHistory::getBuildNumber).toList());
+        verify(jenkinsClient, never()).getUrl(endsWith("{6,8}"), anyString());
+    }
+
+    @Test
+    void ingest_newJob_importsNewestPageOnly() {
+        ReflectionTestUtils.setField(ingestionService, "maxBuildsPerJob", 2);
+        when(discovery.getWorkingUrl()).thenReturn(BASE);
+        when(buildHistoryService.getIngestedBuildNumbers()).thenReturn(Map.of());
+        when(jenkinsClient.getUrl(startsWith(BASE + "/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"lastBuild\":{\"number\":15}}]}"));
+        buildsPage("{0,2}", 15, 14);
+        List<BuildHistory> saved = captureSaves();
+
+        ingestionService.ingest();
+
+        assertEquals(2, saved.size());
+        verify(jenkinsClient, never()).getUrl(endsWith("{2,4}"), anyString());
+    }
+
+    @Test
+    void ingest_skipsWhenJenkinsNotDiscovered() {
+        when(discovery.getWorkingUrl()).thenReturn(null);
+
+        ingestionService.ingest();
+
+        verifyNoInteractions(jenkinsClient, buildHistoryService);
+        assertFalse(ingestionService.hasIngested());
+    }
+
+    private void buildsPage(String range, int... numbers) {
+        StringJoiner builds = new StringJoiner(",", "{\"builds\":[", "]}");
+        for (int number : numbers) {
+            builds.add("{\"number\":" + number + ",\"result\":\"SUCCESS\",\"duration\":100,"
+                    + "\"timestamp\":1700000000000}");
+        }
+        when(jenkinsClient.getUrl(eq(BASE + "/job/app/api/json?tree=builds[number,result,duration,timestamp,building]"
+                + range), anyString())).thenReturn(CompletableFuture.completedFuture(builds.toString()));
+    }
+
+    private List<BuildHistory> captureSaves() {
+        // Copy each batch; the service reuses the list after saving
+        List<BuildHistory> saved = new ArrayList<>();
+        when(buildHistoryService.saveBuilds(anyCollection())).thenAnswer(invocation -> {
+            Collection<BuildHistory> batch = invocation.getArgument(0);
+            saved.addAll(batch);
+            return batch.size();
+        });
+        return saved;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.login.service;
+
+import com.example.login.entity.BuildHistory;
+import com.example.login.exception.JenkinsApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JenkinsJobsServiceTest {
+
+    @Mock
+    private JenkinsClient jenkinsClient;
+
+    @Mock
+    private BuildHistoryService buildHistoryService;
+
+    private JenkinsJobsService jobsService;
+
+    @BeforeEach
+    void setUp() {
+        jobsService = new JenkinsJobsService(jenkinsClient, buildHistoryService, new ObjectMapper(), 2, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobsService.shutdown();
+    }
+
+    @Test
+    void treeQueryWithDetails_needsNoPerJobRequests() {
+        when(jenkinsClient.get(startsWith("/api/json?tree="), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"color\":\"blue\",\"lastBuild\":"
+                        + "{\"number\":5,\"result\":\"SUCCESS\",\"duration\":1000,\"timestamp\":1700000000000,"
+                        + "\"building\":false}}]}"));
+
+        List<Map<String, Object>> jobs = jobsService.getJobsWithLastBuild().join();
+
+        assertEquals(1, jobs.size());
+        assertEquals(5, jobs.get(0).get("buildNumber"));
+        assertEquals("SUCCESS", jobs.get(0).get("status"));
+        verify(jenkinsClient, times(1)).get(anyString(), anyString());
+    }
+
+    @Test
+    void fanOut_mergesPerJobResultsInJobOrder() {
+        when(jenkinsClient.get(startsWith("/api/json?tree="), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"a\",\"lastBuild\":{\"number\":1}},"
+                        + "{\"name\":\"b\",\"lastBuild\":{\"number\":2}},"
+                        + "{\"name\":\"c\",\"lastBuild\":{\"number\":3}}]}"));
+        when(jenkinsClient.get(eq("/job/a/lastBuild/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"number\":1,\"result\":null,\"building\":true,"
+                        + "\"timestamp\":1700000000000}"));
+        when(jenkinsClient.get(eq("/job/b/lastBuild/api/json"), anyString())).thenReturn(
+                CompletableFuture.failedFuture(new JenkinsApiException(404, "", "/job/b/lastBuild/api/json")));
+        when(jenkinsClient.get(eq("/job/c/lastBuild/api/json"), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"number\":3,\"result\":\"FAILURE\",\"duration\":500,"
+                        + "\"timestamp\":1700000001000}"));
+
+        List<Map<String, Object>> jobs = jobsService.getJobsWithLastBuild().join();
+
+        assertEquals(List.of("a", "b", "c"), jobs.stream().map(job -> job.get("jobName")).toList());
+        assertEquals("BUILDING", jobs.get(0).get("status"));
+        assertFalse(jobs.get(1).containsKey("buildNumber"));
+        assertEquals("FAILURE", jobs.get(2).get("status"));
+        assertEquals(500L, jobs.get(2).get("durationMs"));
+    }
+
+    @Test
+    void collectedBuilds_arePersistedOffTheCallerThread() throws Exception {
+        when(jenkinsClient.get(startsWith("/api/json?tree="), anyString())).thenReturn(
+                CompletableFuture.completedFuture("{\"jobs\":[{\"name\":\"app\",\"lastBuild\":"
+                        + "{\"number\":5,\"result\":\"SUCCESS\",\"duration\":1000,\"timestamp\":1700000000000}},"
+                        + "{\"name\":\"new-job\",\"lastBuild\":null}]}"));
+        CompletableFuture<String> savingThread = new CompletableFuture<>();
+        when(buildHistoryService.saveBuilds(anyCollection())).thenAnswer(invocation -> {
+            savingThread.complete(Thread.currentThread().getName());
+            return 1;
+        });
+
+        jobsService.getJobsWithLastBuild().join();
+
+        assertEquals("jenkins-jobs-persist", savingThread.get(2, TimeUnit.SECONDS));
+        ArgumentCaptor<Collection<BuildHistory>> saved = ArgumentCaptor.forClass(Collection.class);
+        verify(buildHistoryService).saveBuilds(saved.capture());
+        assertEquals(1, saved.getValue().size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.login.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JenkinsUrlDiscoveryTest {
+
+    private static final String CONFIGURED = "http://jenkins.example:8080";
+
+    @Mock
+    private JenkinsClient jenkinsClient;
+
+    private JenkinsUrlDiscovery discovery;
+
+    @BeforeEach
+    void setUp() {
+        discovery = new JenkinsUrlDiscovery(jenkinsClient, 60_000);
+        when(jenkinsClient.getBaseUrl()).thenReturn(CONFIGURED);
+        when(jenkinsClient.getUrl(anyString(), anyString()))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new ConnectException("refused")));
+    }
+
+    @Test
+    void configuredUrlDown_fallsBackToReachableCandidate() {
+        when(jenkinsClient.getUrl("http://172.17.0.1:8080/api/json", "application/json"))
+                .thenReturn(CompletableFuture.completedFuture("{}"));
+
+        assertEquals("http://172.17.0.1:8080", discovery.discover().join());
+
+        assertEquals(JenkinsUrlDiscovery.State.CONNECTED, discovery.getState());
+        assertEquals("http://172.17.0.1:8080", discovery.getWorkingUrl());
+        verify(jenkinsClient).useDiscoveredUrl("http://172.17.0.1:8080");
+    }
+
+    @Test
+    void configuredUrlUp_isPreferred() {
+        when(jenkinsClient.getUrl(CONFIGURED + "/api/json", "application/json"))
+                .thenReturn(CompletableFuture.completedFuture("{}"));
+
+        assertEquals(CONFIGURED, discovery.discover().join());
+
+        verify(jenkinsClient).useDiscoveredUrl(CONFIGURED);
+    }
+
+    @Test
+    void nothingReachable_clientFallsBackToConfiguredUrl() {
+        assertNull(discovery.discover().join());
+
+        assertEquals(JenkinsUrlDiscovery.State.UNREACHABLE, discovery.getState());
+        assertFalse(discovery.isConnected());
+        verify(jenkinsClient).useDiscoveredUrl(null);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsWriteBehindServiceTest {
+
+    @Mock
+    private SystemMetricsService systemMetricsService;
+
+    @TempDir
+    Path tempDir;
+
+    private MetricsWriteBehindService writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+    }
+
+    private MetricsWriteBehindService start(Path spillFile) {
+        writeBehind = new MetricsWriteBehindService(systemMetricsService, new SimpleMeterRegistry(),
+                100, 10, 50, 2, 1, 2, spillFile.toString(), 1_000_000);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    @Test
+    void submit_flushesQueuedSamplesInOneBatch() {
+        start(tempDir.resolve("spill.csv"));
+        ArgumentCaptor<Collection<SystemMetrics>> batch = ArgumentCaptor.forClass(Collection.class);
+
+        for (int i = 0; i < 3; i++) {
+            writeBehind.submit(sample(i));
+        }
+
+        verify(systemMetricsService, timeout(2000)).saveBatch(batch.capture());
+        assertEquals(3, batch.getValue().size());
+    }
+
+    @Test
+    void databaseDown_spillsToFileAndReplaysWhenBack() throws Exception {
+        Path spillFile = tempDir.resolve("spill.csv");
+        List<Integer> stored = new CopyOnWriteArrayList<>();
+        doThrow(new IllegalStateException("db down"))
+                .doThrow(new IllegalStateException("db down"))
+                .doAnswer(invocation -> {
+                    stored.add(invocation.<Collection<?>>getArgument(0).size());
+                    return 1;
+                })
+                .when(systemMetricsService).saveBatch(anyCollection());
+        start(spillFile);
+
+        writeBehind.submit(sample(1));
+        waitFor(() -> Files.exists(spillFile));
+
+        writeBehind.submit(sample(2));
+        waitFor(() -> stored.size() == 2 && !Files.exists(spillFile));
+
+        // One write for the new sample, one for the replayed spill
+        assertEquals(List.of(1, 1), new ArrayList<>(stored));
+    }
+
+    @Test
+    void slowReplay_doesNotBlockSpilling() throws Exception {
+        Path spillFile = tempDir.resolve("spill.csv");
+        CountDownLatch replaying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doThrow(new IllegalStateException("db down"))
+                .doThrow(new IllegalStateException("db down"))
+                .doReturn(1)
+                .doAnswer(invocation -> {
+                    replaying.countDown();
+                    release.await();
+                    return 1;
+                })
+                .when(systemMetricsService).saveBatch(anyCollection());
+        start(spillFile);
+
+        writeBehind.submit(sample(1));
+        waitFor(() -> Files.exists(spillFile));
+        writeBehind.submit(sample(2));
+        assertTrue(replaying.await(5, TimeUnit.SECONDS));
+
+        try {
+            // The writer is stuck replaying, so the queue fills up and the last sample spills
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+                for (int i = 0; i <= 100; i++) {
+                    writeBehind.submit(sample(i));
+                }
+            });
+            assertTrue(Files.exists(spillFile));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void spillLine_roundTrips() {
+        SystemMetrics original = sample(7);
+        original.setHttpRequestsTotal(null);
+        original.setGcCount(3);
+        original.setGcPauseMs(12.5);
+
+        SystemMetrics restored = MetricsWriteBehindService.fromLine(MetricsWriteBehindService.toLine(original));
+
+        assertNotNull(restored);
+        assertEquals(original.getRecordedAt(), restored.getRecordedAt());
+        assertEquals(original.getCpuUsage(), restored.getCpuUsage());
+        assertEquals(original.getThreadCount(), restored.getThreadCount());
+        assertNull(restored.getHttpRequestsTotal());
+        assertEquals(3, restored.getGcCount());
+        assertEquals(12.5, restored.getGcPauseMs());
+        assertNull(restored.getAllocationRate());
+        assertNull(MetricsWriteBehindService.fromLine("garbage"));
+    }
+
+    @Test
+    void spillLine_withoutJfrFields_isStillRead() {
+        SystemMetrics restored = MetricsWriteBehindService.fromLine("2024-01-01T12:00,0.5,0.25,30,10,1000,2000");
+
+        assertNotNull(restored);
+        assertEquals(30, restored.getThreadCount());
+        assertNull(restored.getGcCount());
+    }
+
+    private static SystemMetrics sample(int i) {
+        SystemMetrics sample = new SystemMetrics(0.1 * i, 0.2, 20 + i, 100L * i, 1000L, 2000L);
+        sample.setRecordedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusSeconds(30L * i));
+        return sample;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.login.service;
+
+import com.example.login.entity.SystemMetrics;
+import com.example.login.metrics.MetricsSeries;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMetricsServiceTest {
+
+    // An hourly interval lets a few recent samples count as covering the last hour
+    private final RecentMetricsService recentMetrics = new RecentMetricsService(16, 3_600_000);
+
+    @Test
+    void missingReadings_stayMissingInsteadOfZero() throws Exception {
+        record(0.5, 0.4, 2);
+        record(null, null, 1);
+        record(0.7, 0.6, 0);
+
+        MetricsSeries history = recentMetrics.getHistory(1);
+
+        assertEquals(3, history.size());
+        assertTrue(Double.isNaN(history.cpuUsage(1)));
+        assertTrue(Double.isNaN(history.memoryUsage(1)));
+
+        JsonNode json = new ObjectMapper().valueToTree(history);
+        assertTrue(json.get(1).get("cpuUsage").isNull());
+        assertTrue(json.get(1).get("memoryUsage").isNull());
+        assertEquals(0.7, json.get(2).get("cpuUsage").asDouble());
+    }
+
+    private void record(Double cpu, Double memory, int minutesAgo) {
+        SystemMetrics sample = new SystemMetrics(cpu, memory, 30, 100L, 1000L, 2000L);
+        sample.setRecordedAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        recentMetrics.record(sample);
+    }
+}
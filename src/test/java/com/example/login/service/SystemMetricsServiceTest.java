@@ -1,21 +1,28 @@
 package com.example.login.service;
 
+import com.example.login.dto.MetricsPoint;
 import com.example.login.entity.SystemMetrics;
+import com.example.login.entity.SystemMetricsRollup.Resolution;
+import com.example.login.metrics.MetricsHistoryStore;
 import com.example.login.repository.SystemMetricsRepository;
+import com.example.login.repository.SystemMetricsRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,16 +31,30 @@ class SystemMetricsServiceTest {
     @Mock
     private SystemMetricsRepository repository;
 
-    @InjectMocks
+    @Mock
+    private SystemMetricsRollupRepository rollupRepository;
+
+    private MetricsHistoryStore historyStore;
+
     private SystemMetricsService systemMetricsService;
 
     private SystemMetrics sampleMetrics;
 
     @BeforeEach
     void setUp() {
+        historyStore = new MetricsHistoryStore(120, 720, new SimpleMeterRegistry());
+        systemMetricsService = new SystemMetricsService(repository, rollupRepository, historyStore);
+
         sampleMetrics = new SystemMetrics(0.45, 0.65, 25, 1000L, 512000000L, 1024000000L);
         sampleMetrics.setId(1L);
         sampleMetrics.setRecordedAt(LocalDateTime.now());
+
+        ReflectionTestUtils.setField(systemMetricsService, "sampleIntervalMs", 30000L);
+        ReflectionTestUtils.setField(systemMetricsService, "defaultMaxPoints", 500);
+        ReflectionTestUtils.setField(systemMetricsService, "rawRetentionHours", 48);
+        ReflectionTestUtils.setField(systemMetricsService, "minuteRetentionHours", 168);
+        ReflectionTestUtils.setField(systemMetricsService, "fiveMinuteRetentionHours", 720);
+        ReflectionTestUtils.setField(systemMetricsService, "hourRetentionHours", 8760);
     }
 
     @Test
@@ -50,13 +71,111 @@ class SystemMetricsServiceTest {
 
     @Test
     void getMetricsFromLastHours_returnsMetrics() {
-        List<SystemMetrics> metrics = Arrays.asList(sampleMetrics);
+        List<MetricsPoint> metrics = Arrays.asList(new MetricsPoint(0.45, 0.65, 25, 1000L, 512000000L,
+                1024000000L, sampleMetrics.getRecordedAt()));
         when(repository.findMetricsSince(any(LocalDateTime.class))).thenReturn(metrics);
 
-        List<SystemMetrics> result = systemMetricsService.getMetricsFromLastHours(24);
+        List<MetricsPoint> result = systemMetricsService.getMetricsFromLastHours(24);
 
         assertNotNull(result);
         assertEquals(1, result.size());
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void getMetricsFromLastHours_withinRawRetention_downsamplesRawRows() {
+        LocalDateTime start = LocalDateTime.now().minusHours(24);
+        List<MetricsPoint> rows = new ArrayList<>();
+        for (int i = 0; i < 24 * 120; i++) {
+            rows.add(new MetricsPoint(0.2, 0.5, 30, (long) i, 1000L, 2000L, start.plusSeconds(30L * i)));
+        }
+        when(repository.findMetricsSince(any(LocalDateTime.class))).thenReturn(rows);
+
+        // 24h after a restart: 2880 raw rows exceed 500 but are within raw retention, rollups may be incomplete
+        List<MetricsPoint> result = systemMetricsService.getMetricsFromLastHours(24, 500);
+
+        assertEquals(500, result.size());
+        assertSame(rows.get(0), result.get(0));
+        assertSame(rows.get(rows.size() - 1), result.get(499));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void getMetricsFromLastHours_beyondRawRetention_usesFinestRollupWithinMaxPoints() {
+        MetricsPoint bucket = new MetricsPoint(0.4, 0.6, 20, 100L, 1000L, 2000L, LocalDateTime.now().minusHours(1));
+        when(rollupRepository.findPointsSince(eq(Resolution.FIVE_MINUTES), any(LocalDateTime.class)))
+                .thenReturn(List.of(bucket));
+
+        // 72h: past raw retention, 4320 one-minute buckets exceed 1000, 864 five-minute buckets fit
+        List<MetricsPoint> result = systemMetricsService.getMetricsFromLastHours(72, 1000);
+
+        assertEquals(List.of(bucket), result);
+        verify(repository, never()).findMetricsSince(any());
+    }
+
+    @Test
+    void getMetricsFromLastHours_windowInMemory_skipsDatabase() {
+        LocalDateTime start = LocalDateTime.now().minusHours(2).minusMinutes(5);
+        for (int i = 0; i < 250; i++) {
+            SystemMetrics sample = new SystemMetrics(0.1 + i / 1000.0, 0.5, 30, 100L + i, 1000L, 2000L);
+            sample.setRecordedAt(start.plusSeconds(30L * i));
+            sample.setGcCount(i % 2);
+            systemMetricsService.record(sample);
+        }
+
+        // 2h: 240 raw samples fit in 500 points
+        List<MetricsPoint> result = systemMetricsService.getMetricsFromLastHours(2, 500);
+
+        assertTrue(result.size() >= 239 && result.size() <= 241, "raw samples of the last two hours");
+        MetricsPoint last = result.get(result.size() - 1);
+        assertEquals(0.1 + 249 / 1000.0, last.cpuUsage());
+        assertEquals(349L, last.httpRequestsTotal());
+        assertEquals(1, last.gcCount());
+        assertNull(last.gcPauseMs());
+        verifyNoInteractions(repository, rollupRepository);
+    }
+
+    @Test
+    void getMetricsFromLastHours_longWindowInMemory_downsamplesToMaxPoints() {
+        LocalDateTime start = LocalDateTime.now().minusHours(25);
+        for (int i = 0; i < 25 * 120; i++) {
+            SystemMetrics sample = new SystemMetrics(i == 1500 ? 0.9 : 0.2, 0.5, 30, (long) i, 1000L, 2000L);
+            sample.setRecordedAt(start.plusSeconds(30L * i));
+            systemMetricsService.record(sample);
+        }
+
+        // 24h: 2880 raw samples reduced to 500 with LTTB, the CPU spike and the newest sample kept
+        List<MetricsPoint> result = systemMetricsService.getMetricsFromLastHours(24, 500);
+
+        assertEquals(500, result.size());
+        assertTrue(result.stream().anyMatch(point -> point.httpRequestsTotal() == 1500 && point.cpuUsage() == 0.9));
+        assertEquals(25 * 120 - 1, result.get(result.size() - 1).httpRequestsTotal());
+        verifyNoInteractions(repository, rollupRepository);
+    }
+
+    @Test
+    void downsample_trimsRollupPointsBeyondMaxPoints() {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<MetricsPoint> buckets = new ArrayList<>();
+        for (int i = 0; i < 720; i++) {
+            buckets.add(new MetricsPoint(0.3, 0.5, 20, (long) i, 1000L, 2000L, start.plusHours(i)));
+        }
+
+        List<MetricsPoint> result = SystemMetricsService.downsample(buckets, 100);
+
+        assertEquals(100, result.size());
+        assertSame(buckets.get(0), result.get(0));
+        assertSame(buckets.get(719), result.get(99));
+    }
+
+    @Test
+    void purgeExpired_deletesRawAndEveryRollupTier() {
+        systemMetricsService.purgeExpired();
+
+        verify(repository).deleteOlderThan(any(LocalDateTime.class));
+        for (Resolution resolution : Resolution.values()) {
+            verify(rollupRepository).deleteOlderThan(eq(resolution), any(LocalDateTime.class));
+        }
     }
 
     @Test